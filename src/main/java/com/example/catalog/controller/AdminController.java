@@ -0,0 +1,158 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.model.DeadLetter;
+import com.example.catalog.model.DestinationStats;
+import com.example.catalog.model.HistoryPage;
+import com.example.catalog.model.LatencyBreakdown;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.EventHistory;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.NotifierConfigReloader;
+import com.example.catalog.services.TraceRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Operator endpoints: per-destination delivery stats, the recent event history, reloading the
+ * notifier config, recording where webhook time goes, and inspecting and re-driving deliveries that
+ * ended up in the dead-letter store.
+ */
+@RestController
+@RequestMapping("/gitea/admin")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private final DeadLetterStore deadLetterStore;
+    private final NotificationDispatcher notificationDispatcher;
+    private final EventHistory eventHistory;
+    private final NotifierConfigReloader configReloader;
+    private final TraceRecorder traceRecorder;
+
+    public AdminController(DeadLetterStore deadLetterStore, NotificationDispatcher notificationDispatcher,
+                           EventHistory eventHistory, NotifierConfigReloader configReloader,
+                           TraceRecorder traceRecorder) {
+        this.deadLetterStore = deadLetterStore;
+        this.notificationDispatcher = notificationDispatcher;
+        this.eventHistory = eventHistory;
+        this.configReloader = configReloader;
+        this.traceRecorder = traceRecorder;
+    }
+
+    @GetMapping("/destinations")
+    public List<DestinationStats> listDestinationStats() {
+        return notificationDispatcher.getDestinationStats();
+    }
+
+    /**
+     * Recent events, newest first, e.g. {@code /gitea/admin/history?repo=giteaFinalProject&since=2024-05-01T10:00:00Z}.
+     * Times are ISO-8601 instants; pass a page's {@code nextCursor} as {@code before} to get the next page.
+     */
+    @GetMapping("/history")
+    public HistoryPage queryHistory(@RequestParam(required = false) String repo,
+                                    @RequestParam(required = false) String actor,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant until,
+                                    @RequestParam(required = false) Long before,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        return eventHistory.query(repo, actor, type, since, until, before, limit);
+    }
+
+    /**
+     * Re-reads {@code notifier.config.file} now instead of waiting for the file watcher. An invalid
+     * file is refused with 400 and the running configuration stays in effect.
+     */
+    @PostMapping("/config/reload")
+    public ResponseEntity<Map<String, Object>> reloadConfig() {
+        try {
+            return ResponseEntity.ok(Map.of("version", configReloader.reload()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            logger.warn("Refused notifier config reload: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Starts a Flight Recorder recording of webhook stages; fetch it with the endpoints below, which
+     * stop it early if it is still running.
+     */
+    @PostMapping("/recordings")
+    public ResponseEntity<Map<String, Object>> startRecording(@RequestParam(defaultValue = "60") long seconds) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", traceRecorder.start(seconds), "seconds", seconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Per-stage latencies of the recording and its slowest webhooks.
+     */
+    @GetMapping("/recordings/{id}/breakdown")
+    public LatencyBreakdown recordingBreakdown(@PathVariable long id, @RequestParam(defaultValue = "10") int slowest) {
+        return traceRecorder.breakdown(id, slowest);
+    }
+
+    /**
+     * The recording itself, for JDK Mission Control or {@code jfr print}.
+     */
+    @GetMapping("/recordings/{id}/file")
+    public ResponseEntity<Resource> recordingFile(@PathVariable long id) {
+        Path file = traceRecorder.stop(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new FileSystemResource(file));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, String>> handleUnknownRecording(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+
+    @GetMapping("/dead-letters")
+    public List<DeadLetter> listDeadLetters() {
+        return deadLetterStore.list();
+    }
+
+    /**
+     * Queues every dead letter for delivery again. Those the dispatcher cannot take right now are
+     * put back into the store.
+     */
+    @PostMapping("/dead-letters/redrive")
+    public ResponseEntity<Map<String, Integer>> redriveDeadLetters() {
+        List<DeadLetter> deadLetters = deadLetterStore.drain();
+        int redriven = 0;
+        for (DeadLetter deadLetter : deadLetters) {
+            if (notificationDispatcher.redrive(deadLetter)) {
+                redriven++;
+            } else {
+                deadLetterStore.add(deadLetter);
+            }
+        }
+        logger.info("Re-drove {} of {} dead letters.", redriven, deadLetters.size());
+        return ResponseEntity.ok(Map.of("redriven", redriven, "remaining", deadLetters.size() - redriven));
+    }
+}
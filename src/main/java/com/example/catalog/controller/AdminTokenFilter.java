@@ -0,0 +1,82 @@
+package com.example.catalog.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the operator endpoints under {@code /gitea/admin} with a shared token: every request needs
+ * {@code Authorization: Bearer <admin.token>}. Without a configured token the endpoints are closed
+ * altogether rather than open to anyone who can reach the webhook port.
+ * <p>
+ * Like {@link WebhookSignatureFilter}, the path is matched decoded and without {@code ;}
+ * parameters, the way the handler mapping sees it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    private static final String ADMIN_PATH = "/gitea/admin";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Logger logger = LoggerFactory.getLogger(AdminTokenFilter.class);
+
+    private final byte[] token;
+
+    public AdminTokenFilter(@Value("${admin.token:}") String token) {
+        this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+        if (this.token == null) {
+            logger.warn("No admin.token is set, {} endpoints are disabled.", ADMIN_PATH);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return !path.equals(ADMIN_PATH) && !path.startsWith(ADMIN_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (token == null) {
+            reject(response, HttpStatus.FORBIDDEN, "Admin endpoints are disabled: no admin.token is set.");
+            return;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing admin token.");
+            return;
+        }
+        byte[] presented = authorization.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(token, presented)) {
+            logger.warn("Rejected admin request with a wrong token from {}", request.getRemoteAddr());
+            reject(response, HttpStatus.UNAUTHORIZED, "Invalid admin token.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.catalog.controller;
+
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.WebhookSignatureVerifier;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rejects webhook deliveries whose {@code X-Gitea-Signature} does not match before anything parses
+ * them. The body is read once, bounded by {@code webhook.max-body-bytes}, checked with the
+ * {@link WebhookSignatureVerifier} and then replayed to the controller, so an unauthenticated
+ * sender costs one bounded read and one HMAC, and nothing more.
+ * <p>
+ * The size bound applies with or without secrets: a declared {@code Content-Length} over the limit
+ * is refused before reading anything, and a chunked body is refused as soon as it passes the limit,
+ * so the controller never buffers more than {@code webhook.max-body-bytes}.
+ * <p>
+ * Only {@code POST /gitea/webhook} is filtered. The path is
+ * matched decoded and without {@code ;} parameters, the way the handler mapping sees it, so an
+ * encoded or decorated path cannot reach the controller unverified. The bulk endpoint streams its
+ * body, so it verifies each line instead.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class WebhookSignatureFilter extends OncePerRequestFilter {
+
+    public static final String SIGNATURE_HEADER = "X-Gitea-Signature";
+    private static final String WEBHOOK_PATH = "/gitea/webhook";
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSignatureFilter.class);
+
+    private final WebhookSignatureVerifier verifier;
+    private final PipelineMetrics metrics;
+    private final int maxBodyBytes;
+
+    public WebhookSignatureFilter(WebhookSignatureVerifier verifier,
+                                  PipelineMetrics metrics,
+                                  @Value("${webhook.max-body-bytes:5242880}") int maxBodyBytes) {
+        this.verifier = verifier;
+        this.metrics = metrics;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !WEBHOOK_PATH.equals(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String signature = request.getHeader(SIGNATURE_HEADER);
+        if (verifier.isEnabled() && signature == null) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing webhook signature.", "unsigned");
+            return;
+        }
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Invalid payload: Request body exceeds " + maxBodyBytes + " bytes.", "too_large");
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Invalid payload: Request body exceeds " + maxBodyBytes + " bytes.", "too_large");
+            return;
+        }
+        if (verifier.isEnabled() && !verifier.verify(body, signature)) {
+            logger.warn("Rejected webhook with invalid signature from {}", request.getRemoteAddr());
+            reject(response, HttpStatus.UNAUTHORIZED, "Invalid webhook signature.", "bad_signature");
+            return;
+        }
+        chain.doFilter(new VerifiedBodyRequest(request, body), response);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message, String outcome) throws IOException {
+        metrics.recordEvent("none", outcome);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    /**
+     * The original request with its already-read body served from memory.
+     */
+    private static final class VerifiedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private VerifiedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("The body has already been read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
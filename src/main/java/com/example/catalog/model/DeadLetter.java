@@ -0,0 +1,21 @@
+package com.example.catalog.model;
+
+/**
+ * A delivery that failed permanently, ran out of retries or was dropped by the overflow policy.
+ *
+ * @param sequence    journal sequence of the original event
+ * @param destination the destination that could not be notified
+ * @param eventType   the classified event type
+ * @param event       the extracted webhook fields
+ * @param attempts    how many delivery attempts were made
+ * @param lastError   the error of the last attempt, or why the delivery was dropped
+ * @param failedAt    epoch milliseconds of the last attempt
+ */
+public record DeadLetter(long sequence,
+                         String destination,
+                         String eventType,
+                         WebhookEvent event,
+                         int attempts,
+                         String lastError,
+                         long failedAt) {
+}
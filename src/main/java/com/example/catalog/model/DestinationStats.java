@@ -0,0 +1,23 @@
+package com.example.catalog.model;
+
+/**
+ * Snapshot of one destination's bulkhead and delivery outcomes since startup.
+ *
+ * @param destination        destination name
+ * @param active             deliveries running now
+ * @param queued             deliveries waiting for a free slot
+ * @param delivered          successful deliveries
+ * @param failed             deliveries that threw (each retry counts separately)
+ * @param rejected           deliveries refused because the bulkhead queue was full
+ * @param meanLatencyMillis  mean duration of a delivery attempt, successful or not
+ * @param maxLatencyMillis   longest delivery attempt
+ */
+public record DestinationStats(String destination,
+                               int active,
+                               int queued,
+                               long delivered,
+                               long failed,
+                               long rejected,
+                               double meanLatencyMillis,
+                               double maxLatencyMillis) {
+}
@@ -0,0 +1,16 @@
+package com.example.catalog.model;
+
+/**
+ * How urgently an event type must reach its destinations, most urgent first. Under load, less
+ * urgent events are delivered later and shed at ingress sooner.
+ */
+public enum EventPriority {
+    /** Destructive changes people must hear about, e.g. a deleted repository. Never shed. */
+    CRITICAL,
+    /** Events someone is waiting on, e.g. a pull request or release. */
+    HIGH,
+    /** Routine activity such as pushes. */
+    NORMAL,
+    /** Chatter such as comments. */
+    LOW
+}
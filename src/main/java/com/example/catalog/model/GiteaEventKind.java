@@ -0,0 +1,45 @@
+package com.example.catalog.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of Gitea webhook the notifier understands, with the {@code X-Gitea-Event} /
+ * {@code X-Gitea-Event-Type} header values Gitea sends for each.
+ */
+public enum GiteaEventKind {
+    PUSH("push"),
+    CREATE("create"),
+    DELETE("delete"),
+    REPOSITORY("repository"),
+    PULL_REQUEST("pull_request", "pull_request_assign", "pull_request_label", "pull_request_milestone",
+            "pull_request_sync", "pull_request_approved", "pull_request_rejected",
+            "pull_request_review_approved", "pull_request_review_rejected", "pull_request_review_comment"),
+    PULL_REQUEST_COMMENT("pull_request_comment"),
+    ISSUES("issues", "issue_assign", "issue_label", "issue_milestone"),
+    ISSUE_COMMENT("issue_comment"),
+    RELEASE("release");
+
+    private static final Map<String, GiteaEventKind> BY_HEADER = new HashMap<>();
+
+    static {
+        for (GiteaEventKind kind : values()) {
+            for (String headerValue : kind.headerValues) {
+                BY_HEADER.put(headerValue, kind);
+            }
+        }
+    }
+
+    private final String[] headerValues;
+
+    GiteaEventKind(String... headerValues) {
+        this.headerValues = headerValues;
+    }
+
+    /**
+     * The kind for a Gitea event header value, or {@code null} if it is not one the notifier knows.
+     */
+    public static GiteaEventKind fromHeader(String headerValue) {
+        return headerValue == null ? null : BY_HEADER.get(headerValue);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.catalog.model;
+
+import java.util.List;
+
+/**
+ * One page of event history, newest first.
+ *
+ * @param events     the matching events on this page
+ * @param nextCursor value for the {@code before} parameter that fetches the next page, or
+ *                   {@code null} on the last page
+ */
+public record HistoryPage(List<HistoryRecord> events, Long nextCursor) {
+}
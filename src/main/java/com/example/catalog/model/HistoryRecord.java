@@ -0,0 +1,26 @@
+package com.example.catalog.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One classified webhook event as kept in the event history.
+ *
+ * @param sequence     history sequence number, increasing with every recorded event
+ * @param time         when the event was handled
+ * @param eventType    the classified event type, e.g. {@code push}
+ * @param repo         repository name
+ * @param actor        user who triggered the event
+ * @param ref          branch or tag, or {@code null}
+ * @param destinations destinations the event was routed to
+ * @param outcome      what happened to it, as in the {@code webhook.events} metric, e.g. {@code accepted}
+ */
+public record HistoryRecord(long sequence,
+                            Instant time,
+                            String eventType,
+                            String repo,
+                            String actor,
+                            String ref,
+                            List<String> destinations,
+                            String outcome) {
+}
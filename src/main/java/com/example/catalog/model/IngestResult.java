@@ -0,0 +1,17 @@
+package com.example.catalog.model;
+
+/**
+ * What became of one incoming webhook, as reported back to the sender.
+ *
+ * @param status            HTTP status describing the outcome, e.g. 202 when queued for delivery
+ * @param message           human-readable outcome, sent as the response body
+ * @param retryAfterSeconds when to send the webhook again, sent as {@code Retry-After}; 0 for none
+ */
+public record IngestResult(int status,
+                           String message,
+                           long retryAfterSeconds) {
+
+    public IngestResult(int status, String message) {
+        this(status, message, 0);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.catalog.model;
+
+import java.util.List;
+
+/**
+ * Per-stage latency of the webhooks in a Flight Recorder recording.
+ *
+ * @param events  number of stage events read
+ * @param stages  latency of each stage, in pipeline order; {@code queued} is the wait between
+ *                being queued and a worker starting on the webhook
+ * @param slowest the webhooks with the longest end-to-end time, slowest first
+ */
+public record LatencyBreakdown(long events, List<StageLatency> stages, List<TraceLatency> slowest) {
+}
@@ -0,0 +1,17 @@
+package com.example.catalog.model;
+
+import java.util.List;
+
+/**
+ * A webhook event accepted for delivery, as recorded in the outbox journal.
+ *
+ * @param sequence     journal sequence number, unique per accepted event
+ * @param event        the extracted webhook fields
+ * @param eventType    the classified event type, e.g. {@code push}
+ * @param destinations names of the destinations still to be notified
+ */
+public record Notification(long sequence,
+                           WebhookEvent event,
+                           String eventType,
+                           List<String> destinations) {
+}
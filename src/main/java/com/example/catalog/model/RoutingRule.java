@@ -0,0 +1,32 @@
+package com.example.catalog.model;
+
+import java.util.List;
+
+/**
+ * One routing rule: an event matching every non-empty condition is sent to all of the rule's
+ * destinations. Within a condition any listed value matches; an empty condition matches anything.
+ *
+ * @param repos        repository names
+ * @param owners       repository owners (user or organization)
+ * @param actors       sender logins
+ * @param eventTypes   classified event types, e.g. {@code push} or {@code pull_request_opened}
+ * @param branches     branch or tag names; {@code *} matches within one path segment and
+ *                     {@code **} across segments, e.g. {@code release/*}
+ * @param destinations destination names known to the notifier
+ */
+public record RoutingRule(List<String> repos,
+                          List<String> owners,
+                          List<String> actors,
+                          List<String> eventTypes,
+                          List<String> branches,
+                          List<String> destinations) {
+
+    public RoutingRule {
+        repos = repos != null ? List.copyOf(repos) : List.of();
+        owners = owners != null ? List.copyOf(owners) : List.of();
+        actors = actors != null ? List.copyOf(actors) : List.of();
+        eventTypes = eventTypes != null ? List.copyOf(eventTypes) : List.of();
+        branches = branches != null ? List.copyOf(branches) : List.of();
+        destinations = destinations != null ? List.copyOf(destinations) : List.of();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.catalog.model;
+
+/**
+ * Latency of one pipeline stage over every time it ran in a recording.
+ *
+ * @param stage      stage name, e.g. {@code parse} or {@code send}
+ * @param count      how many times the stage ran
+ * @param meanMillis mean duration
+ * @param p50Millis  median duration
+ * @param p95Millis  95th percentile duration
+ * @param p99Millis  99th percentile duration
+ * @param maxMillis  longest duration
+ */
+public record StageLatency(String stage,
+                           long count,
+                           double meanMillis,
+                           double p50Millis,
+                           double p95Millis,
+                           double p99Millis,
+                           double maxMillis) {
+}
@@ -0,0 +1,21 @@
+package com.example.catalog.model;
+
+import java.util.Map;
+
+/**
+ * Where the time went for one webhook, from its first ingress stage to its last send.
+ *
+ * @param deliveryId  the webhook's delivery ID
+ * @param sequence    its outbox journal sequence
+ * @param eventType   the classified event type
+ * @param repo        repository name
+ * @param totalMillis time from the start of the first stage to the end of the last
+ * @param stageMillis time spent in each stage, summed over retries and destinations
+ */
+public record TraceLatency(String deliveryId,
+                           long sequence,
+                           String eventType,
+                           String repo,
+                           double totalMillis,
+                           Map<String, Double> stageMillis) {
+}
@@ -0,0 +1,40 @@
+package com.example.catalog.model;
+
+/**
+ * The handful of Gitea webhook fields the notifier actually reads, extracted from the payload
+ * without building the full JSON tree. Any field missing from the payload is {@code null}.
+ *
+ * @param actor      {@code sender.login}
+ * @param repoName   {@code repository.name}
+ * @param ref        {@code ref}
+ * @param before     {@code before} (push events)
+ * @param after      {@code after} (push events)
+ * @param refType    {@code ref_type} (create/delete events)
+ * @param pusherType {@code pusher_type} (create/delete events)
+ * @param action     {@code action}
+ * @param title      title of the pull request, issue or release
+ * @param number     number of the pull request or issue
+ * @param url        web link to the pull request, issue, comment or release
+ * @param owner      {@code repository.owner.login}
+ */
+public record WebhookEvent(String actor,
+                           String repoName,
+                           String ref,
+                           String before,
+                           String after,
+                           String refType,
+                           String pusherType,
+                           String action,
+                           String title,
+                           String number,
+                           String url,
+                           String owner) {
+
+    /**
+     * An event without pull request, issue or release details.
+     */
+    public WebhookEvent(String actor, String repoName, String ref, String before, String after,
+                        String refType, String pusherType, String action) {
+        this(actor, repoName, ref, before, after, refType, pusherType, action, null, null, null, null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+
+/**
+ * Base for webhook kinds whose event type is the kind's name plus the payload {@code action},
+ * e.g. {@code pull_request_opened} or {@code release_published}.
+ */
+public abstract class ActionEventHandler implements GiteaEventHandler {
+
+    private final GiteaEventKind kind;
+    private final String prefix;
+    private final ExtractionPlan plan;
+
+    protected ActionEventHandler(GiteaEventKind kind, String prefix, ExtractionPlan plan) {
+        this.kind = kind;
+        this.prefix = prefix;
+        this.plan = plan;
+    }
+
+    @Override
+    public GiteaEventKind kind() {
+        return kind;
+    }
+
+    @Override
+    public ExtractionPlan extractionPlan() {
+        return plan;
+    }
+
+    @Override
+    public String eventType(WebhookEvent event) {
+        return event.action() != null ? prefix + "_" + event.action() : prefix;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.EventPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides at ingress whether an event may join the delivery backlog. Each priority below
+ * {@link EventPriority#CRITICAL} has a fill, the undelivered backlog (see
+ * {@link NotificationDispatcher#getBacklog()}) as a share of the delivery queue's capacity, beyond
+ * which its events are shed: {@code webhook.admission.shed-at.low},
+ * {@code webhook.admission.shed-at.normal} and {@code webhook.admission.shed-at.high}. A shed
+ * event is answered 429 with a {@code Retry-After} of {@code webhook.admission.retry-after-seconds},
+ * so the sender tries again once the burst has passed while the remaining room goes to more
+ * urgent events. Critical events are only refused when the queue is actually full.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final EventPriorities priorities;
+    private final NotificationDispatcher notificationDispatcher;
+    private final double[] shedAt = new double[EventPriority.values().length];
+    private final long retryAfterSeconds;
+
+    public AdmissionControl(EventPriorities priorities,
+                            NotificationDispatcher notificationDispatcher,
+                            @Value("${webhook.admission.shed-at.low:0.5}") double shedLowAt,
+                            @Value("${webhook.admission.shed-at.normal:0.75}") double shedNormalAt,
+                            @Value("${webhook.admission.shed-at.high:0.9}") double shedHighAt,
+                            @Value("${webhook.admission.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.priorities = priorities;
+        this.notificationDispatcher = notificationDispatcher;
+        this.shedAt[EventPriority.CRITICAL.ordinal()] = Double.POSITIVE_INFINITY;
+        this.shedAt[EventPriority.HIGH.ordinal()] = shedHighAt;
+        this.shedAt[EventPriority.NORMAL.ordinal()] = shedNormalAt;
+        this.shedAt[EventPriority.LOW.ordinal()] = shedLowAt;
+        this.retryAfterSeconds = retryAfterSeconds;
+        logger.info("Shedding low priority events from {}% backlog fill, normal from {}%, high from {}%",
+                shedLowAt * 100, shedNormalAt * 100, shedHighAt * 100);
+    }
+
+    /**
+     * Whether an event of this type may be queued for delivery now.
+     */
+    public boolean admit(String eventType) {
+        double fill = notificationDispatcher.getBacklog() / (double) Math.max(1, notificationDispatcher.getQueueCapacity());
+        return fill < shedAt[priorities.priorityOf(eventType).ordinal()];
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
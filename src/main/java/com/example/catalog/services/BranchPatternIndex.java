@@ -0,0 +1,112 @@
+package com.example.catalog.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Branch conditions of the routing rules, indexed so a branch name is matched without looking at
+ * every rule: literal names sit in a hash index, and glob patterns in a trie keyed by their literal
+ * prefix (the part before the first {@code *}). Walking the branch name down the trie reaches only
+ * the patterns whose prefix it starts with; just those are checked against the rest of the name.
+ * <p>
+ * Rule sets are bitmasks of rule indexes, as used by {@link RoutingEngine}.
+ */
+final class BranchPatternIndex {
+
+    private final Map<String, long[]> literals = new HashMap<>();
+    private final TrieNode globs = new TrieNode();
+    private final long[] unconstrained;
+    private final int words;
+
+    BranchPatternIndex(int words) {
+        this.words = words;
+        this.unconstrained = new long[words];
+    }
+
+    void addUnconstrained(int rule) {
+        RoutingEngine.set(unconstrained, rule);
+    }
+
+    void add(String pattern, int rule) {
+        int wildcard = pattern.indexOf('*');
+        if (wildcard < 0) {
+            RoutingEngine.set(literals.computeIfAbsent(pattern, key -> new long[words]), rule);
+            return;
+        }
+        TrieNode node = globs;
+        for (int i = 0; i < wildcard; i++) {
+            node = node.children.computeIfAbsent(pattern.charAt(i), key -> new TrieNode());
+        }
+        node.patterns.add(new Glob(pattern, wildcard, rule));
+    }
+
+    /**
+     * Clears from {@code mask} every rule whose branch condition the branch does not satisfy.
+     */
+    void retain(String branch, long[] mask) {
+        long[] matching = unconstrained.clone();
+        if (branch != null) {
+            long[] literal = literals.get(branch);
+            if (literal != null) {
+                RoutingEngine.or(matching, literal);
+            }
+            TrieNode node = globs;
+            int position = 0;
+            while (node != null) {
+                for (Glob glob : node.patterns) {
+                    if (RoutingEngine.isSet(mask, glob.rule) && glob.matchesFrom(branch, position)) {
+                        RoutingEngine.set(matching, glob.rule);
+                    }
+                }
+                node = position < branch.length() ? node.children.get(branch.charAt(position++)) : null;
+            }
+        }
+        RoutingEngine.and(mask, matching);
+    }
+
+    private static final class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>();
+        final List<Glob> patterns = new ArrayList<>(1);
+    }
+
+    /**
+     * A glob whose literal prefix has already been matched by the trie walk.
+     */
+    private record Glob(String pattern, int prefixLength, int rule) {
+
+        boolean matchesFrom(String branch, int position) {
+            return matches(pattern, prefixLength, branch, position);
+        }
+
+        /**
+         * {@code *} matches any run of characters other than {@code /}, {@code **} any run at all.
+         */
+        private static boolean matches(String pattern, int p, String text, int t) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c != '*') {
+                    if (t >= text.length() || text.charAt(t) != c) {
+                        return false;
+                    }
+                    p++;
+                    t++;
+                    continue;
+                }
+                boolean crossesSegments = p + 1 < pattern.length() && pattern.charAt(p + 1) == '*';
+                int next = crossesSegments ? p + 2 : p + 1;
+                for (int end = t; end <= text.length(); end++) {
+                    if (matches(pattern, next, text, end)) {
+                        return true;
+                    }
+                    if (end < text.length() && !crossesSegments && text.charAt(end) == '/') {
+                        return false;
+                    }
+                }
+                return false;
+            }
+            return t == text.length();
+        }
+    }
+}
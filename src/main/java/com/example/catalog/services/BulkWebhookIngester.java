@@ -0,0 +1,327 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.IngestResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingests a stream of newline-delimited JSON deliveries, e.g. a backfill after an outage or a
+ * migration, one line at a time through the same {@link WebhookIngestService} pipeline as single
+ * webhooks. Neither the request nor the response is held in memory: each line is read, ingested and
+ * answered with one result line before the next is read.
+ * <p>
+ * A line is either a Gitea payload as delivered, classified by the request's event headers (or by
+ * its shape when they are absent), or an envelope whose first field is one of {@code delivery},
+ * {@code event}, {@code eventType}, {@code signature} or {@code payload}:
+ * <pre>{"delivery":"...","event":"pull_request","payload":{...}}</pre>
+ * When the undelivered backlog ({@link NotificationDispatcher#getBacklog()}) exceeds
+ * {@code webhook.bulk.max-queue-fill} of the delivery queue's capacity, ingestion pauses until it
+ * drains, so a backfill never crowds out live webhooks or trips the overflow policy; the pause stops
+ * reading the request and so slows the client down. A line that cannot be queued within
+ * {@code webhook.bulk.backpressure-timeout-ms} is answered 503 and can be sent again.
+ * <p>
+ * When webhook signatures are verified, every line must be an envelope whose {@code signature}
+ * field holds the delivery's original {@code X-Gitea-Signature} over the exact payload bytes;
+ * other lines are answered 401 without being parsed further.
+ */
+@Service
+@RegisterReflectionForBinding(BulkWebhookIngester.LineResult.class)
+public class BulkWebhookIngester {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkWebhookIngester.class);
+    private static final long BACKPRESSURE_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * Outcome of one input line, written as one line of the response.
+     *
+     * @param line     1-based line number in the request
+     * @param delivery the envelope's delivery ID, if any
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LineResult(long line, String delivery, int status, String message) {
+    }
+
+    private final WebhookIngestService ingestService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final JsonFactory jsonFactory;
+    private final ObjectWriter resultWriter;
+    private final double maxQueueFill;
+    private final long backpressureTimeoutNanos;
+
+    public BulkWebhookIngester(WebhookIngestService ingestService,
+                               NotificationDispatcher notificationDispatcher,
+                               WebhookSignatureVerifier signatureVerifier,
+                               ObjectMapper objectMapper,
+                               @Value("${webhook.bulk.max-queue-fill:0.5}") double maxQueueFill,
+                               @Value("${webhook.bulk.backpressure-timeout-ms:30000}") long backpressureTimeoutMillis) {
+        this.ingestService = ingestService;
+        this.notificationDispatcher = notificationDispatcher;
+        this.signatureVerifier = signatureVerifier;
+        this.jsonFactory = objectMapper.getFactory();
+        this.resultWriter = objectMapper.writerFor(LineResult.class);
+        this.maxQueueFill = maxQueueFill;
+        this.backpressureTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(backpressureTimeoutMillis);
+    }
+
+    /**
+     * Reads deliveries from {@code in} until it ends, writing one {@link LineResult} per non-blank
+     * line to {@code out}.
+     *
+     * @param giteaEvent     the request's {@code X-Gitea-Event} header, applied to plain payload lines
+     * @param giteaEventType the request's {@code X-Gitea-Event-Type} header, applied to plain payload lines
+     */
+    public void ingest(InputStream in, OutputStream out, String giteaEvent, String giteaEventType) throws IOException {
+        LineReader reader = new LineReader(in, ingestService.getMaxBodyBytes());
+        long lines = 0;
+        long accepted = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        while (reader.next()) {
+            if (reader.isBlank()) {
+                continue;
+            }
+            LineResult result;
+            if (reader.isOverflowing()) {
+                IngestResult tooLarge = ingestService.tooLarge();
+                result = new LineResult(reader.getLineNumber(), null, tooLarge.status(), tooLarge.message());
+            } else {
+                Envelope envelope = parse(reader.getBuffer(), reader.getLength(), giteaEvent, giteaEventType);
+                IngestResult ingested = isAuthentic(envelope)
+                        ? ingestWithBackpressure(envelope, out)
+                        : new IngestResult(HttpStatus.UNAUTHORIZED.value(), "Missing or invalid webhook signature.");
+                result = new LineResult(reader.getLineNumber(), envelope.delivery(), ingested.status(), ingested.message());
+            }
+            lines++;
+            if (result.status() == HttpStatus.ACCEPTED.value()) {
+                accepted++;
+            } else if (result.status() >= 400) {
+                failed++;
+            }
+            out.write(resultWriter.writeValueAsBytes(result));
+            out.write('\n');
+            if (in.available() == 0) {
+                // About to wait on the client, so let it see the results so far.
+                out.flush();
+            }
+        }
+        out.flush();
+        logger.info("Bulk ingest of {} deliveries finished in {} ms: {} accepted, {} failed.",
+                lines, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), accepted, failed);
+    }
+
+    private boolean isAuthentic(Envelope envelope) {
+        return !signatureVerifier.isEnabled()
+                || envelope.payload() != null && signatureVerifier.verify(envelope.payload(), envelope.signature());
+    }
+
+    private IngestResult ingestWithBackpressure(Envelope envelope, OutputStream out) throws IOException {
+        long deadline = System.nanoTime() + backpressureTimeoutNanos;
+        while (true) {
+            if (!awaitQueueRoom(deadline, out)) {
+                return new IngestResult(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Delivery queue stayed full, try again later.");
+            }
+            IngestResult result = ingestService.ingest(envelope.delivery(), envelope.event(), envelope.eventType(),
+                    envelope.payload());
+            // A live webhook may have taken the last slot in between, or the event may have been
+            // shed for its priority; wait for room again.
+            if (result.retryAfterSeconds() == 0 || System.nanoTime() >= deadline) {
+                return result;
+            }
+            LockSupport.parkNanos(BACKPRESSURE_PAUSE_NANOS);
+        }
+    }
+
+    /**
+     * Waits until the undelivered backlog is below the bulk fill limit.
+     *
+     * @return {@code false} if it was still too large at the deadline.
+     */
+    private boolean awaitQueueRoom(long deadline, OutputStream out) throws IOException {
+        int limit = Math.max(1, (int) (notificationDispatcher.getQueueCapacity() * maxQueueFill));
+        if (notificationDispatcher.getBacklog() < limit) {
+            return true;
+        }
+        out.flush();
+        logger.debug("Delivery backlog at {} of {}, pausing bulk ingest.", notificationDispatcher.getBacklog(), limit);
+        while (notificationDispatcher.getBacklog() >= limit) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(BACKPRESSURE_PAUSE_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Splits an envelope line into its fields without building a tree. Anything that is not an
+     * envelope, malformed JSON included, is passed on as a plain payload for the pipeline to judge.
+     */
+    private Envelope parse(byte[] line, int length, String giteaEvent, String giteaEventType) throws IOException {
+        byte[] raw = Arrays.copyOf(line, length);
+        try (JsonParser parser = jsonFactory.createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME
+                    || !isEnvelopeField(parser.currentName())) {
+                return new Envelope(null, giteaEvent, giteaEventType, null, raw);
+            }
+            String delivery = null;
+            String event = null;
+            String eventType = null;
+            String signature = null;
+            byte[] payload = null;
+            do {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "delivery" -> delivery = parser.getValueAsString();
+                    case "event" -> event = parser.getValueAsString();
+                    case "eventType" -> eventType = parser.getValueAsString();
+                    case "signature" -> signature = parser.getValueAsString();
+                    case "payload" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            int payloadStart = (int) parser.currentTokenLocation().getByteOffset();
+                            parser.skipChildren();
+                            payload = Arrays.copyOfRange(line, payloadStart, (int) parser.currentLocation().getByteOffset());
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            } while (parser.nextToken() == JsonToken.FIELD_NAME);
+            return new Envelope(delivery, event, eventType, signature, payload);
+        } catch (JsonProcessingException e) {
+            return new Envelope(null, giteaEvent, giteaEventType, null, raw);
+        }
+    }
+
+    private static boolean isEnvelopeField(String field) {
+        return "delivery".equals(field) || "event".equals(field) || "eventType".equals(field)
+                || "signature".equals(field) || "payload".equals(field);
+    }
+
+    private record Envelope(String delivery, String event, String eventType, String signature, byte[] payload) {
+    }
+
+    /**
+     * Reads lines as raw bytes into a reused buffer. A line longer than the limit is consumed but not
+     * kept, and reported as overflowing.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final int maxLineBytes;
+        private final byte[] chunk = new byte[8192];
+        private int chunkPos;
+        private int chunkEnd;
+        private byte[] buffer = new byte[8192];
+        private int length;
+        private boolean overflowing;
+        private long lineNumber;
+
+        private LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.maxLineBytes = maxLineBytes;
+        }
+
+        /**
+         * Reads the next line.
+         *
+         * @return {@code false} at the end of the stream.
+         */
+        boolean next() throws IOException {
+            length = 0;
+            overflowing = false;
+            boolean read = false;
+            while (true) {
+                if (chunkPos == chunkEnd) {
+                    chunkEnd = in.read(chunk);
+                    chunkPos = 0;
+                    if (chunkEnd <= 0) {
+                        chunkEnd = 0;
+                        if (read) {
+                            lineNumber++;
+                        }
+                        return read;
+                    }
+                }
+                read = true;
+                int newline = chunkPos;
+                while (newline < chunkEnd && chunk[newline] != '\n') {
+                    newline++;
+                }
+                append(chunkPos, newline - chunkPos);
+                if (newline < chunkEnd) {
+                    chunkPos = newline + 1;
+                    lineNumber++;
+                    if (length > 0 && buffer[length - 1] == '\r') {
+                        length--;
+                    }
+                    return true;
+                }
+                chunkPos = chunkEnd;
+            }
+        }
+
+        private void append(int from, int count) {
+            if (overflowing) {
+                return;
+            }
+            if (length + count > maxLineBytes) {
+                overflowing = true;
+                length = 0;
+                return;
+            }
+            if (length + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(maxLineBytes, Math.max(buffer.length * 2, length + count)));
+            }
+            System.arraycopy(chunk, from, buffer, length, count);
+            length += count;
+        }
+
+        boolean isBlank() {
+            if (overflowing) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(buffer[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isOverflowing() {
+            return overflowing;
+        }
+
+        byte[] getBuffer() {
+            return buffer;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        long getLineNumber() {
+            return lineNumber;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.catalog.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over the outcomes of the last {@code windowSize} calls to one destination.
+ * Once at least {@code minimumCalls} are in the window and the share of failures reaches the
+ * threshold, the circuit opens and {@link #tryAcquire()} refuses calls for the open duration. After
+ * that it is half-open: up to {@code halfOpenProbes} calls go through as probes, and the circuit
+ * closes with a fresh window once they all succeed, or opens again on the first that fails. Calls
+ * still in flight from before a state change do not count towards the new state.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Ordered from healthy to broken, so the ordinal can be exported as a gauge.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /**
+     * Told about every state change, after it happened.
+     */
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final long halfOpenWaitNanos;
+    private final int halfOpenProbes;
+    private final TransitionListener listener;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    /** Window position of the next outcome, the number of outcomes in the window and how many failed. */
+    private int next;
+    private int calls;
+    private int failures;
+    private long openUntilNanos;
+    private int probesInFlight;
+    private int probesSucceeded;
+    /** Bumped on every state change, to tell current permits from stale ones. */
+    private long generation;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis,
+                          int halfOpenProbes, TransitionListener listener) {
+        this(windowSize, minimumCalls, failureRateThreshold, openMillis, halfOpenProbes, listener, System::nanoTime);
+    }
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis,
+                          int halfOpenProbes, TransitionListener listener, LongSupplier nanoClock) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenProbes < 1
+                || failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Circuit breaker needs 1 <= minimum calls <= window size, "
+                    + "at least one probe and a failure rate threshold in (0, 1]");
+        }
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenWaitNanos = Math.max(1, openNanos / 10);
+        this.halfOpenProbes = halfOpenProbes;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * One call allowed by {@link #tryAcquire()}. Its outcome only counts while the circuit is still
+     * in the state that allowed it, so a call started while closed is never taken for a probe.
+     */
+    public final class Permit {
+
+        private final long generation;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+
+        public void onSuccess() {
+            CircuitBreaker.this.onSuccess(generation);
+        }
+
+        public void onFailure() {
+            CircuitBreaker.this.onFailure(generation);
+        }
+    }
+
+    /**
+     * Asks to make a call. Every call allowed must report its outcome through the permit.
+     *
+     * @return the permit, or {@code null} if the circuit is open, or half-open with all probes
+     * already in flight.
+     */
+    public Permit tryAcquire() {
+        boolean halfOpened = false;
+        Permit permit = null;
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openUntilNanos < 0) {
+                    return null;
+                }
+                transition(State.HALF_OPEN);
+                probesInFlight = 0;
+                probesSucceeded = 0;
+                halfOpened = true;
+            }
+            if (state == State.CLOSED || probesInFlight + probesSucceeded < halfOpenProbes) {
+                if (state == State.HALF_OPEN) {
+                    probesInFlight++;
+                }
+                permit = new Permit(generation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (halfOpened) {
+            listener.onTransition(State.OPEN, State.HALF_OPEN);
+        }
+        return permit;
+    }
+
+    private void onSuccess(long permitGeneration) {
+        State from;
+        State to;
+        lock.lock();
+        try {
+            from = state;
+            if (permitGeneration == generation) {
+                if (state == State.HALF_OPEN) {
+                    probesInFlight--;
+                    if (++probesSucceeded >= halfOpenProbes) {
+                        transition(State.CLOSED);
+                        next = 0;
+                        calls = 0;
+                        failures = 0;
+                    }
+                } else if (state == State.CLOSED) {
+                    record(false);
+                }
+            }
+            to = state;
+        } finally {
+            lock.unlock();
+        }
+        fireTransition(from, to);
+    }
+
+    private void onFailure(long permitGeneration) {
+        State from;
+        State to;
+        lock.lock();
+        try {
+            from = state;
+            if (permitGeneration == generation) {
+                if (state == State.CLOSED) {
+                    record(true);
+                }
+                if (state == State.HALF_OPEN || state == State.CLOSED && calls >= minimumCalls
+                        && failures >= failureRateThreshold * calls) {
+                    transition(State.OPEN);
+                    openUntilNanos = nanoClock.getAsLong() + openNanos;
+                }
+            }
+            to = state;
+        } finally {
+            lock.unlock();
+        }
+        fireTransition(from, to);
+    }
+
+    /**
+     * How long a refused caller should wait: until an open circuit lets a probe through, or, while
+     * half-open, a tenth of the open duration for the probes to finish; 0 when closed.
+     */
+    public long getRetryAfterNanos() {
+        lock.lock();
+        try {
+            return switch (state) {
+                case CLOSED -> 0;
+                case HALF_OPEN -> halfOpenWaitNanos;
+                case OPEN -> Math.max(1, openUntilNanos - nanoClock.getAsLong());
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Share of failed calls in the current window, 0 when it is empty.
+     */
+    public double getFailureRate() {
+        lock.lock();
+        try {
+            return calls == 0 ? 0 : failures / (double) calls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an outcome to the window, evicting the oldest once it is full.
+     */
+    private void record(boolean failed) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    /**
+     * Moves to a new state; permits from the previous state no longer count.
+     */
+    private void transition(State to) {
+        state = to;
+        generation++;
+    }
+
+    private void fireTransition(State from, State to) {
+        if (from != to) {
+            listener.onTransition(from, to);
+        }
+    }
+}
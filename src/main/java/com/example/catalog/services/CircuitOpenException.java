@@ -0,0 +1,22 @@
+package com.example.catalog.services;
+
+/**
+ * Thrown instead of calling a destination whose circuit breaker is open. Nothing was sent, so the
+ * notification can simply wait for the destination to recover.
+ */
+public class CircuitOpenException extends DeliveryException {
+
+    private final long retryAfterNanos;
+
+    public CircuitOpenException(String destination, long retryAfterNanos) {
+        super("Circuit to " + destination + " is open", -1);
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    /**
+     * How long until the circuit lets the next probe through.
+     */
+    public long getRetryAfterNanos() {
+        return retryAfterNanos;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CreateEventHandler implements GiteaEventHandler {
+
+    private static final ExtractionPlan PLAN = ExtractionPlan.withSenderAndRepository()
+            .field("ref", ExtractionPlan.Field.REF)
+            .field("ref_type", ExtractionPlan.Field.REF_TYPE)
+            .build();
+
+    @Override
+    public GiteaEventKind kind() {
+        return GiteaEventKind.CREATE;
+    }
+
+    @Override
+    public ExtractionPlan extractionPlan() {
+        return PLAN;
+    }
+
+    @Override
+    public String eventType(WebhookEvent event) {
+        return "tag".equals(event.refType()) ? "create_tag" : "create_branch";
+    }
+}
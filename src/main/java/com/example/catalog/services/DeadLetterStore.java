@@ -0,0 +1,114 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.DeadLetter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps failed deliveries in a newline-delimited JSON file on disk, where they can be inspected
+ * and re-driven through the admin endpoints. A line that cannot be parsed, e.g. one torn by a crash
+ * mid-write, is logged and skipped rather than hiding the others.
+ */
+@Component
+@RegisterReflectionForBinding(DeadLetter.class)
+public class DeadLetterStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterStore.class);
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public DeadLetterStore(@Value("${deadletter.file:data/dead-letters.ndjson}") Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Appends the dead letter to the file.
+     *
+     * @return {@code false} if it could not be written, e.g. because the disk is full.
+     */
+    public boolean add(DeadLetter deadLetter) {
+        lock.lock();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            byte[] line = (objectMapper.writeValueAsString(deadLetter) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return true;
+        } catch (IOException e) {
+            logger.error("Could not write dead letter for event {} to {}: {}", deadLetter.sequence(), deadLetter.destination(), deadLetter, e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<DeadLetter> list() {
+        lock.lock();
+        try {
+            return read();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns every dead letter, e.g. to re-drive them.
+     */
+    public List<DeadLetter> drain() {
+        lock.lock();
+        try {
+            List<DeadLetter> deadLetters = read();
+            Files.deleteIfExists(file);
+            return deadLetters;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not drain dead letters from " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<DeadLetter> read() {
+        List<DeadLetter> deadLetters = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return deadLetters;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    deadLetters.add(objectMapper.readValue(line, DeadLetter.class));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipping malformed dead letter on line {} of {}: {}", number, file, line);
+                }
+            }
+            return deadLetters;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read dead letters from " + file, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.catalog.services;
+
+/**
+ * Thrown when a notification could not be delivered to its destination.
+ */
+public class DeliveryException extends RuntimeException {
+
+    private final int statusCode;
+
+    public DeliveryException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public DeliveryException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = -1;
+    }
+
+    /**
+     * HTTP status returned by the destination, or -1 if no response was received.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.DestinationStats;
+import com.example.catalog.model.EventPriority;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One bulkhead per destination: its own concurrency limit, its own bounded queue and its own
+ * threads, so a destination that hangs can only tie up its own slots while deliveries to the others
+ * carry on. Bulkheads are created on first use of a destination name.
+ * <p>
+ * A full queue is backpressure, not a failure: {@link #submit} waits for room, so the backlog
+ * stays with the caller, e.g. in the dispatcher's delivery queue where admission control sees it.
+ * Queued deliveries start most urgent first, then in submission order.
+ * <p>
+ * Each bulkhead runs on dedicated platform threads, or on virtual threads when
+ * {@code spring.threads.virtual.enabled=true} and the JDK supports them.
+ */
+@Component
+public class DestinationBulkheads {
+
+    /**
+     * One delivery attempt to a destination.
+     */
+    @FunctionalInterface
+    public interface Delivery {
+        void run() throws Exception;
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DestinationBulkheads.class);
+    private static final Comparator<QueuedDelivery> DELIVERY_ORDER = Comparator
+            .comparing(QueuedDelivery::priority)
+            .thenComparingLong(QueuedDelivery::order);
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public DestinationBulkheads(@Value("${notifier.bulkhead.max-concurrent:2}") int maxConcurrent,
+                                @Value("${notifier.bulkhead.queue-capacity:200}") int queueCapacity,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Runs the delivery in the destination's bulkhead, waiting while its queue is full. A delivery
+     * that throws is counted as failed and handed to {@code onFailure} on the bulkhead thread.
+     *
+     * @return {@code false} if the bulkhead was shut down, or the calling thread interrupted, before
+     * the delivery was taken.
+     */
+    public boolean submit(String destination, EventPriority priority, Delivery delivery,
+                          Consumer<Exception> onFailure) {
+        return bulkheads.computeIfAbsent(destination, this::createBulkhead).submit(priority, delivery, onFailure);
+    }
+
+    /**
+     * Deliveries waiting in or running on any bulkhead.
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            backlog += bulkhead.backlog();
+        }
+        return backlog;
+    }
+
+    public List<DestinationStats> getStats() {
+        List<DestinationStats> stats = new ArrayList<>(bulkheads.size());
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            stats.add(bulkhead.stats());
+        }
+        stats.sort((a, b) -> a.destination().compareTo(b.destination()));
+        return stats;
+    }
+
+    /**
+     * Waits until every bulkhead has finished its running and queued deliveries.
+     *
+     * @return {@code false} if some were still busy when the timeout ran out.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            if (!bulkhead.awaitIdle(deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+
+    private Bulkhead createBulkhead(String destination) {
+        logger.info("Created bulkhead for destination {} with {} slots and queue capacity {}",
+                destination, maxConcurrent, queueCapacity);
+        return new Bulkhead(destination, maxConcurrent, queueCapacity, createExecutor(destination));
+    }
+
+    private Executor createExecutor(String destination) {
+        if (virtualThreads) {
+            try {
+                return new VirtualThreadTaskExecutor("notifier-" + destination + "-");
+            } catch (UnsupportedOperationException e) {
+                logger.debug("Virtual threads not supported, bulkhead {} uses platform threads", destination);
+            }
+        }
+        // The bulkhead never has more than maxConcurrent tasks outstanding, so this queue stays short.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("notifier-" + destination + "-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private record QueuedDelivery(EventPriority priority, long order, Runnable task) {
+    }
+
+    private static final class Bulkhead {
+
+        private final String destination;
+        private final int maxConcurrent;
+        private final int queueCapacity;
+        private final Executor executor;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition idle = lock.newCondition();
+        private final Condition room = lock.newCondition();
+        private final PriorityQueue<QueuedDelivery> queue = new PriorityQueue<>(DELIVERY_ORDER);
+        private long submissions;
+        private int active;
+        private boolean stopped;
+
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Bulkhead(String destination, int maxConcurrent, int queueCapacity, Executor executor) {
+            this.destination = destination;
+            this.maxConcurrent = maxConcurrent;
+            this.queueCapacity = queueCapacity;
+            this.executor = executor;
+        }
+
+        boolean submit(EventPriority priority, Delivery delivery, Consumer<Exception> onFailure) {
+            Runnable task = () -> attempt(delivery, onFailure);
+            lock.lock();
+            try {
+                while (!stopped && active >= maxConcurrent && queue.size() >= queueCapacity) {
+                    room.await();
+                }
+                if (stopped) {
+                    rejected.increment();
+                    return false;
+                }
+                if (active >= maxConcurrent) {
+                    queue.add(new QueuedDelivery(priority, submissions++, task));
+                    return true;
+                }
+                active++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                return false;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                executor.execute(() -> drain(task));
+            } catch (RejectedExecutionException e) {
+                // Shut down: give the slot back, or awaitIdle would wait for a task that never runs.
+                lock.lock();
+                try {
+                    active--;
+                    if (active == 0) {
+                        idle.signalAll();
+                    }
+                    room.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                rejected.increment();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Runs the task, then keeps taking queued tasks on the same thread until the queue is empty.
+         */
+        private void drain(Runnable first) {
+            Runnable task = first;
+            while (task != null) {
+                task.run();
+                lock.lock();
+                try {
+                    QueuedDelivery next = queue.poll();
+                    task = next != null ? next.task() : null;
+                    if (task != null) {
+                        room.signal();
+                    } else {
+                        active--;
+                        if (active == 0) {
+                            idle.signalAll();
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void attempt(Delivery delivery, Consumer<Exception> onFailure) {
+            long start = System.nanoTime();
+            try {
+                delivery.run();
+                record(start);
+                delivered.increment();
+            } catch (Exception e) {
+                record(start);
+                failed.increment();
+                onFailure.accept(e);
+            }
+        }
+
+        private void record(long startNanos) {
+            long elapsed = System.nanoTime() - startNanos;
+            totalNanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+
+        boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+            lock.lock();
+            try {
+                while (active > 0) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    idle.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int backlog() {
+            lock.lock();
+            try {
+                return active + queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void shutdown() {
+            lock.lock();
+            try {
+                stopped = true;
+                room.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            // Virtual threads need no shutdown; they end with their task.
+            if (executor instanceof ExecutorService executorService) {
+                executorService.shutdownNow();
+            }
+        }
+
+        DestinationStats stats() {
+            int activeNow;
+            int queuedNow;
+            lock.lock();
+            try {
+                activeNow = active;
+                queuedNow = queue.size();
+            } finally {
+                lock.unlock();
+            }
+            long attempts = delivered.sum() + failed.sum();
+            double meanMillis = attempts == 0 ? 0 : totalNanos.sum() / (double) attempts / 1_000_000.0;
+            return new DestinationStats(destination, activeNow, queuedNow, delivered.sum(),
+                    failed.sum(), rejected.sum(), meanMillis, maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
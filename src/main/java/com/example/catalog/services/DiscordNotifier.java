@@ -1,38 +1,223 @@
 package com.example.catalog.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Posts messages to Discord webhooks. Besides the two built-in destinations, any number of named
+ * destinations can be configured as {@code discord.destinations.<name>=<webhook url>} for routing
+ * rules to refer to.
+ * <p>
+ * The destination URLs live in the {@link RoutingEngine}'s routing table, published together with
+ * the rules that send to them, and each send looks its URL up in whichever table is current.
+ * <p>
+ * Each destination has a {@link CircuitBreaker} over its recent calls. When too many of them failed
+ * (no response, a 5xx, or a webhook that is gone or no longer authorized), further sends fail fast
+ * with a {@link CircuitOpenException} instead of waiting on the dead endpoint, until a probe shows it
+ * is back. Rate limiting and rejected messages show the webhook is alive and do not count as failures.
+ */
 @Service
+@RegisterReflectionForBinding(DiscordNotifier.DiscordMessage.class)
 public class DiscordNotifier {
 
-    @Value("${general.channel.url}")
-    private String DISCORD_WEBHOOK_URL;
-    @Value("${my.events.url}")
-    private String MY_EVENTS_CHANNEL;
+    /** Destination name of the shared channel that follows the common repository. */
+    public static final String DESTINATION_GENERAL = "general";
+    /** Destination name of the personal channel that follows the target user. */
+    public static final String DESTINATION_MY_EVENTS = "my-events";
+
+    /**
+     * Body of a Discord webhook call.
+     */
+    record DiscordMessage(String content) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscordNotifier.class);
+
+    @Value("${discord.rate-limit.permits-per-second:2.5}")
+    private double permitsPerSecond;
+    @Value("${discord.rate-limit.burst:5}")
+    private int burst;
+    @Value("${discord.rate-limit.max-retries:3}")
+    private int maxRateLimitRetries;
+
+    @Value("${discord.circuit-breaker.window-size:20}")
+    private int circuitWindowSize;
+    @Value("${discord.circuit-breaker.minimum-calls:10}")
+    private int circuitMinimumCalls;
+    @Value("${discord.circuit-breaker.failure-rate-threshold:0.5}")
+    private double circuitFailureRateThreshold;
+    @Value("${discord.circuit-breaker.open-ms:30000}")
+    private long circuitOpenMillis;
+    @Value("${discord.circuit-breaker.half-open-probes:1}")
+    private int circuitHalfOpenProbes;
+
+    private final OutboundHttpClient httpClient;
+    private final ObjectWriter messageWriter;
+    private final PipelineMetrics metrics;
+    private final Map<String, DiscordWebhookSender> senders = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final RoutingEngine routingEngine;
+
+    public DiscordNotifier(OutboundHttpClient httpClient, ObjectMapper objectMapper, PipelineMetrics metrics,
+                           RoutingEngine routingEngine) {
+        this.httpClient = httpClient;
+        this.messageWriter = objectMapper.writerFor(DiscordMessage.class);
+        this.metrics = metrics;
+        this.routingEngine = routingEngine;
+    }
+
+    /**
+     * The webhook URL of every destination in the given configuration: {@code general.channel.url},
+     * {@code my.events.url} and {@code discord.destinations.*}.
+     *
+     * @throws IllegalArgumentException if a built-in URL is missing or a URL is not absolute HTTP(S).
+     */
+    public static Map<String, String> webhookUrls(Binder binder) {
+        Map<String, String> urls = new HashMap<>(binder
+                .bind("discord.destinations", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of()));
+        urls.put(DESTINATION_GENERAL, binder.bind("general.channel.url", String.class)
+                .orElseThrow(() -> new IllegalArgumentException("general.channel.url is not set")));
+        urls.put(DESTINATION_MY_EVENTS, binder.bind("my.events.url", String.class)
+                .orElseThrow(() -> new IllegalArgumentException("my.events.url is not set")));
+        urls.forEach((destination, url) -> {
+            URI uri;
+            try {
+                uri = new URI(url);
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException("Destination " + destination + " has an invalid URL: " + e.getMessage());
+            }
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme()) || uri.getHost() == null) {
+                throw new IllegalArgumentException("Destination " + destination + " needs an absolute http(s) URL");
+            }
+        });
+        return urls;
+    }
+
+    /**
+     * Catches up after the routing table was replaced: senders of URLs no longer in use are dropped,
+     * and a destination whose URL changed starts over with a closed circuit.
+     *
+     * @param previous the webhook URLs before the replacement
+     */
+    public void webhookUrlsReplaced(Map<String, String> previous) {
+        Map<String, String> current = routingEngine.getWebhookUrls();
+        senders.keySet().retainAll(current.values());
+        circuitBreakers.keySet().removeIf(destination -> !Objects.equals(previous.get(destination), current.get(destination)));
+    }
+
+    public Map<String, String> getWebhookUrls() {
+        return routingEngine.getWebhookUrls();
+    }
+
+    /**
+     * State of each destination's circuit that has been used since its URL was last set.
+     */
+    public Map<String, CircuitBreaker.State> getCircuitStates() {
+        Map<String, CircuitBreaker.State> states = new HashMap<>();
+        circuitBreakers.forEach((destination, circuitBreaker) -> states.put(destination, circuitBreaker.getState()));
+        return states;
+    }
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /**
+     * Posts the message to the named destination.
+     *
+     * @throws CircuitOpenException if the destination's circuit is open; nothing was sent.
+     * @throws DeliveryException    if the destination is unknown or Discord rejects the message.
+     */
+    public void send(String destination, String message) {
+        DiscordWebhookSender sender = senderFor(webhookUrl(destination));
+        byte[] body = serialize(message);
+        CircuitBreaker circuitBreaker = circuitBreakerFor(destination);
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            throw new CircuitOpenException(destination, circuitBreaker.getRetryAfterNanos());
+        }
+        try {
+            sender.send(body, (statusCode, nanos) -> metrics.recordDiscordCall(destination, statusCode, nanos));
+        } catch (RuntimeException e) {
+            if (isEndpointFailure(e)) {
+                permit.onFailure();
+            } else {
+                permit.onSuccess();
+            }
+            throw e;
+        }
+        permit.onSuccess();
+    }
 
-    public void sendNotification(String message, boolean sendToCommonRepo, boolean sendToMyEvents) {
-        Map<String, String> body = new HashMap<>();
-        body.put("content", message);
+    /**
+     * Whether the failure says the webhook itself is unreachable, broken or gone.
+     */
+    private static boolean isEndpointFailure(RuntimeException e) {
+        if (e instanceof DeliveryException deliveryException) {
+            int status = deliveryException.getStatusCode();
+            return status < 400 || status >= 500 || status == 401 || status == 403 || status == 404;
+        }
+        return true;
+    }
 
-        if (sendToCommonRepo) {
-            restTemplate.postForObject(DISCORD_WEBHOOK_URL, body, String.class);
+    private CircuitBreaker circuitBreakerFor(String destination) {
+        return circuitBreakers.computeIfAbsent(destination, name -> {
+            metrics.recordCircuitState(name, CircuitBreaker.State.CLOSED);
+            return new CircuitBreaker(circuitWindowSize, circuitMinimumCalls, circuitFailureRateThreshold,
+                    circuitOpenMillis, circuitHalfOpenProbes, (from, to) -> {
+                        if (to == CircuitBreaker.State.OPEN) {
+                            logger.warn("Circuit to {} is open, failing fast for {} ms", name, circuitOpenMillis);
+                        } else {
+                            logger.info("Circuit to {} is {}", name, to.name().toLowerCase().replace('_', '-'));
+                        }
+                        metrics.recordCircuitTransition(name, to);
+                    });
+        });
+    }
+
+    private String webhookUrl(String destination) {
+        String url = routingEngine.webhookUrl(destination);
+        if (url == null) {
+            throw new UnknownDestinationException(destination);
         }
-        if (sendToMyEvents) {
-            restTemplate.postForObject(MY_EVENTS_CHANNEL, body, String.class);
+        return url;
+    }
+
+    private byte[] serialize(String message) {
+        try {
+            return messageWriter.writeValueAsBytes(new DiscordMessage(message));
+        } catch (JsonProcessingException e) {
+            throw new DeliveryException("Could not serialize Discord message", e);
         }
     }
 
+    private DiscordWebhookSender senderFor(String webhookUrl) {
+        return senders.computeIfAbsent(webhookUrl, url ->
+                new DiscordWebhookSender(url, httpClient, new TokenBucket(permitsPerSecond, burst), maxRateLimitRetries));
+    }
+
     public void setDISCORD_WEBHOOK_URL(String DISCORD_WEBHOOK_URL) {
-        this.DISCORD_WEBHOOK_URL = DISCORD_WEBHOOK_URL;
+        setWebhookUrl(DESTINATION_GENERAL, DISCORD_WEBHOOK_URL);
     }
 
     public void setMY_EVENTS_CHANNEL(String MY_EVENTS_CHANNEL) {
-        this.MY_EVENTS_CHANNEL = MY_EVENTS_CHANNEL;
+        setWebhookUrl(DESTINATION_MY_EVENTS, MY_EVENTS_CHANNEL);
+    }
+
+    private void setWebhookUrl(String destination, String url) {
+        routingEngine.putWebhookUrl(destination, url);
+        circuitBreakers.remove(destination);
     }
 }
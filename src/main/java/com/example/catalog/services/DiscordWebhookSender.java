@@ -0,0 +1,134 @@
+package com.example.catalog.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts messages to a single Discord webhook URL without tripping its rate limit.
+ * Outbound calls are paced by a {@link TokenBucket}, and the bucket state Discord reports back
+ * ({@code X-RateLimit-Remaining} / {@code X-RateLimit-Reset-After}, or {@code Retry-After} on a 429)
+ * holds further calls until Discord says the bucket has reset.
+ */
+public class DiscordWebhookSender {
+
+    private static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET_AFTER = "X-RateLimit-Reset-After";
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscordWebhookSender.class);
+
+    /**
+     * Told about every HTTP call made to Discord, including the ones answered with 429.
+     */
+    @FunctionalInterface
+    public interface CallListener {
+        /**
+         * @param statusCode the HTTP status, or -1 when the call failed without a response.
+         * @param nanos      how long the call took, excluding time spent waiting on the rate limit.
+         */
+        void onCall(int statusCode, long nanos);
+    }
+
+    private static final CallListener NO_LISTENER = (statusCode, nanos) -> {
+    };
+
+    private final URI webhookUri;
+    private final OutboundHttpClient httpClient;
+    private final TokenBucket tokenBucket;
+    private final int maxRateLimitRetries;
+    private volatile long blockedUntilNanos = System.nanoTime();
+
+    public DiscordWebhookSender(String webhookUrl, OutboundHttpClient httpClient, TokenBucket tokenBucket, int maxRateLimitRetries) {
+        this.webhookUri = URI.create(webhookUrl);
+        this.httpClient = httpClient;
+        this.tokenBucket = tokenBucket;
+        this.maxRateLimitRetries = maxRateLimitRetries;
+    }
+
+    /**
+     * Posts the serialized message, waiting out Discord's rate limit and retrying on 429 up to the
+     * configured number of times.
+     *
+     * @throws DeliveryException if Discord rejects the message or keeps answering 429.
+     */
+    public void send(byte[] jsonBody) {
+        send(jsonBody, NO_LISTENER);
+    }
+
+    /**
+     * Same as {@link #send(byte[])}, reporting each HTTP call to the listener.
+     */
+    public void send(byte[] jsonBody, CallListener listener) {
+        for (int attempt = 0; ; attempt++) {
+            awaitPermit();
+            OutboundResponse response = post(jsonBody, listener);
+            if (response.isSuccessful()) {
+                updateBucket(response);
+                return;
+            }
+            if (response.statusCode() != TOO_MANY_REQUESTS) {
+                throw new DeliveryException("Discord answered " + response.statusCode(), response.statusCode());
+            }
+            long retryAfterNanos = retryAfterNanos(response);
+            blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + retryAfterNanos);
+            if (attempt >= maxRateLimitRetries) {
+                throw new DeliveryException("Discord kept rate limiting the webhook", TOO_MANY_REQUESTS);
+            }
+            logger.warn("Discord rate limited the webhook, retrying in {} ms", TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+        }
+    }
+
+    private OutboundResponse post(byte[] jsonBody, CallListener listener) {
+        long start = System.nanoTime();
+        OutboundResponse response;
+        try {
+            response = httpClient.postJson(webhookUri, jsonBody);
+        } catch (RuntimeException e) {
+            listener.onCall(-1, System.nanoTime() - start);
+            throw e;
+        }
+        listener.onCall(response.statusCode(), System.nanoTime() - start);
+        return response;
+    }
+
+    private void awaitPermit() {
+        try {
+            long blockedForNanos = blockedUntilNanos - System.nanoTime();
+            if (blockedForNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(blockedForNanos);
+            }
+            tokenBucket.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryException("Interrupted while waiting for the Discord rate limit", e);
+        }
+    }
+
+    private void updateBucket(OutboundResponse response) {
+        String remaining = response.header(RATE_LIMIT_REMAINING);
+        String resetAfter = response.header(RATE_LIMIT_RESET_AFTER);
+        if ("0".equals(remaining) && resetAfter != null) {
+            blockedUntilNanos = System.nanoTime() + secondsToNanos(resetAfter);
+        }
+    }
+
+    private static long retryAfterNanos(OutboundResponse response) {
+        String retryAfter = response.header(RETRY_AFTER);
+        if (retryAfter == null) {
+            retryAfter = response.header(RATE_LIMIT_RESET_AFTER);
+        }
+        return retryAfter != null ? secondsToNanos(retryAfter) : TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static long secondsToNanos(String seconds) {
+        try {
+            return (long) (Double.parseDouble(seconds) * TimeUnit.SECONDS.toNanos(1));
+        } catch (NumberFormatException e) {
+            return TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.catalog.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends notifications by email to the destinations configured as
+ * {@code email.destinations.<name>=<address>,<address>}, through the SMTP server set up with
+ * Spring's {@code spring.mail.*} properties.
+ * <p>
+ * One sender thread owns a single SMTP connection, opened on first use and reused for every
+ * message; a connection the server dropped is replaced once and the message sent again. Notifications
+ * for a destination are collected for {@code email.batch.window-ms} after the first one, or until
+ * {@code email.batch.max-notifications} are waiting, and go out as one email. {@link #send} returns a
+ * future that completes when the email carrying the notification was accepted by the server.
+ */
+@Service
+public class EmailNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailNotifier.class);
+    private static final String SUBJECT_PREFIX = "[Gitea] ";
+
+    private record Pending(String destination, String message, CompletableFuture<Void> result) {
+    }
+
+    private record Batch(long deadlineNanos, List<Pending> notifications) {
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final Map<String, InternetAddress[]> recipients;
+    private final InternetAddress from;
+    private final long windowNanos;
+    private final int maxNotifications;
+    private final PipelineMetrics metrics;
+    private final LinkedBlockingQueue<Pending> incoming = new LinkedBlockingQueue<>();
+    /** Results not yet completed, failed by a shutdown that times out. */
+    private final Set<CompletableFuture<Void>> unfinished = ConcurrentHashMap.newKeySet();
+    private final Thread sender;
+    private volatile boolean running = true;
+    /** Only touched by the sender thread. */
+    private Transport transport;
+    private volatile int connections;
+
+    @Autowired
+    public EmailNotifier(ObjectProvider<JavaMailSender> mailSender,
+                         Environment environment,
+                         @Value("${email.from:gitea-notifier@localhost}") String from,
+                         @Value("${email.batch.window-ms:2000}") long windowMillis,
+                         @Value("${email.batch.max-notifications:20}") int maxNotifications,
+                         PipelineMetrics metrics) {
+        this(mailSender.getIfAvailable() instanceof JavaMailSenderImpl impl ? impl : null,
+                Binder.get(environment).bind("email.destinations", Bindable.mapOf(String.class, String.class))
+                        .orElse(Map.of()),
+                from, windowMillis, maxNotifications, metrics);
+    }
+
+    public EmailNotifier(JavaMailSenderImpl mailSender, Map<String, String> destinations, String from,
+                         long windowMillis, int maxNotifications, PipelineMetrics metrics) {
+        if (!destinations.isEmpty() && mailSender == null) {
+            throw new IllegalStateException("Email destinations " + destinations.keySet() + " need spring.mail.host");
+        }
+        this.mailSender = mailSender;
+        this.recipients = new HashMap<>();
+        try {
+            this.from = new InternetAddress(from, true);
+            for (Map.Entry<String, String> destination : destinations.entrySet()) {
+                recipients.put(destination.getKey(), InternetAddress.parse(destination.getValue(), true));
+            }
+        } catch (AddressException e) {
+            throw new IllegalArgumentException("Invalid email address: " + e.getMessage(), e);
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxNotifications = maxNotifications;
+        this.metrics = metrics;
+        if (recipients.isEmpty()) {
+            this.sender = null;
+        } else {
+            this.sender = new Thread(this::run, "email-sender");
+            sender.setDaemon(true);
+            sender.start();
+            logger.info("Email destinations {}: batching for {} ms, at most {} notifications per email",
+                    recipients.keySet(), windowMillis, maxNotifications);
+        }
+    }
+
+    /**
+     * A notifier with no email destinations, for code constructed outside Spring (tests, benchmarks).
+     */
+    public static EmailNotifier disabled() {
+        return new EmailNotifier(null, Map.of(), "gitea-notifier@localhost", 0, 1, PipelineMetrics.inMemory());
+    }
+
+    public boolean isEmailDestination(String destination) {
+        return recipients.containsKey(destination);
+    }
+
+    public Set<String> getDestinations() {
+        return Set.copyOf(recipients.keySet());
+    }
+
+    /**
+     * Queues the message for the destination's next email.
+     *
+     * @return completes once the email is accepted by the SMTP server, or exceptionally with a
+     * {@link DeliveryException}.
+     */
+    public CompletableFuture<Void> send(String destination, String message) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!isEmailDestination(destination)) {
+            result.completeExceptionally(new UnknownDestinationException(destination));
+        } else if (!running) {
+            result.completeExceptionally(new DeliveryException("Email sender is stopped", -1));
+        } else {
+            unfinished.add(result);
+            result.whenComplete((sent, e) -> unfinished.remove(result));
+            incoming.add(new Pending(destination, message, result));
+        }
+        return result;
+    }
+
+    /**
+     * Number of SMTP connections opened so far.
+     */
+    public int getConnectionCount() {
+        return connections;
+    }
+
+    private void run() {
+        Map<String, Batch> open = new LinkedHashMap<>();
+        try {
+            while (running || !incoming.isEmpty() || !open.isEmpty()) {
+                long waitNanos = TimeUnit.MILLISECONDS.toNanos(100);
+                for (Batch batch : open.values()) {
+                    waitNanos = Math.min(waitNanos, batch.deadlineNanos() - System.nanoTime());
+                }
+                Pending pending = running ? incoming.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS) : incoming.poll();
+                if (pending != null) {
+                    Batch batch = open.computeIfAbsent(pending.destination(),
+                            destination -> new Batch(System.nanoTime() + windowNanos, new ArrayList<>()));
+                    batch.notifications().add(pending);
+                    if (batch.notifications().size() >= maxNotifications) {
+                        open.remove(pending.destination());
+                        sendBatch(pending.destination(), batch.notifications());
+                    }
+                }
+                long now = System.nanoTime();
+                for (Iterator<Map.Entry<String, Batch>> due = open.entrySet().iterator(); due.hasNext(); ) {
+                    Map.Entry<String, Batch> batch = due.next();
+                    // Once stopping, everything still open goes out now.
+                    if (!running && pending == null || batch.getValue().deadlineNanos() <= now) {
+                        due.remove();
+                        sendBatch(batch.getKey(), batch.getValue().notifications());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            DeliveryException stopped = new DeliveryException("Email sender was interrupted", -1);
+            open.values().forEach(batch -> batch.notifications().forEach(p -> p.result().completeExceptionally(stopped)));
+            incoming.forEach(p -> p.result().completeExceptionally(stopped));
+        } finally {
+            closeTransport();
+        }
+    }
+
+    private void sendBatch(String destination, List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            MimeMessage email = compose(destination, batch);
+            sendMessage(email);
+            metrics.recordEmail(destination, batch.size(), true, System.nanoTime() - start);
+            batch.forEach(pending -> pending.result().complete(null));
+        } catch (MessagingException e) {
+            metrics.recordEmail(destination, batch.size(), false, System.nanoTime() - start);
+            // Refused addresses will be refused again, anything else is worth a retry.
+            DeliveryException failure = e instanceof SendFailedException sendFailed && sendFailed.getInvalidAddresses() != null
+                    ? new DeliveryException("Email to " + destination + " refused: " + e.getMessage(), 400)
+                    : new DeliveryException("Email to " + destination + " failed: " + e.getMessage(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(failure));
+        }
+    }
+
+    private MimeMessage compose(String destination, List<Pending> batch) throws MessagingException {
+        MimeMessage email = new MimeMessage(mailSender.getSession());
+        email.setFrom(from);
+        email.setRecipients(Message.RecipientType.TO, recipients.get(destination));
+        StringBuilder text = new StringBuilder();
+        for (Pending pending : batch) {
+            if (!text.isEmpty()) {
+                text.append("\n\n");
+            }
+            text.append(plainText(pending.message()));
+        }
+        String subject = batch.size() == 1
+                ? text.toString().lines().findFirst().orElse("Notification")
+                : batch.size() + " notifications";
+        email.setSubject(SUBJECT_PREFIX + subject, StandardCharsets.UTF_8.name());
+        email.setText(text.toString(), StandardCharsets.UTF_8.name());
+        return email;
+    }
+
+    /**
+     * Drops the Discord bold markers the message templates use.
+     */
+    private static String plainText(String message) {
+        return message.replace("**", "");
+    }
+
+    private void sendMessage(MimeMessage email) throws MessagingException {
+        try {
+            connectedTransport().sendMessage(email, email.getAllRecipients());
+        } catch (SendFailedException e) {
+            throw e;
+        } catch (MessagingException e) {
+            // The server may have closed the idle connection; one fresh connection, then give up.
+            logger.debug("SMTP send failed, reconnecting: {}", e.getMessage());
+            closeTransport();
+            connectedTransport().sendMessage(email, email.getAllRecipients());
+        }
+    }
+
+    private Transport connectedTransport() throws MessagingException {
+        if (transport == null) {
+            String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+            Transport connecting = mailSender.getSession().getTransport(protocol);
+            connecting.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = connecting;
+            connections++;
+        }
+        return transport;
+    }
+
+    private void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Could not close SMTP connection: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+
+    /**
+     * Sends every open batch and waits up to the timeout for the sender to finish. If it has not by
+     * then, e.g. because the SMTP server stopped answering, the sender is interrupted and every
+     * notification still waiting fails, so the caller keeps it for redelivery.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdown(10, TimeUnit.SECONDS);
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        if (sender == null) {
+            return;
+        }
+        try {
+            // join(0) would wait forever, so what is left of a nearly spent timeout still means 1 ms.
+            sender.join(Math.max(1, unit.toMillis(timeout)));
+            if (sender.isAlive()) {
+                logger.warn("Email sender still busy after {} {}, stopping it.", timeout, unit);
+                stopSender();
+            }
+        } catch (InterruptedException e) {
+            stopSender();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopSender() {
+        sender.interrupt();
+        DeliveryException stopped = new DeliveryException("Email sender stopped before sending", -1);
+        unfinished.forEach(result -> result.completeExceptionally(stopped));
+    }
+}
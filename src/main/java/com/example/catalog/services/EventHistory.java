@@ -0,0 +1,264 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.HistoryPage;
+import com.example.catalog.model.HistoryRecord;
+import com.example.catalog.model.WebhookEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * The last {@code webhook.history.capacity} classified webhook events and what happened to them,
+ * so operators can see what was sent for a repository without reading logs.
+ * <p>
+ * Events live in a ring buffer of primitive arrays. Strings are interned into a symbol table
+ * and reference counted, so a symbol is dropped once the last event using it is overwritten.
+ * Repository, actor and event type are indexed: each event links to the previous event with the
+ * same value, and the symbol table keeps the newest one, so a filtered query only visits matching
+ * events. Memory stays constant once the buffer is full.
+ */
+@Component
+public class EventHistory {
+
+    /** Most events returned by one query. */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final int REPO = 0;
+    private static final int ACTOR = 1;
+    private static final int TYPE = 2;
+    private static final int REF = 3;
+    private static final int DESTINATIONS = 4;
+    private static final int OUTCOME = 5;
+    private static final int FIELDS = 6;
+    /** Fields before this one are indexed. */
+    private static final int INDEXED = 3;
+    private static final int NO_SYMBOL = -1;
+    private static final String DESTINATION_SEPARATOR = ",";
+
+    private final int capacity;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Sequence of the event in each slot; 0 for an empty slot. */
+    private final long[] sequences;
+    private final long[] timestamps;
+    private final int[] symbols;
+    /** Per slot and indexed field, the sequence of the previous event with the same value, or 0. */
+    private final long[] previous;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final String[] symbolNames;
+    private final int[] symbolReferences;
+    /** Per symbol and indexed field, the sequence of the newest event with that value, or 0. */
+    private final long[] newest;
+    private final Deque<Integer> freeSymbols = new ArrayDeque<>();
+    private int nextSymbol;
+    private long nextSequence = 1;
+    private long lastTimestamp;
+
+    @Autowired
+    public EventHistory(@Value("${webhook.history.capacity:10000}") int capacity) {
+        this(capacity, System::currentTimeMillis);
+    }
+
+    public EventHistory(int capacity, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event history needs a capacity of at least 1");
+        }
+        this.capacity = capacity;
+        this.clock = clock;
+        this.sequences = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.symbols = new int[capacity * FIELDS];
+        this.previous = new long[capacity * INDEXED];
+        int maxSymbols = capacity * FIELDS;
+        this.symbolNames = new String[maxSymbols];
+        this.symbolReferences = new int[maxSymbols];
+        this.newest = new long[maxSymbols * INDEXED];
+    }
+
+    /**
+     * Records a classified event, overwriting the oldest one once the history is full.
+     *
+     * @param outcome what happened to the event, as passed to {@link PipelineMetrics#recordEvent}
+     */
+    public void record(WebhookEvent event, String eventType, List<String> destinations, String outcome) {
+        String joinedDestinations = String.join(DESTINATION_SEPARATOR, destinations);
+        lock.lock();
+        try {
+            long sequence = nextSequence++;
+            int slot = slot(sequence);
+            if (sequences[slot] != 0) {
+                for (int field = 0; field < FIELDS; field++) {
+                    release(symbols[slot * FIELDS + field]);
+                }
+            }
+            // Never step back in time, so queries can stop at the first event older than their range.
+            lastTimestamp = Math.max(lastTimestamp, clock.getAsLong());
+            sequences[slot] = sequence;
+            timestamps[slot] = lastTimestamp;
+            symbols[slot * FIELDS + REPO] = intern(event.repoName());
+            symbols[slot * FIELDS + ACTOR] = intern(event.actor());
+            symbols[slot * FIELDS + TYPE] = intern(eventType);
+            symbols[slot * FIELDS + REF] = intern(event.ref());
+            symbols[slot * FIELDS + DESTINATIONS] = intern(joinedDestinations);
+            symbols[slot * FIELDS + OUTCOME] = intern(outcome);
+            for (int field = 0; field < INDEXED; field++) {
+                int symbol = symbols[slot * FIELDS + field];
+                if (symbol == NO_SYMBOL) {
+                    previous[slot * INDEXED + field] = 0;
+                } else {
+                    previous[slot * INDEXED + field] = newest[symbol * INDEXED + field];
+                    newest[symbol * INDEXED + field] = sequence;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds recorded events, newest first. Every filter is optional.
+     *
+     * @param repo           only events for this repository
+     * @param actor          only events triggered by this user
+     * @param eventType      only events of this type
+     * @param since          only events at or after this time
+     * @param until          only events before this time
+     * @param beforeSequence only events older than this sequence, i.e. the previous page's cursor
+     * @param limit          page size, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public HistoryPage query(String repo, String actor, String eventType, Instant since, Instant until,
+                             Long beforeSequence, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long sinceMillis = since != null ? since.toEpochMilli() : Long.MIN_VALUE;
+        long untilMillis = until != null ? until.toEpochMilli() : Long.MAX_VALUE;
+        List<HistoryRecord> events = new ArrayList<>();
+        lock.lock();
+        try {
+            int[] filter = new int[INDEXED];
+            String[] values = {repo, actor, eventType};
+            int chain = NO_SYMBOL;
+            for (int field = 0; field < INDEXED; field++) {
+                filter[field] = NO_SYMBOL;
+                if (values[field] == null) {
+                    continue;
+                }
+                Integer symbol = symbolIds.get(values[field]);
+                if (symbol == null) {
+                    return new HistoryPage(List.of(), null);
+                }
+                filter[field] = symbol;
+                if (chain == NO_SYMBOL) {
+                    chain = field;
+                }
+            }
+            long oldest = Math.max(1, nextSequence - capacity);
+            long sequence = chain == NO_SYMBOL ? nextSequence - 1 : newest[filter[chain] * INDEXED + chain];
+            while (sequence >= oldest) {
+                int slot = slot(sequence);
+                if (timestamps[slot] < sinceMillis) {
+                    break;
+                }
+                if ((beforeSequence == null || sequence < beforeSequence) && timestamps[slot] < untilMillis
+                        && matches(slot, filter)) {
+                    if (events.size() == pageSize) {
+                        return new HistoryPage(events, events.get(pageSize - 1).sequence());
+                    }
+                    events.add(read(slot));
+                }
+                sequence = chain == NO_SYMBOL ? sequence - 1 : previous[slot * INDEXED + chain];
+            }
+            return new HistoryPage(events, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of events held, at most the capacity.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return (int) Math.min(nextSequence - 1, capacity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of distinct strings referenced by the events held.
+     */
+    public int getSymbolCount() {
+        lock.lock();
+        try {
+            return symbolIds.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) ((sequence - 1) % capacity);
+    }
+
+    private boolean matches(int slot, int[] filter) {
+        for (int field = 0; field < INDEXED; field++) {
+            if (filter[field] != NO_SYMBOL && symbols[slot * FIELDS + field] != filter[field]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private HistoryRecord read(int slot) {
+        String destinations = name(symbols[slot * FIELDS + DESTINATIONS]);
+        return new HistoryRecord(sequences[slot],
+                Instant.ofEpochMilli(timestamps[slot]),
+                name(symbols[slot * FIELDS + TYPE]),
+                name(symbols[slot * FIELDS + REPO]),
+                name(symbols[slot * FIELDS + ACTOR]),
+                name(symbols[slot * FIELDS + REF]),
+                destinations == null || destinations.isEmpty()
+                        ? List.of() : Arrays.asList(destinations.split(DESTINATION_SEPARATOR)),
+                name(symbols[slot * FIELDS + OUTCOME]));
+    }
+
+    private String name(int symbol) {
+        return symbol == NO_SYMBOL ? null : symbolNames[symbol];
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return NO_SYMBOL;
+        }
+        Integer symbol = symbolIds.get(value);
+        if (symbol == null) {
+            symbol = freeSymbols.isEmpty() ? nextSymbol++ : freeSymbols.pop();
+            symbolIds.put(value, symbol);
+            symbolNames[symbol] = value;
+        }
+        symbolReferences[symbol]++;
+        return symbol;
+    }
+
+    private void release(int symbol) {
+        if (symbol == NO_SYMBOL || --symbolReferences[symbol] > 0) {
+            return;
+        }
+        symbolIds.remove(symbolNames[symbol]);
+        symbolNames[symbol] = null;
+        Arrays.fill(newest, symbol * INDEXED, (symbol + 1) * INDEXED, 0);
+        freeSymbols.push(symbol);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.EventPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each classified event type its {@link EventPriority}. Deletions are critical, pull
+ * requests, issues, releases and new repositories or tags high, comments low and everything else,
+ * pushes included, normal. Any event type can be reassigned with
+ * {@code webhook.admission.priorities.<eventType>=<priority>}.
+ */
+@Component
+public class EventPriorities {
+
+    public static final String PRIORITIES_PREFIX = "webhook.admission.priorities";
+
+    private static final Logger logger = LoggerFactory.getLogger(EventPriorities.class);
+    private static final Map<String, EventPriority> BUILT_IN_PRIORITIES = builtInPriorities();
+
+    private final Map<String, EventPriority> priorities;
+
+    public EventPriorities() {
+        this(Map.of());
+    }
+
+    @Autowired
+    public EventPriorities(Environment environment) {
+        this(Binder.get(environment)
+                .bind(PRIORITIES_PREFIX, Bindable.mapOf(String.class, EventPriority.class))
+                .orElse(Map.of()));
+    }
+
+    public EventPriorities(Map<String, EventPriority> overrides) {
+        Map<String, EventPriority> merged = new HashMap<>(BUILT_IN_PRIORITIES);
+        merged.putAll(overrides);
+        this.priorities = Map.copyOf(merged);
+        if (!overrides.isEmpty()) {
+            logger.info("Loaded event priority overrides {}", overrides);
+        }
+    }
+
+    public EventPriority priorityOf(String eventType) {
+        return priorities.getOrDefault(eventType, EventPriority.NORMAL);
+    }
+
+    private static Map<String, EventPriority> builtInPriorities() {
+        Map<String, EventPriority> priorities = new HashMap<>();
+        priorities.put("repo_deleted", EventPriority.CRITICAL);
+        priorities.put("delete_branch", EventPriority.CRITICAL);
+        priorities.put("delete_tag", EventPriority.CRITICAL);
+        priorities.put("repo_created", EventPriority.HIGH);
+        priorities.put("create_tag", EventPriority.HIGH);
+        priorities.put("release_published", EventPriority.HIGH);
+        priorities.put("pull_request_opened", EventPriority.HIGH);
+        priorities.put("pull_request_closed", EventPriority.HIGH);
+        priorities.put("pull_request_reopened", EventPriority.HIGH);
+        priorities.put("issues_opened", EventPriority.HIGH);
+        priorities.put("issues_closed", EventPriority.HIGH);
+        priorities.put("issues_reopened", EventPriority.HIGH);
+        priorities.put("pull_request_comment_created", EventPriority.LOW);
+        priorities.put("issue_comment_created", EventPriority.LOW);
+        return priorities;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.catalog.services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JSON paths one kind of webhook reads, laid out as a tree so {@link WebhookPayloadExtractor}
+ * can decide per field name whether to descend, capture or skip. Paths not in the plan are skipped
+ * without being materialized.
+ */
+public final class ExtractionPlan {
+
+    /**
+     * The {@link com.example.catalog.model.WebhookEvent} slot a path is captured into.
+     */
+    public enum Field {
+        ACTOR, REPO, OWNER, REF, BEFORE, AFTER, REF_TYPE, PUSHER_TYPE, ACTION, TITLE, NUMBER, URL
+    }
+
+    private final Node root;
+
+    private ExtractionPlan(Node root) {
+        this.root = root;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * A builder that already captures {@code sender.login}, {@code repository.name} and
+     * {@code repository.owner.login}, which every webhook kind carries.
+     */
+    public static Builder withSenderAndRepository() {
+        return new Builder()
+                .field("sender.login", Field.ACTOR)
+                .field("repository.name", Field.REPO)
+                .field("repository.owner.login", Field.OWNER);
+    }
+
+    public static final class Builder {
+
+        private final Node root = new Node();
+
+        private Builder() {
+        }
+
+        /**
+         * Captures the value at a dot-separated path, e.g. {@code pull_request.title}.
+         */
+        public Builder field(String path, Field field) {
+            Node node = root;
+            for (String name : path.split("\\.")) {
+                node = node.children.computeIfAbsent(name, key -> new Node());
+            }
+            node.field = field;
+            return this;
+        }
+
+        public ExtractionPlan build() {
+            return new ExtractionPlan(root);
+        }
+    }
+
+    static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Field field;
+
+        Node child(String name) {
+            return children.get(name);
+        }
+
+        /**
+         * The slot this path is captured into, or {@code null} for an intermediate object.
+         */
+        Field field() {
+            return field;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+
+/**
+ * Handles one kind of Gitea webhook: which fields to pull from its payload and how to name the
+ * resulting event type for templates and routing.
+ */
+public interface GiteaEventHandler {
+
+    GiteaEventKind kind();
+
+    ExtractionPlan extractionPlan();
+
+    /**
+     * The event type of an event extracted with this handler's plan, e.g. {@code delete_tag}.
+     */
+    String eventType(WebhookEvent event);
+}
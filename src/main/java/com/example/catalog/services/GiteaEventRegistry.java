@@ -0,0 +1,116 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the {@link GiteaEventHandler} for a webhook from its {@code X-Gitea-Event-Type} and
+ * {@code X-Gitea-Event} headers, preferring the more specific {@code X-Gitea-Event-Type}.
+ * <p>
+ * Requests without either header (older Gitea versions, manual calls) fall back to guessing the
+ * event type from the payload shape. A header naming a kind without a handler still gets through,
+ * with the header value as its event type, so it can be given a template.
+ */
+@Component
+public class GiteaEventRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(GiteaEventRegistry.class);
+
+    private static final ExtractionPlan GENERIC_PLAN = ExtractionPlan.withSenderAndRepository()
+            .field("action", ExtractionPlan.Field.ACTION)
+            .build();
+
+    private static final ExtractionPlan PAYLOAD_SHAPE_PLAN = ExtractionPlan.withSenderAndRepository()
+            .field("ref", ExtractionPlan.Field.REF)
+            .field("before", ExtractionPlan.Field.BEFORE)
+            .field("after", ExtractionPlan.Field.AFTER)
+            .field("ref_type", ExtractionPlan.Field.REF_TYPE)
+            .field("pusher_type", ExtractionPlan.Field.PUSHER_TYPE)
+            .field("action", ExtractionPlan.Field.ACTION)
+            .build();
+
+    /** Handler for requests that carry no event header. */
+    public static final GiteaEventHandler PAYLOAD_SHAPE_HANDLER = new GiteaEventHandler() {
+        @Override
+        public GiteaEventKind kind() {
+            return null;
+        }
+
+        @Override
+        public ExtractionPlan extractionPlan() {
+            return PAYLOAD_SHAPE_PLAN;
+        }
+
+        @Override
+        public String eventType(WebhookEvent event) {
+            if (event.before() != null && event.after() != null) {
+                return "push";
+            }
+            if ("branch".equals(event.refType())) {
+                return "user".equals(event.pusherType()) ? "delete_branch" : "create_branch";
+            }
+            if ("tag".equals(event.refType())) {
+                return "user".equals(event.pusherType()) ? "delete_tag" : "create_tag";
+            }
+            if ("created".equals(event.action())) {
+                return "repo_created";
+            } else if ("deleted".equals(event.action())) {
+                return "repo_deleted";
+            }
+            return "unknown";
+        }
+    };
+
+    private final Map<GiteaEventKind, GiteaEventHandler> handlers = new EnumMap<>(GiteaEventKind.class);
+
+    public GiteaEventRegistry(List<GiteaEventHandler> handlers) {
+        for (GiteaEventHandler handler : handlers) {
+            GiteaEventHandler previous = this.handlers.put(handler.kind(), handler);
+            if (previous != null) {
+                throw new IllegalStateException("Two handlers for " + handler.kind() + ": "
+                        + previous.getClass().getSimpleName() + " and " + handler.getClass().getSimpleName());
+            }
+        }
+        logger.info("Registered Gitea event handlers for {}", this.handlers.keySet());
+    }
+
+    public GiteaEventHandler resolve(String giteaEvent, String giteaEventType) {
+        GiteaEventKind kind = GiteaEventKind.fromHeader(giteaEventType);
+        if (kind == null) {
+            kind = GiteaEventKind.fromHeader(giteaEvent);
+        }
+        GiteaEventHandler handler = kind != null ? handlers.get(kind) : null;
+        if (handler != null) {
+            return handler;
+        }
+        String headerValue = giteaEventType != null ? giteaEventType : giteaEvent;
+        return headerValue != null ? new UnhandledEventHandler(headerValue) : PAYLOAD_SHAPE_HANDLER;
+    }
+
+    /**
+     * Gitea event the notifier has no dedicated handler for; only actor, repository and action are read.
+     */
+    private record UnhandledEventHandler(String headerValue) implements GiteaEventHandler {
+        @Override
+        public GiteaEventKind kind() {
+            return null;
+        }
+
+        @Override
+        public ExtractionPlan extractionPlan() {
+            return GENERIC_PLAN;
+        }
+
+        @Override
+        public String eventType(WebhookEvent event) {
+            return headerValue;
+        }
+    }
+}
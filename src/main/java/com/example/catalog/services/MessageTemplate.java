@@ -0,0 +1,148 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.WebhookEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A message template compiled once into literal and field segments, so rendering only collects the
+ * segment values into an exactly sized result, with no parsing or intermediate strings.
+ * <p>
+ * Placeholders are written as {@code {name}}: {@code actor}, {@code repo}, {@code ref},
+ * {@code before}, {@code after}, {@code refType}, {@code pusherType}, {@code action},
+ * {@code title}, {@code number}, {@code url}, {@code owner} and {@code eventType}. A missing ref
+ * renders as {@code Unknown Ref}, other missing fields as an empty string. {@code {{} renders a
+ * literal brace.
+ */
+public final class MessageTemplate {
+
+    private final String source;
+    private final Segment[] segments;
+
+    private MessageTemplate(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses the template text.
+     *
+     * @throws IllegalArgumentException for an unknown or unterminated placeholder, so a bad
+     * template fails at startup rather than on the first event.
+     */
+    public static MessageTemplate compile(String source) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (source.startsWith("{{}", i)) {
+                literal.append('{');
+                i += 3;
+                continue;
+            }
+            int end = source.indexOf('}', i);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at " + i + " in template: " + source);
+            }
+            Function<WebhookEvent, String> field = field(source.substring(i + 1, end), source);
+            if (literal.length() > 0) {
+                segments.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(field == null ? new EventType() : new Field(field));
+            i = end + 1;
+        }
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+        }
+        return new MessageTemplate(source, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * Collects the segment values and joins them; {@code String.join} sizes the result and picks its
+     * encoding up front, so the message is allocated once at its final length.
+     */
+    public String render(WebhookEvent event, String eventType) {
+        String[] values = new String[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            values[i] = segments[i].value(event, eventType);
+        }
+        return String.join("", values);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Field accessor for a placeholder name, or {@code null} for {@code eventType}, which is not
+     * part of the event record.
+     */
+    private static Function<WebhookEvent, String> field(String name, String source) {
+        switch (name) {
+            case "actor":
+                return WebhookEvent::actor;
+            case "repo":
+                return WebhookEvent::repoName;
+            case "ref":
+                return event -> event.ref() != null ? event.ref() : "Unknown Ref";
+            case "before":
+                return WebhookEvent::before;
+            case "after":
+                return WebhookEvent::after;
+            case "refType":
+                return WebhookEvent::refType;
+            case "pusherType":
+                return WebhookEvent::pusherType;
+            case "action":
+                return WebhookEvent::action;
+            case "title":
+                return WebhookEvent::title;
+            case "number":
+                return WebhookEvent::number;
+            case "url":
+                return WebhookEvent::url;
+            case "owner":
+                return WebhookEvent::owner;
+            case "eventType":
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown placeholder {" + name + "} in template: " + source);
+        }
+    }
+
+    private interface Segment {
+        /** The segment's text for this event, never {@code null}. */
+        String value(WebhookEvent event, String eventType);
+    }
+
+    private record Literal(String text) implements Segment {
+        @Override
+        public String value(WebhookEvent event, String eventType) {
+            return text;
+        }
+    }
+
+    private record Field(Function<WebhookEvent, String> accessor) implements Segment {
+        @Override
+        public String value(WebhookEvent event, String eventType) {
+            String value = accessor.apply(event);
+            return value != null ? value : "";
+        }
+    }
+
+    private record EventType() implements Segment {
+        @Override
+        public String value(WebhookEvent event, String eventType) {
+            return eventType != null ? eventType : "";
+        }
+    }
+}
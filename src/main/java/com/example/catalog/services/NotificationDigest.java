@@ -0,0 +1,301 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.Notification;
+import com.example.catalog.model.WebhookEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Digest mode for busy destinations: instead of one Discord message per event, the notifications
+ * for a destination listed in {@code notifier.digest.destinations} are collected and sent as
+ * summary messages, one section per repository and event type. A CI bot pushing to 40 branches
+ * then costs one or two Discord calls instead of 40.
+ * <p>
+ * A destination's digest is flushed {@code notifier.digest.window-ms} after its first event, or as
+ * soon as it holds {@code notifier.digest.max-events}, so no event waits longer than the window.
+ * Summaries are split at line boundaries to stay within Discord's 2000-character message limit.
+ * <p>
+ * Flushes are handed to the {@link Sink} set by {@link #start(Sink)}; on the timer thread, so the
+ * sink must only hand the messages off.
+ */
+@Component
+public class NotificationDigest {
+
+    /** Longest message Discord accepts, in characters. */
+    public static final int MESSAGE_LIMIT = 2000;
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDigest.class);
+    private static final int MAX_LINE_LENGTH = 200;
+
+    /**
+     * One notification waiting in a digest for one destination.
+     *
+     * @param attempt         delivery attempt the notification is on, 1-based
+     * @param acceptedAtNanos when the event was accepted, from {@link System#nanoTime()}
+     */
+    public record Entry(Notification notification, int attempt, long acceptedAtNanos) {
+    }
+
+    /**
+     * One summary message and the notifications it covers.
+     */
+    public record Message(String content, List<Entry> entries) {
+    }
+
+    /**
+     * Receives a destination's digest when it is flushed.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void flush(String destination, List<Entry> entries);
+    }
+
+    private final WebhookMessageFormatter messageFormatter;
+    private final Set<String> destinations;
+    private final long windowMillis;
+    private final int maxEvents;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, List<Entry>> open = new HashMap<>();
+    private TimingWheel timer;
+    private Sink sink;
+
+    public NotificationDigest(WebhookMessageFormatter messageFormatter,
+                              @Value("${notifier.digest.destinations:}") Set<String> destinations,
+                              @Value("${notifier.digest.window-ms:10000}") long windowMillis,
+                              @Value("${notifier.digest.max-events:50}") int maxEvents) {
+        this.messageFormatter = messageFormatter;
+        this.destinations = Set.copyOf(destinations);
+        this.windowMillis = windowMillis;
+        this.maxEvents = maxEvents;
+        if (!this.destinations.isEmpty()) {
+            logger.info("Digest mode for {}: {} ms window, at most {} events per digest",
+                    this.destinations, windowMillis, maxEvents);
+        }
+    }
+
+    /**
+     * A digest with no destinations, for code constructed outside Spring (tests, benchmarks).
+     */
+    public static NotificationDigest disabled() {
+        return new NotificationDigest(new WebhookMessageFormatter(), Set.of(), 0, 1);
+    }
+
+    /**
+     * Sets where flushed digests go. Must be called once, before the first {@link #add}.
+     */
+    public void start(Sink sink) {
+        lock.lock();
+        try {
+            if (this.sink != null) {
+                throw new IllegalStateException("Digest already started");
+            }
+            this.sink = sink;
+            if (!destinations.isEmpty()) {
+                timer = new TimingWheel("digest-timer", Math.max(1, Math.min(100, windowMillis / 10)), 128);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled(String destination) {
+        return destinations.contains(destination);
+    }
+
+    /**
+     * Adds a notification to the destination's open digest, opening one if there is none. A digest
+     * that reaches the size limit is flushed on the calling thread.
+     */
+    public void add(String destination, Entry entry) {
+        List<Entry> entries;
+        List<Entry> full = null;
+        boolean opened = false;
+        lock.lock();
+        try {
+            entries = open.get(destination);
+            if (entries == null) {
+                entries = new ArrayList<>();
+                open.put(destination, entries);
+                opened = true;
+            }
+            entries.add(entry);
+            if (entries.size() >= maxEvents) {
+                open.remove(destination);
+                full = entries;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (opened && full == null) {
+            List<Entry> window = entries;
+            timer.schedule(() -> flush(destination, window), windowMillis, TimeUnit.MILLISECONDS);
+        }
+        if (full != null) {
+            sink.flush(destination, full);
+        }
+    }
+
+    /**
+     * Flushes every open digest now, e.g. at shutdown.
+     */
+    public void flushAll() {
+        Map<String, List<Entry>> pending;
+        lock.lock();
+        try {
+            pending = new HashMap<>(open);
+            open.clear();
+        } finally {
+            lock.unlock();
+        }
+        pending.forEach(sink::flush);
+    }
+
+    /**
+     * Number of notifications waiting in open digests.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            int pending = 0;
+            for (List<Entry> entries : open.values()) {
+                pending += entries.size();
+            }
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the destination's digest if it is still the one the timer was set for; a digest that
+     * filled up in the meantime has already been flushed.
+     */
+    private void flush(String destination, List<Entry> window) {
+        lock.lock();
+        try {
+            if (open.get(destination) != window) {
+                return;
+            }
+            open.remove(destination);
+        } finally {
+            lock.unlock();
+        }
+        sink.flush(destination, window);
+    }
+
+    /**
+     * Renders a digest as summary messages of at most {@link #MESSAGE_LIMIT} characters. Entries are
+     * grouped by repository and event type in order of first appearance; a group of one is rendered
+     * with its usual message template, larger groups as a heading and one line per event.
+     */
+    public List<Message> render(List<Entry> entries) {
+        Map<String, List<Entry>> groups = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            Notification notification = entry.notification();
+            groups.computeIfAbsent(notification.event().repoName() + '\0' + notification.eventType(),
+                    key -> new ArrayList<>()).add(entry);
+        }
+        MessageBuilder builder = new MessageBuilder();
+        for (List<Entry> group : groups.values()) {
+            Notification first = group.get(0).notification();
+            if (group.size() == 1) {
+                builder.append(null, truncate(messageFormatter.format(first.event(), first.eventType()), MESSAGE_LIMIT),
+                        group.get(0));
+                continue;
+            }
+            String heading = "📬 **" + group.size() + " " + first.eventType() + " events** in **"
+                    + first.event().repoName() + "**";
+            for (Entry entry : group) {
+                builder.append(heading, truncate(line(entry.notification().event()), MAX_LINE_LENGTH), entry);
+            }
+        }
+        return builder.finish();
+    }
+
+    private static String line(WebhookEvent event) {
+        StringBuilder line = new StringBuilder("• **").append(event.actor()).append("**");
+        if (event.number() != null) {
+            line.append(" #").append(event.number());
+        }
+        if (event.title() != null) {
+            line.append(' ').append(event.title());
+        } else if (event.ref() != null) {
+            line.append(' ').append(event.ref());
+        }
+        return line.toString();
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength - 1) + "…";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Packs lines into messages, repeating a group's heading when the group continues in a new message.
+     */
+    private static final class MessageBuilder {
+
+        private final List<Message> messages = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private List<Entry> entries = new ArrayList<>();
+        private String heading;
+
+        void append(String groupHeading, String line, Entry entry) {
+            boolean newHeading = groupHeading != null && !groupHeading.equals(heading);
+            if (!entries.isEmpty() && text.length() + 1 + length(newHeading ? groupHeading : null) + line.length() > MESSAGE_LIMIT) {
+                flush();
+                newHeading = groupHeading != null;
+            }
+            if (newHeading) {
+                separate();
+                text.append(groupHeading);
+            }
+            separate();
+            text.append(line);
+            heading = groupHeading;
+            entries.add(entry);
+        }
+
+        private void separate() {
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+        }
+
+        private static int length(String heading) {
+            return heading == null ? 0 : heading.length() + 1;
+        }
+
+        private void flush() {
+            messages.add(new Message(text.toString(), List.copyOf(entries)));
+            text.setLength(0);
+            entries = new ArrayList<>();
+            heading = null;
+        }
+
+        List<Message> finish() {
+            if (!entries.isEmpty()) {
+                flush();
+            }
+            return messages;
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.DeadLetter;
+import com.example.catalog.model.DestinationStats;
+import com.example.catalog.model.EventPriority;
+import com.example.catalog.model.Notification;
+import com.example.catalog.model.WebhookEvent;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process delivery pipeline between the webhook ingress and the {@link DiscordNotifier} and
+ * {@link EmailNotifier} sinks.
+ * Notifications are placed on a bounded queue and picked up by a fixed pool of workers, so request
+ * threads never wait on Discord. The queue is ordered by {@link EventPriority}, first in first out
+ * within a priority, so a backlog of pushes cannot hold up a critical event; when it is full,
+ * {@link OverflowPolicy#DROP_OLDEST} moves the oldest of the least urgent notifications to the
+ * {@link DeadLetterStore}, and never one more urgent than the newcomer. A worker formats the message once and fans it out to every
+ * destination in parallel through {@link DestinationBulkheads}, so a slow or failing destination
+ * neither delays nor skips the others. Once a destination's bulkhead queue is full, the worker waits
+ * for room there, so the backlog builds up in the delivery queue, in priority order, where
+ * {@link AdmissionControl} and the overflow policy act on it.
+ * <p>
+ * Every accepted event is recorded in the {@link OutboxJournal} before it is queued and each
+ * destination is marked once notified, so events still undelivered at shutdown are replayed when
+ * the application starts again. A failed destination is retried with exponential backoff through
+ * the {@link RetryScheduler}; once its retries are used up, or the failure is permanent, the delivery
+ * goes to the {@link DeadLetterStore}. A delivery refused by an open circuit is parked on the retry
+ * timer until the circuit lets probes through again, without using up a retry.
+ * <p>
+ * Destinations in digest mode get their notifications through the {@link NotificationDigest}
+ * instead, as combined summary messages; each notification counts as delivered once the summary
+ * carrying it is sent. Email destinations bypass the bulkheads and the digest: the
+ * {@link EmailNotifier} batches and sends them on its own SMTP connection.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on a JDK that supports virtual threads, every
+ * delivery runs on its own virtual thread instead, and the queue capacity bounds the number of
+ * deliveries in flight. Every delivery then starts at once, so priorities only matter at ingress.
+ * <p>
+ * Message formatting time and the latency from accepting an event to delivering it are recorded in
+ * {@link PipelineMetrics}; the queue depth is exposed as {@code notifier.queue.depth} and the whole
+ * undelivered backlog as {@code notifier.backlog}. Queuing,
+ * formatting and each Discord send are also recorded as {@link WebhookStageEvent}s.
+ */
+@Service
+public class NotificationDispatcher implements MeterBinder {
+
+    /**
+     * What to do with a new notification when the delivery queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Refuse the new notification; the caller reports it as not accepted. */
+        REJECT,
+        /** Dead-letter the oldest queued notification of the lowest priority to make room for the new one. */
+        DROP_OLDEST,
+        /** Deliver the notification on the calling thread, slowing down ingress. */
+        CALLER_RUNS
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+    /** Most urgent first, then first come first served. */
+    private static final Comparator<Runnable> DELIVERY_ORDER = Comparator
+            .comparing((Runnable task) -> ((DeliveryTask) task).priority)
+            .thenComparingLong(task -> ((DeliveryTask) task).order);
+
+    private final DiscordNotifier discordNotifier;
+    private final EmailNotifier emailNotifier;
+    private final WebhookMessageFormatter messageFormatter;
+    private final OutboxJournal outboxJournal;
+    private final RetryScheduler retryScheduler;
+    private final DeadLetterStore deadLetterStore;
+    private final DestinationBulkheads bulkheads;
+    private final NotificationDigest digest;
+    private final EventPriorities priorities;
+    private final PipelineMetrics metrics;
+    private final long drainTimeoutSeconds;
+    private final OverflowPolicy overflowPolicy;
+    private final ThreadPoolExecutor executor;
+    private final PriorityBlockingQueue<Runnable> queue;
+    private final Semaphore queueSlots;
+    private final int queueCapacity;
+    private final AtomicLong submissions = new AtomicLong();
+    /** Destinations of accepted notifications not yet handed to the bulkheads. */
+    private final AtomicInteger awaitingHandOff = new AtomicInteger();
+    private final VirtualThreadTaskExecutor virtualExecutor;
+    private final Semaphore virtualSlots;
+    private final int maxInFlight;
+    private volatile boolean shutdown;
+
+    public NotificationDispatcher(DiscordNotifier discordNotifier,
+                                  EmailNotifier emailNotifier,
+                                  WebhookMessageFormatter messageFormatter,
+                                  OutboxJournal outboxJournal,
+                                  RetryScheduler retryScheduler,
+                                  DeadLetterStore deadLetterStore,
+                                  DestinationBulkheads bulkheads,
+                                  NotificationDigest digest,
+                                  EventPriorities priorities,
+                                  PipelineMetrics metrics,
+                                  @Value("${notifier.queue.capacity:1000}") int queueCapacity,
+                                  @Value("${notifier.workers:4}") int workers,
+                                  @Value("${notifier.overflow-policy:REJECT}") OverflowPolicy overflowPolicy,
+                                  @Value("${notifier.shutdown.drain-timeout-seconds:30}") long drainTimeoutSeconds,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.discordNotifier = discordNotifier;
+        this.emailNotifier = emailNotifier;
+        this.messageFormatter = messageFormatter;
+        this.outboxJournal = outboxJournal;
+        this.retryScheduler = retryScheduler;
+        this.deadLetterStore = deadLetterStore;
+        this.bulkheads = bulkheads;
+        this.digest = digest;
+        this.priorities = priorities;
+        this.metrics = metrics;
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+        this.overflowPolicy = overflowPolicy;
+        this.virtualExecutor = virtualThreads ? createVirtualExecutor() : null;
+        if (virtualExecutor != null) {
+            this.maxInFlight = queueCapacity;
+            this.virtualSlots = new Semaphore(queueCapacity);
+            this.queueCapacity = queueCapacity;
+            this.executor = null;
+            this.queue = null;
+            this.queueSlots = null;
+            logger.info("Notification dispatcher started on virtual threads, max {} deliveries in flight, overflow policy {}",
+                    queueCapacity, overflowPolicy);
+        } else {
+            this.maxInFlight = queueCapacity + workers;
+            this.virtualSlots = null;
+            this.queueCapacity = queueCapacity;
+            // The priority queue itself is unbounded; the slots keep it to the configured capacity.
+            this.queue = new PriorityBlockingQueue<>(Math.max(1, queueCapacity), DELIVERY_ORDER);
+            this.queueSlots = new Semaphore(queueCapacity);
+            this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue,
+                    new ThreadFactoryBuilder().setNameFormat("notifier-worker-%d").build());
+            logger.info("Notification dispatcher started with {} workers, queue capacity {}, overflow policy {}",
+                    workers, queueCapacity, overflowPolicy);
+        }
+        digest.start(this::deliverDigest);
+    }
+
+    /**
+     * Records the event in the outbox journal and queues it for asynchronous delivery.
+     *
+     * @return {@code true} if the event was accepted, {@code false} if the queue is full
+     * and the overflow policy refused it.
+     */
+    public boolean dispatch(WebhookEvent event, String eventType, List<String> destinations) {
+        return dispatch(event, eventType, destinations, null);
+    }
+
+    /**
+     * Same as {@link #dispatch(WebhookEvent, String, List)}, tracing the webhook's delivery ID
+     * against its journal sequence.
+     */
+    public boolean dispatch(WebhookEvent event, String eventType, List<String> destinations, String deliveryId) {
+        WebhookStageEvent stage = WebhookStageEvent.start();
+        Notification notification = outboxJournal.append(event, eventType, destinations);
+        boolean accepted = submit(notification, 1, System.nanoTime());
+        if (!accepted) {
+            outboxJournal.discard(notification.sequence());
+        }
+        stage.finish(WebhookStageEvent.STAGE_ENQUEUE, deliveryId, notification.sequence(), eventType,
+                event.repoName(), null);
+        return accepted;
+    }
+
+    /**
+     * Re-queues the events the outbox journal recovered from the previous run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOutbox() {
+        List<Notification> recovered = outboxJournal.takeRecovered();
+        if (recovered.isEmpty()) {
+            return;
+        }
+        logger.info("Replaying {} undelivered events from the outbox journal", recovered.size());
+        for (Notification notification : recovered) {
+            resubmit(notification, 1, System.nanoTime(), 1);
+        }
+    }
+
+    /**
+     * Sends a dead letter through the pipeline again as a new event with a fresh retry budget.
+     */
+    public boolean redrive(DeadLetter deadLetter) {
+        return dispatch(deadLetter.event(), deadLetter.eventType(), List.of(deadLetter.destination()));
+    }
+
+    private boolean submit(Notification notification, int attempt, long acceptedAtNanos) {
+        return submit(notification, attempt, acceptedAtNanos, overflowPolicy == OverflowPolicy.CALLER_RUNS);
+    }
+
+    /**
+     * Queues a delivery the pipeline already owns, a replayed event or a retry. While the queue
+     * refuses it, it goes back on the retry timer with growing backoff instead of waiting in the
+     * journal for the next start. It never runs on the calling thread, which for a retry is the
+     * timer's.
+     */
+    private void resubmit(Notification notification, int attempt, long acceptedAtNanos, int refusals) {
+        if (submit(notification, attempt, acceptedAtNanos, false)) {
+            return;
+        }
+        if (shutdown) {
+            logger.warn("Dispatcher is shutting down, event {} stays in the outbox journal", notification.sequence());
+            return;
+        }
+        logger.warn("Delivery queue full, event {} to {} waits on the retry timer", notification.sequence(),
+                notification.destinations());
+        try {
+            retryScheduler.scheduleRetry(refusals,
+                    () -> resubmit(notification, attempt, acceptedAtNanos, refusals + 1));
+        } catch (IllegalStateException stopped) {
+            logger.warn("Retry timer stopped, event {} stays in the outbox journal", notification.sequence());
+        }
+    }
+
+    private boolean submit(Notification notification, int attempt, long acceptedAtNanos, boolean callerRuns) {
+        DeliveryTask delivery = new DeliveryTask(notification, attempt, acceptedAtNanos,
+                priorities.priorityOf(notification.eventType()), submissions.getAndIncrement());
+        if (virtualExecutor != null) {
+            return dispatchOnVirtualThread(delivery, callerRuns);
+        }
+        if (executor.isShutdown()) {
+            logger.warn("Dispatcher is shutting down, notification rejected.");
+            return false;
+        }
+        if (!takeQueueSlot(delivery)) {
+            if (callerRuns) {
+                delivery.run();
+                return true;
+            }
+            logger.warn("Delivery queue full, notification rejected.");
+            return false;
+        }
+        delivery.holdsSlot = true;
+        delivery.countInBacklog();
+        try {
+            executor.execute(delivery);
+            return true;
+        } catch (RejectedExecutionException e) {
+            delivery.removeFromBacklog();
+            queueSlots.release();
+            logger.warn("Dispatcher is shutting down, notification rejected.");
+            return false;
+        }
+    }
+
+    /**
+     * Takes a free queue slot, or with {@link OverflowPolicy#DROP_OLDEST} the slot of the oldest
+     * queued delivery of the lowest priority, as long as that is not more urgent than the newcomer.
+     */
+    private boolean takeQueueSlot(DeliveryTask delivery) {
+        while (!queueSlots.tryAcquire()) {
+            if (overflowPolicy != OverflowPolicy.DROP_OLDEST) {
+                return false;
+            }
+            DeliveryTask victim = null;
+            for (Runnable queued : queue) {
+                DeliveryTask candidate = (DeliveryTask) queued;
+                if (candidate.priority.compareTo(delivery.priority) >= 0 && (victim == null
+                        || candidate.priority.compareTo(victim.priority) > 0
+                        || candidate.priority == victim.priority && candidate.order < victim.order)) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                return false;
+            }
+            // A worker may have taken the victim meanwhile, freeing a slot; then just try again.
+            if (queue.remove(victim)) {
+                victim.removeFromBacklog();
+                logger.warn("Delivery queue full, dropped the oldest queued {} priority notification.", victim.priority);
+                // A retry carries only its own destination; the event's other destinations may still be on their way.
+                for (String destination : victim.notification.destinations()) {
+                    deadLetter(victim.notification, destination, victim.attempt - 1, "dropped by overflow policy");
+                }
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of notifications accepted but not yet handed to Discord.
+     */
+    public int getQueueDepth() {
+        if (virtualExecutor != null) {
+            return maxInFlight - virtualSlots.availablePermits();
+        }
+        return queue.size();
+    }
+
+    /**
+     * Undelivered work, in deliveries to one destination: accepted notifications not yet handed to
+     * the destination bulkheads, deliveries waiting in or running on them and retries waiting on the
+     * timer.
+     */
+    public int getBacklog() {
+        return awaitingHandOff.get() + bulkheads.getBacklog() + retryScheduler.getScheduledCount();
+    }
+
+    /**
+     * Most notifications {@link #getQueueDepth()} can reach before the overflow policy applies.
+     */
+    public int getQueueCapacity() {
+        if (virtualExecutor != null) {
+            return maxInFlight;
+        }
+        return queueCapacity;
+    }
+
+    public boolean isVirtualThreadMode() {
+        return virtualExecutor != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifier.queue.depth", this, NotificationDispatcher::getQueueDepth)
+                .description("Notifications accepted but not yet handed to Discord")
+                .register(registry);
+        Gauge.builder("notifier.backlog", this, NotificationDispatcher::getBacklog)
+                .description("Queued notifications plus deliveries in the bulkheads and waiting retries")
+                .register(registry);
+    }
+
+    private boolean dispatchOnVirtualThread(DeliveryTask delivery, boolean callerRuns) {
+        if (shutdown) {
+            logger.warn("Dispatcher is shutting down, notification rejected.");
+            return false;
+        }
+        if (!virtualSlots.tryAcquire()) {
+            // There is no queue to drop from in this mode, so DROP_OLDEST behaves like REJECT.
+            if (callerRuns) {
+                delivery.run();
+                return true;
+            }
+            logger.warn("Too many deliveries in flight, notification rejected.");
+            return false;
+        }
+        delivery.countInBacklog();
+        virtualExecutor.execute(() -> {
+            try {
+                delivery.run();
+            } finally {
+                virtualSlots.release();
+            }
+        });
+        return true;
+    }
+
+    private void deliver(Notification notification, int attempt, long acceptedAtNanos) {
+        EventPriority priority = priorities.priorityOf(notification.eventType());
+        String message = null;
+        for (String destination : notification.destinations()) {
+            boolean email = emailNotifier.isEmailDestination(destination);
+            if (!email && digest.isEnabled(destination)) {
+                digest.add(destination, new NotificationDigest.Entry(notification, attempt, acceptedAtNanos));
+                continue;
+            }
+            if (message == null) {
+                long formatStart = System.nanoTime();
+                WebhookStageEvent stage = WebhookStageEvent.start();
+                message = messageFormatter.format(notification.event(), notification.eventType());
+                stage.finish(WebhookStageEvent.STAGE_FORMAT, null, notification.sequence(), notification.eventType(),
+                        notification.event().repoName(), null);
+                metrics.recordStage(PipelineMetrics.STAGE_FORMAT, formatStart);
+            }
+            String content = message;
+            if (email) {
+                emailNotifier.send(destination, content).whenComplete((sent, e) -> {
+                    if (e == null) {
+                        outboxJournal.markDelivered(notification.sequence(), destination);
+                        metrics.recordDelivered(destination, acceptedAtNanos);
+                    } else {
+                        handleFailure(notification, destination, attempt, acceptedAtNanos,
+                                e instanceof Exception exception ? exception : new DeliveryException("Email failed", e));
+                    }
+                });
+                continue;
+            }
+            boolean accepted = bulkheads.submit(destination, priority,
+                    () -> {
+                        WebhookStageEvent stage = WebhookStageEvent.start();
+                        try {
+                            discordNotifier.send(destination, content);
+                        } finally {
+                            stage.finish(WebhookStageEvent.STAGE_SEND, null, notification.sequence(),
+                                    notification.eventType(), notification.event().repoName(), destination);
+                        }
+                        outboxJournal.markDelivered(notification.sequence(), destination);
+                        metrics.recordDelivered(destination, acceptedAtNanos);
+                    },
+                    e -> handleFailure(notification, destination, attempt, acceptedAtNanos, e));
+            if (!accepted) {
+                logger.warn("Bulkhead for {} is shut down, event {} stays in the outbox journal",
+                        destination, notification.sequence());
+            }
+        }
+    }
+
+    /**
+     * Sends a flushed digest. A summary that fails is retried per notification, so the retries
+     * land in a later digest.
+     */
+    private void deliverDigest(String destination, List<NotificationDigest.Entry> entries) {
+        long formatStart = System.nanoTime();
+        List<NotificationDigest.Message> messages = digest.render(entries);
+        metrics.recordStage(PipelineMetrics.STAGE_FORMAT, formatStart);
+        metrics.recordDigest(destination, entries.size());
+        for (NotificationDigest.Message message : messages) {
+            EventPriority priority = message.entries().stream()
+                    .map(entry -> priorities.priorityOf(entry.notification().eventType()))
+                    .min(Comparator.naturalOrder())
+                    .orElse(EventPriority.NORMAL);
+            boolean accepted = bulkheads.submit(destination, priority,
+                    () -> {
+                        // One send for many events, so it is traced without a sequence.
+                        WebhookStageEvent stage = WebhookStageEvent.start();
+                        try {
+                            discordNotifier.send(destination, message.content());
+                        } finally {
+                            stage.finish(WebhookStageEvent.STAGE_SEND, null, 0, "digest", null, destination);
+                        }
+                        for (NotificationDigest.Entry entry : message.entries()) {
+                            outboxJournal.markDelivered(entry.notification().sequence(), destination);
+                            metrics.recordDelivered(destination, entry.acceptedAtNanos());
+                        }
+                    },
+                    e -> handleDigestFailure(destination, message, e));
+            if (!accepted) {
+                logger.warn("Bulkhead for {} is shut down, {} digested events stay in the outbox journal",
+                        destination, message.entries().size());
+            }
+        }
+    }
+
+    private void handleDigestFailure(String destination, NotificationDigest.Message message, Exception e) {
+        for (NotificationDigest.Entry entry : message.entries()) {
+            handleFailure(entry.notification(), destination, entry.attempt(), entry.acceptedAtNanos(), e);
+        }
+    }
+
+    private void handleFailure(Notification notification, String destination, int attempt, long acceptedAtNanos, Exception e) {
+        // Nothing was sent to an open circuit, so the delivery waits for it without using up an attempt.
+        boolean park = e instanceof CircuitOpenException && retryScheduler.canPark(acceptedAtNanos);
+        if (park || isRetryable(e) && retryScheduler.canRetry(attempt)) {
+            Notification retry = new Notification(notification.sequence(), notification.event(),
+                    notification.eventType(), List.of(destination));
+            int nextAttempt = park ? attempt : attempt + 1;
+            Runnable requeue = () -> resubmit(retry, nextAttempt, acceptedAtNanos, 1);
+            try {
+                if (park) {
+                    logger.debug("Circuit to {} is open, parking event {}", destination, notification.sequence());
+                    retryScheduler.schedulePark(((CircuitOpenException) e).getRetryAfterNanos(), requeue);
+                } else {
+                    logger.warn("Delivery of event {} to {} failed on attempt {}, will retry: {}",
+                            notification.sequence(), destination, attempt, e.getMessage());
+                    retryScheduler.scheduleRetry(attempt, requeue);
+                }
+            } catch (IllegalStateException stopped) {
+                logger.warn("Retry timer stopped, event {} to {} stays in the outbox journal", notification.sequence(), destination);
+            }
+            return;
+        }
+        logger.error("Giving up on event {} to {} after {} attempts", notification.sequence(), destination, attempt, e);
+        deadLetter(notification, destination, attempt, String.valueOf(e.getMessage()));
+    }
+
+    /**
+     * Hands the delivery over to the dead-letter store, or leaves it in the outbox journal if it
+     * could not be written there.
+     */
+    private void deadLetter(Notification notification, String destination, int attempts, String reason) {
+        if (!deadLetterStore.add(new DeadLetter(notification.sequence(), destination, notification.eventType(),
+                notification.event(), attempts, reason, System.currentTimeMillis()))) {
+            logger.error("Event {} to {} stays in the outbox journal", notification.sequence(), destination);
+            return;
+        }
+        // From here on the dead-letter store owns the delivery, so the journal must not replay it.
+        outboxJournal.markDelivered(notification.sequence(), destination);
+    }
+
+    /**
+     * Client errors other than rate limiting (e.g. a deleted webhook) and destinations that are no
+     * longer configured will not succeed on retry.
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof UnknownDestinationException) {
+            return false;
+        }
+        if (e instanceof DeliveryException deliveryException) {
+            int status = deliveryException.getStatusCode();
+            return status < 400 || status >= 500 || status == 429;
+        }
+        return true;
+    }
+
+    public List<DestinationStats> getDestinationStats() {
+        return bulkheads.getStats();
+    }
+
+    /**
+     * Stops taking notifications and waits, up to the drain timeout in total, for the queue and
+     * then the destination bulkheads to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds);
+        try {
+            if (virtualExecutor != null) {
+                if (virtualSlots.tryAcquire(maxInFlight, drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                    virtualSlots.release(maxInFlight);
+                } else {
+                    logger.warn("{} deliveries still in flight after {}s, giving up on them.",
+                            getQueueDepth(), drainTimeoutSeconds);
+                }
+            } else {
+                executor.shutdown();
+                if (!executor.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                    int dropped = executor.shutdownNow().size();
+                    logger.warn("Delivery queue did not drain within {}s, {} notifications dropped.",
+                            drainTimeoutSeconds, dropped);
+                }
+            }
+            digest.flushAll();
+            if (!bulkheads.awaitIdle(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                logger.warn("Destination bulkheads still busy after {}s, undelivered events stay in the outbox journal.",
+                        drainTimeoutSeconds);
+            }
+            emailNotifier.shutdown(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static VirtualThreadTaskExecutor createVirtualExecutor() {
+        try {
+            return new VirtualThreadTaskExecutor("notifier-delivery-");
+        } catch (UnsupportedOperationException e) {
+            logger.warn("Virtual threads requested but not supported by this JDK, using platform worker threads.");
+            return null;
+        }
+    }
+
+    /**
+     * Queued delivery of one notification; keeps the notification reachable so an overflow policy
+     * that drops it can also drop it from the journal.
+     */
+    private final class DeliveryTask implements Runnable {
+
+        private final Notification notification;
+        private final int attempt;
+        private final long acceptedAtNanos;
+        private final EventPriority priority;
+        /** Submission order, to keep deliveries of one priority first in first out. */
+        private final long order;
+        /** Whether the task was given a queue slot, to be freed when it starts. */
+        private volatile boolean holdsSlot;
+        /** Whether the task's destinations are counted in the backlog. */
+        private volatile boolean counted;
+
+        private DeliveryTask(Notification notification, int attempt, long acceptedAtNanos,
+                             EventPriority priority, long order) {
+            this.notification = notification;
+            this.attempt = attempt;
+            this.acceptedAtNanos = acceptedAtNanos;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            if (holdsSlot) {
+                queueSlots.release();
+            }
+            try {
+                deliver(notification, attempt, acceptedAtNanos);
+            } finally {
+                removeFromBacklog();
+            }
+        }
+
+        /**
+         * Counts the task's destinations in {@link #getBacklog()} until it has handed them on, as
+         * the queue depth alone counts one per notification.
+         */
+        void countInBacklog() {
+            counted = true;
+            awaitingHandOff.addAndGet(notification.destinations().size());
+        }
+
+        void removeFromBacklog() {
+            if (counted) {
+                counted = false;
+                awaitingHandOff.addAndGet(-notification.destinations().size());
+            }
+        }
+    }
+}
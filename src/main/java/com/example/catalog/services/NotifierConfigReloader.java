@@ -0,0 +1,186 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.RoutingRule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies destination and routing changes without a restart. {@code notifier.config.file} names a
+ * properties file with any of {@code general.channel.url}, {@code my.events.url},
+ * {@code discord.destinations.*} and {@code routing.rules[n].*}; its values take precedence over
+ * the application's own configuration. The file is read at startup, whenever it changes (watched
+ * unless {@code notifier.config.watch=false}) and on {@code POST /gitea/admin/config/reload}.
+ * <p>
+ * A new configuration is validated and compiled completely before anything is published: URLs
+ * must be absolute HTTP(S), rules must compile and only name known destinations. An invalid file
+ * is logged and the running configuration stays. Rules and destinations are published together
+ * in one swap of the {@link RoutingEngine}'s routing table, so routing and delivery never wait for
+ * a reload and never see half of one.
+ */
+@Component
+public class NotifierConfigReloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotifierConfigReloader.class);
+
+    private final ConfigurableEnvironment environment;
+    private final DiscordNotifier discordNotifier;
+    private final EmailNotifier emailNotifier;
+    private final RoutingEngine routingEngine;
+    private final Path file;
+    private final boolean watch;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final AtomicLong version = new AtomicLong();
+    private String appliedContent;
+    private WatchService watchService;
+
+    public NotifierConfigReloader(ConfigurableEnvironment environment,
+                                  DiscordNotifier discordNotifier,
+                                  EmailNotifier emailNotifier,
+                                  RoutingEngine routingEngine,
+                                  @Value("${notifier.config.file:}") String file,
+                                  @Value("${notifier.config.watch:true}") boolean watch) {
+        this.environment = environment;
+        this.discordNotifier = discordNotifier;
+        this.emailNotifier = emailNotifier;
+        this.routingEngine = routingEngine;
+        this.file = file.isBlank() ? null : Path.of(file).toAbsolutePath();
+        this.watch = watch;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (file == null) {
+            return;
+        }
+        if (Files.exists(file)) {
+            reload();
+        } else {
+            logger.warn("Notifier config file {} does not exist yet", file);
+        }
+        if (watch) {
+            watchService = file.getFileSystem().newWatchService();
+            // Watch the directory: editors and config mounts replace the file rather than write it in place.
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread watcher = new Thread(this::watch, "config-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            logger.info("Watching {} for notifier config changes", file);
+        }
+    }
+
+    /**
+     * Reads the config file and applies it if it changed since the last reload.
+     *
+     * @return the configuration version now in effect, counting from 1 for the first reload
+     * @throws IllegalStateException    if no config file is set
+     * @throws IllegalArgumentException if the file's configuration is invalid; nothing is applied
+     */
+    public long reload() {
+        if (file == null) {
+            throw new IllegalStateException("No notifier.config.file is set");
+        }
+        reloadLock.lock();
+        try {
+            String content;
+            try {
+                content = Files.readString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + file, e);
+            }
+            if (content.equals(appliedContent)) {
+                return version.get();
+            }
+            apply(binder(content));
+            appliedContent = content;
+            return version.get();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void apply(Binder binder) {
+        Map<String, String> urls = DiscordNotifier.webhookUrls(binder);
+        List<RoutingRule> rules = RoutingEngine.rules(binder);
+        RoutingEngine compiled = new RoutingEngine(rules, urls, emailNotifier.getDestinations());
+        discordNotifier.webhookUrlsReplaced(routingEngine.replace(compiled));
+        logger.info("Applied notifier config version {}: {} destinations, {} routing rules",
+                version.incrementAndGet(), urls.size(), rules.size());
+    }
+
+    /**
+     * The file's properties layered over the application's own configuration.
+     */
+    private Binder binder(String content) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(content));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed properties: " + e.getMessage());
+        }
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        sources.add(new MapConfigurationPropertySource(properties));
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+        return new Binder(sources, new PropertySourcesPlaceholdersResolver(environment));
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = key.pollEvents().stream()
+                        .anyMatch(event -> event.context() instanceof Path changed
+                                && (changed.equals(file.getFileName()) || changed.toString().startsWith("..")));
+                key.reset();
+                if (relevant && Files.exists(file)) {
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        logger.error("Ignoring invalid notifier config in {}, keeping version {}: {}",
+                                file, version.get(), e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", file);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.catalog.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared HTTP client for outbound notifications. Connections are pooled and kept alive by a single
+ * {@link HttpClient} (HTTP/2 where the server supports it), every call is bounded by connect, read
+ * and total timeouts, and concurrent calls to the same URL are capped so one destination cannot
+ * take every connection.
+ * <p>
+ * The cap is per URL rather than per host because every Discord webhook lives on the same host: a
+ * per-host cap would let a couple of hung webhooks hold all the permits and stall the healthy ones.
+ * Each destination's bulkhead ({@code notifier.bulkhead.max-concurrent}) already limits its calls,
+ * so {@code outbound.http.max-concurrent-per-url} should be at least that, and is only a backstop.
+ */
+@Component
+public class OutboundHttpClient {
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final long totalTimeoutMillis;
+    private final int maxConcurrentRequestsPerUrl;
+    private final Map<URI, Semaphore> urlPermits = new ConcurrentHashMap<>();
+
+    public OutboundHttpClient(@Value("${outbound.http.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                              @Value("${outbound.http.read-timeout-ms:5000}") long readTimeoutMillis,
+                              @Value("${outbound.http.total-timeout-ms:10000}") long totalTimeoutMillis,
+                              @Value("${outbound.http.max-concurrent-per-url:4}") int maxConcurrentRequestsPerUrl) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.totalTimeoutMillis = totalTimeoutMillis;
+        this.maxConcurrentRequestsPerUrl = maxConcurrentRequestsPerUrl;
+    }
+
+    /**
+     * POSTs a JSON body and waits for the response status and headers.
+     *
+     * @throws DeliveryException if the call fails, times out or no connection slot frees up in time.
+     */
+    public OutboundResponse postJson(URI uri, byte[] jsonBody) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(totalTimeoutMillis);
+        Semaphore permits = urlPermits.computeIfAbsent(uri, url -> new Semaphore(maxConcurrentRequestsPerUrl));
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new DeliveryException("No free connection to " + uri.getHost() + " within the total timeout", -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryException("Interrupted while waiting for a connection to " + uri.getHost(), e);
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(readTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(jsonBody))
+                    .build();
+            CompletableFuture<HttpResponse<Void>> response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            try {
+                HttpResponse<Void> result = response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return new OutboundResponse(result.statusCode(), result.headers());
+            } catch (TimeoutException e) {
+                response.cancel(true);
+                throw new DeliveryException("Call to " + uri.getHost() + " exceeded the total timeout", e);
+            } catch (ExecutionException e) {
+                throw new DeliveryException("Call to " + uri.getHost() + " failed", e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryException("Interrupted while calling " + uri.getHost(), e);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.catalog.services;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * Status and headers of a response from an outbound notification call.
+ */
+public record OutboundResponse(int statusCode, HttpHeaders headers) {
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * First value of the header, or {@code null} if it is absent.
+     */
+    public String header(String name) {
+        return headers.firstValue(name).orElse(null);
+    }
+}
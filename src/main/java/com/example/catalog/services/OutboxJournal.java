@@ -0,0 +1,511 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.Notification;
+import com.example.catalog.model.WebhookEvent;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only outbox of accepted webhook events, kept in memory-mapped segment files on local disk.
+ * Every accepted event is written here before it is acknowledged to Gitea, each destination is
+ * marked once it has been notified, and whatever is still undelivered is replayed after a restart.
+ * <p>
+ * Records are framed as {@code [length][crc32][type][sequence][payload]}; a zero length or a bad
+ * checksum marks the end of the written part of a segment. Segments are flushed to disk in batches
+ * every {@code outbox.fsync-interval-ms} rather than per record. Segments are reclaimed oldest
+ * first: a segment whose events are all delivered is deleted, and one with only a few undelivered
+ * events left has those copied forward into the active segment first.
+ */
+@Component
+public class OutboxJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxJournal.class);
+
+    private static final byte EVENT = 1;
+    private static final byte DELIVERED = 2;
+    private static final byte DISCARDED = 3;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int COMPACT_WHEN_LIVE_BELOW_PERCENT = 25;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, PendingEntry> pending = new ConcurrentHashMap<>();
+    private final Deque<Segment> sealedSegments = new ArrayDeque<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final List<Notification> recovered = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private Segment activeSegment;
+    private long nextSequence = 1;
+    private long nextSegmentIndex = 1;
+    /** Set while {@link #reclaim()} runs, so a rotation caused by copying forward does not reclaim again. */
+    private boolean reclaiming;
+
+    public OutboxJournal(@Value("${outbox.enabled:true}") boolean enabled,
+                         @Value("${outbox.dir:data/outbox}") Path directory,
+                         @Value("${outbox.segment-size-bytes:16777216}") int segmentSizeBytes,
+                         @Value("${outbox.fsync-interval-ms:50}") long fsyncIntervalMillis) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        if (!enabled) {
+            this.flusher = null;
+            logger.warn("Outbox journal disabled, accepted events will not survive a restart.");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            recover();
+            activeSegment = openSegment(nextSegmentIndex++);
+            reclaim();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open outbox journal in " + directory, e);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("outbox-fsync").setDaemon(true).build());
+        flusher.scheduleWithFixedDelay(this::flush, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Outbox journal opened in {} with {} undelivered events", directory, recovered.size());
+    }
+
+    /**
+     * Records a newly accepted event and assigns its sequence number.
+     */
+    public Notification append(WebhookEvent event, String eventType, List<String> destinations) {
+        lock.lock();
+        try {
+            Notification notification = new Notification(nextSequence++, event, eventType, List.copyOf(destinations));
+            if (enabled) {
+                Segment segment = write(EVENT, notification.sequence(), eventPayload(notification));
+                pending.put(notification.sequence(), new PendingEntry(notification, segment));
+                segment.liveEntries++;
+                segment.totalEntries++;
+            }
+            return notification;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that the event has been delivered to one of its destinations.
+     */
+    public void markDelivered(long sequence, String destination) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            PendingEntry entry = pending.get(sequence);
+            if (entry == null || !entry.remaining.contains(destination)) {
+                return;
+            }
+            write(DELIVERED, sequence, destinationPayload(destination));
+            entry.remaining.remove(destination);
+            if (entry.remaining.isEmpty()) {
+                complete(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops an event that will not be delivered, e.g. because the delivery queue refused it and
+     * Gitea was told to redeliver.
+     */
+    public void discard(long sequence) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            PendingEntry entry = pending.get(sequence);
+            if (entry != null) {
+                write(DISCARDED, sequence, new byte[0]);
+                complete(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Events that were accepted but not fully delivered before the last shutdown. Each is returned
+     * once, with only its undelivered destinations.
+     */
+    public List<Notification> takeRecovered() {
+        lock.lock();
+        try {
+            List<Notification> result = List.copyOf(recovered);
+            recovered.clear();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return sealedSegments.size() + (activeSegment != null ? 1 : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces written records to disk. Runs on a timer so many appends share one fsync. Only picking
+     * the active segment holds the lock, so appends are not held up by the fsync; a segment rotated
+     * away in the meantime was already forced when it was sealed.
+     */
+    public void flush() {
+        if (dirty.getAndSet(false)) {
+            MappedByteBuffer buffer;
+            lock.lock();
+            try {
+                buffer = activeSegment.buffer;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                buffer.force();
+            } catch (RuntimeException e) {
+                dirty.set(true);
+                logger.error("Failed to flush outbox journal", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        lock.lock();
+        try {
+            activeSegment.buffer.force();
+            activeSegment.channel.close();
+            for (Segment segment : sealedSegments) {
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox journal cleanly", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment write(byte type, long sequence, byte[] payload) {
+        int bodyLength = 1 + Long.BYTES + payload.length;
+        int frameLength = FRAME_HEADER_BYTES + bodyLength;
+        if (frameLength + Integer.BYTES > segmentSizeBytes) {
+            throw new IllegalArgumentException("Outbox record of " + frameLength + " bytes does not fit in a segment");
+        }
+        if (activeSegment.buffer.remaining() < frameLength + Integer.BYTES) {
+            rotate();
+        }
+        byte[] body = new byte[bodyLength];
+        body[0] = type;
+        for (int i = 0; i < Long.BYTES; i++) {
+            body[1 + i] = (byte) (sequence >>> (56 - 8 * i));
+        }
+        System.arraycopy(payload, 0, body, 1 + Long.BYTES, payload.length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        MappedByteBuffer buffer = activeSegment.buffer;
+        buffer.putInt(bodyLength);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body);
+        dirty.set(true);
+        return activeSegment;
+    }
+
+    private void rotate() {
+        try {
+            activeSegment.buffer.force();
+            sealedSegments.addLast(activeSegment);
+            activeSegment = openSegment(nextSegmentIndex++);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate outbox journal segment", e);
+        }
+        reclaim();
+    }
+
+    private void complete(PendingEntry entry) {
+        pending.remove(entry.notification.sequence());
+        entry.segment.liveEntries--;
+        reclaim();
+    }
+
+    /**
+     * Deletes fully delivered segments from the front of the journal, copying the last few
+     * undelivered events of a mostly delivered segment forward first. Only the oldest segment is
+     * ever removed, so delivery marks in a removed segment can only refer to events that are gone
+     * or have been copied forward with their remaining destinations.
+     * <p>
+     * Copying forward can fill the active segment and rotate it; the segment sealed by that rotation
+     * is left for the loop here to reach in order rather than reclaimed from inside the copy.
+     */
+    private void reclaim() {
+        if (reclaiming) {
+            return;
+        }
+        reclaiming = true;
+        try {
+            while (!sealedSegments.isEmpty()) {
+                Segment oldest = sealedSegments.peekFirst();
+                if (oldest.liveEntries > 0) {
+                    if (oldest.liveEntries * 100L >= oldest.totalEntries * (long) COMPACT_WHEN_LIVE_BELOW_PERCENT) {
+                        return;
+                    }
+                    copyForward(oldest);
+                }
+                if (sealedSegments.peekFirst() != oldest) {
+                    return;
+                }
+                sealedSegments.pollFirst();
+                deleteSegment(oldest);
+            }
+        } finally {
+            reclaiming = false;
+        }
+    }
+
+    private void copyForward(Segment segment) {
+        for (PendingEntry entry : pending.values()) {
+            if (entry.segment == segment) {
+                Notification remaining = new Notification(entry.notification.sequence(), entry.notification.event(),
+                        entry.notification.eventType(), List.copyOf(entry.remaining));
+                Segment target = write(EVENT, remaining.sequence(), eventPayload(remaining));
+                segment.liveEntries--;
+                entry.segment = target;
+                target.liveEntries++;
+                target.totalEntries++;
+            }
+        }
+        activeSegment.buffer.force();
+    }
+
+    private void deleteSegment(Segment segment) {
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            logger.warn("Could not delete outbox segment {}", segment.path, e);
+        }
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+        return new Segment(path, channel, buffer);
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted(Comparator.comparing(Path::toString))
+                    .toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = openSegment(index);
+            readSegment(segment);
+            sealedSegments.addLast(segment);
+            nextSegmentIndex = Math.max(nextSegmentIndex, index + 1);
+        }
+        for (PendingEntry entry : pending.values()) {
+            entry.segment.liveEntries++;
+            entry.segment.totalEntries++;
+        }
+        pending.values().stream()
+                .map(entry -> new Notification(entry.notification.sequence(), entry.notification.event(),
+                        entry.notification.eventType(), List.copyOf(entry.remaining)))
+                .sorted(Comparator.comparingLong(Notification::sequence))
+                .forEach(recovered::add);
+    }
+
+    private void readSegment(Segment segment) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                buffer.position(start);
+                return;
+            }
+            byte[] body = new byte[bodyLength];
+            buffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Torn record in outbox segment {} at offset {}, ignoring the rest of it", segment.path, start);
+                buffer.position(start);
+                return;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            byte type = in.readByte();
+            long sequence = in.readLong();
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            switch (type) {
+                case EVENT -> {
+                    Notification notification = readEvent(sequence, in);
+                    pending.put(sequence, new PendingEntry(notification, segment));
+                }
+                case DELIVERED -> {
+                    String destination = in.readUTF();
+                    PendingEntry entry = pending.get(sequence);
+                    if (entry != null) {
+                        entry.remaining.remove(destination);
+                        if (entry.remaining.isEmpty()) {
+                            pending.remove(sequence);
+                        }
+                    }
+                }
+                case DISCARDED -> pending.remove(sequence);
+                default -> logger.warn("Unknown outbox record type {} in {}", type, segment.path);
+            }
+        }
+    }
+
+    private static byte[] eventPayload(Notification notification) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            WebhookEvent event = notification.event();
+            writeNullable(out, notification.eventType());
+            writeNullable(out, event.actor());
+            writeNullable(out, event.repoName());
+            writeNullable(out, event.ref());
+            writeNullable(out, event.before());
+            writeNullable(out, event.after());
+            writeNullable(out, event.refType());
+            writeNullable(out, event.pusherType());
+            writeNullable(out, event.action());
+            out.writeShort(notification.destinations().size());
+            for (String destination : notification.destinations()) {
+                out.writeUTF(destination);
+            }
+            // Appended after the destinations so records written before these fields existed still read.
+            writeNullable(out, event.title());
+            writeNullable(out, event.number());
+            writeNullable(out, event.url());
+            writeNullable(out, event.owner());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Notification readEvent(long sequence, DataInputStream in) throws IOException {
+        String eventType = readNullable(in);
+        WebhookEvent event = new WebhookEvent(readNullable(in), readNullable(in), readNullable(in), readNullable(in),
+                readNullable(in), readNullable(in), readNullable(in), readNullable(in));
+        int destinationCount = in.readShort();
+        List<String> destinations = new ArrayList<>(destinationCount);
+        for (int i = 0; i < destinationCount; i++) {
+            destinations.add(in.readUTF());
+        }
+        if (in.available() > 0) {
+            String title = readNullable(in);
+            String number = readNullable(in);
+            String url = readNullable(in);
+            String owner = in.available() > 0 ? readNullable(in) : null;
+            event = new WebhookEvent(event.actor(), event.repoName(), event.ref(), event.before(), event.after(),
+                    event.refType(), event.pusherType(), event.action(), title, number, url, owner);
+        }
+        return new Notification(sequence, event, eventType, destinations);
+    }
+
+    private static byte[] destinationPayload(String destination) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            new DataOutputStream(bytes).writeUTF(destination);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int liveEntries;
+        int totalEntries;
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class PendingEntry {
+        final Notification notification;
+        final Set<String> remaining;
+        Segment segment;
+
+        PendingEntry(Notification notification, Segment segment) {
+            this.notification = notification;
+            this.remaining = new LinkedHashSet<>(notification.destinations());
+            this.segment = segment;
+        }
+    }
+}
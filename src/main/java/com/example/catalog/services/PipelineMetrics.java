@@ -0,0 +1,196 @@
+package com.example.catalog.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for each stage of the webhook pipeline, exported on
+ * {@code /actuator/prometheus}. Ingress request rate and latency come from Spring's own
+ * {@code http.server.requests}; this class adds what happens inside the pipeline:
+ * <ul>
+ *     <li>{@code webhook.payload.size}: request body sizes</li>
+ *     <li>{@code webhook.stage.duration{stage}}: resolve, parse, classify, route and format timings</li>
+ *     <li>{@code webhook.events{event_type,outcome}}: what became of each webhook</li>
+ *     <li>{@code discord.request.duration{destination}} and {@code discord.responses{destination,status}}:
+ *     every HTTP call to Discord, 429s included</li>
+ *     <li>{@code notification.delivery.latency{destination}}: event accepted to delivered</li>
+ *     <li>{@code notification.digest.size{destination}}: notifications per digest in digest mode</li>
+ *     <li>{@code email.send.duration{destination,outcome}} and {@code email.batch.size{destination}}: every
+ *     email sent, with the number of notifications it carried</li>
+ *     <li>{@code discord.circuit.state{destination}}: 0 closed, 1 half-open, 2 open, and
+ *     {@code discord.circuit.transitions{destination,state}}: each time a circuit changed state</li>
+ * </ul>
+ * Dedup and queue gauges are bound by {@link WebhookDeduplicator} and {@link NotificationDispatcher}.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_RESOLVE = "resolve";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_CLASSIFY = "classify";
+    public static final String STAGE_ROUTE = "route";
+    public static final String STAGE_FORMAT = "format";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary payloadSize;
+    private final Map<String, Timer> stageTimers;
+    private final Map<String, Timer> discordTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> deliveryTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> digestSizes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> emailTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> emailBatchSizes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> circuitStates = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.payloadSize = DistributionSummary.builder("webhook.payload.size")
+                .description("Size of webhook request bodies")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.stageTimers = Map.of(
+                STAGE_RESOLVE, stageTimer(STAGE_RESOLVE),
+                STAGE_PARSE, stageTimer(STAGE_PARSE),
+                STAGE_CLASSIFY, stageTimer(STAGE_CLASSIFY),
+                STAGE_ROUTE, stageTimer(STAGE_ROUTE),
+                STAGE_FORMAT, stageTimer(STAGE_FORMAT));
+    }
+
+    /**
+     * Metrics that are kept in memory only, for code constructed outside Spring (tests, benchmarks).
+     */
+    public static PipelineMetrics inMemory() {
+        return new PipelineMetrics(new SimpleMeterRegistry());
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordPayloadSize(int bytes) {
+        payloadSize.record(bytes);
+    }
+
+    /**
+     * Records a stage that started at {@code startNanos} (from {@link System#nanoTime()}) and just ended.
+     */
+    public void recordStage(String stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a webhook by its final outcome, e.g. {@code accepted}, {@code duplicate} or {@code invalid}.
+     */
+    public void recordEvent(String eventType, String outcome) {
+        counter("webhook.events", "event_type", eventType, "outcome", outcome).increment();
+    }
+
+    /**
+     * Records one HTTP call to a Discord webhook; {@code status} is -1 when no response came back.
+     */
+    public void recordDiscordCall(String destination, int status, long nanos) {
+        discordTimers.computeIfAbsent(destination, name -> Timer.builder("discord.request.duration")
+                        .description("Duration of HTTP calls to Discord webhooks")
+                        .tag("destination", name)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        counter("discord.responses", "destination", destination, "status", status < 0 ? "none" : Integer.toString(status))
+                .increment();
+    }
+
+    /**
+     * Records the time from accepting an event to delivering it to one destination.
+     */
+    public void recordDelivered(String destination, long acceptedAtNanos) {
+        deliveryTimers.computeIfAbsent(destination, name -> Timer.builder("notification.delivery.latency")
+                        .description("Time from accepting a webhook to delivering it to a destination")
+                        .tag("destination", name)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - acceptedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a flushed digest of {@code notifications} for one destination.
+     */
+    public void recordDigest(String destination, int notifications) {
+        digestSizes.computeIfAbsent(destination, name -> DistributionSummary.builder("notification.digest.size")
+                        .description("Notifications combined into one digest")
+                        .tag("destination", name)
+                        .register(registry))
+                .record(notifications);
+    }
+
+    /**
+     * Records one email carrying {@code notifications}, sent or failed after {@code nanos}.
+     */
+    public void recordEmail(String destination, int notifications, boolean sent, long nanos) {
+        String outcome = sent ? "sent" : "failed";
+        emailTimers.computeIfAbsent(destination + '|' + outcome, key -> Timer.builder("email.send.duration")
+                        .description("Duration of sending one email over SMTP")
+                        .tag("destination", destination)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        emailBatchSizes.computeIfAbsent(destination, name -> DistributionSummary.builder("email.batch.size")
+                        .description("Notifications combined into one email")
+                        .tag("destination", name)
+                        .register(registry))
+                .record(notifications);
+    }
+
+    /**
+     * Sets the state gauge of a destination's circuit, e.g. for a new circuit breaker.
+     */
+    public void recordCircuitState(String destination, CircuitBreaker.State state) {
+        circuitStates.computeIfAbsent(destination, name -> {
+            AtomicInteger level = new AtomicInteger();
+            Gauge.builder("discord.circuit.state", level, AtomicInteger::get)
+                    .description("Circuit breaker state of a Discord destination: 0 closed, 1 half-open, 2 open")
+                    .tag("destination", name)
+                    .register(registry);
+            return level;
+        }).set(state.ordinal());
+    }
+
+    /**
+     * Records a destination's circuit entering a new state.
+     */
+    public void recordCircuitTransition(String destination, CircuitBreaker.State state) {
+        recordCircuitState(destination, state);
+        counter("discord.circuit.transitions", "destination", destination, "state", state.name().toLowerCase())
+                .increment();
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("webhook.stage.duration")
+                .description("Duration of a webhook pipeline stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter counter(String name, String tagKey1, String tagValue1, String tagKey2, String tagValue2) {
+        String key = name + '|' + tagValue1 + '|' + tagValue2;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> Counter.builder(name)
+                    .tag(tagKey1, tagValue1)
+                    .tag(tagKey2, tagValue2)
+                    .register(registry));
+        }
+        return counter;
+    }
+}
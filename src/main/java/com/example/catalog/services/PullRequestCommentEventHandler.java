@@ -0,0 +1,17 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PullRequestCommentEventHandler extends ActionEventHandler {
+
+    public PullRequestCommentEventHandler() {
+        super(GiteaEventKind.PULL_REQUEST_COMMENT, "pull_request_comment", ExtractionPlan.withSenderAndRepository()
+                .field("action", ExtractionPlan.Field.ACTION)
+                .field("issue.number", ExtractionPlan.Field.NUMBER)
+                .field("issue.title", ExtractionPlan.Field.TITLE)
+                .field("comment.html_url", ExtractionPlan.Field.URL)
+                .build());
+    }
+}
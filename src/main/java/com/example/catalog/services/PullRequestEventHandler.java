@@ -0,0 +1,17 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PullRequestEventHandler extends ActionEventHandler {
+
+    public PullRequestEventHandler() {
+        super(GiteaEventKind.PULL_REQUEST, "pull_request", ExtractionPlan.withSenderAndRepository()
+                .field("action", ExtractionPlan.Field.ACTION)
+                .field("number", ExtractionPlan.Field.NUMBER)
+                .field("pull_request.title", ExtractionPlan.Field.TITLE)
+                .field("pull_request.html_url", ExtractionPlan.Field.URL)
+                .build());
+    }
+}
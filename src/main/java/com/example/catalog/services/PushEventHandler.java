@@ -0,0 +1,30 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PushEventHandler implements GiteaEventHandler {
+
+    private static final ExtractionPlan PLAN = ExtractionPlan.withSenderAndRepository()
+            .field("ref", ExtractionPlan.Field.REF)
+            .field("before", ExtractionPlan.Field.BEFORE)
+            .field("after", ExtractionPlan.Field.AFTER)
+            .build();
+
+    @Override
+    public GiteaEventKind kind() {
+        return GiteaEventKind.PUSH;
+    }
+
+    @Override
+    public ExtractionPlan extractionPlan() {
+        return PLAN;
+    }
+
+    @Override
+    public String eventType(WebhookEvent event) {
+        return "push";
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReleaseEventHandler extends ActionEventHandler {
+
+    public ReleaseEventHandler() {
+        super(GiteaEventKind.RELEASE, "release", ExtractionPlan.withSenderAndRepository()
+                .field("action", ExtractionPlan.Field.ACTION)
+                .field("release.tag_name", ExtractionPlan.Field.REF)
+                .field("release.name", ExtractionPlan.Field.TITLE)
+                .field("release.html_url", ExtractionPlan.Field.URL)
+                .build());
+    }
+}
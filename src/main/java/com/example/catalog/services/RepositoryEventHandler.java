@@ -0,0 +1,28 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RepositoryEventHandler implements GiteaEventHandler {
+
+    private static final ExtractionPlan PLAN = ExtractionPlan.withSenderAndRepository()
+            .field("action", ExtractionPlan.Field.ACTION)
+            .build();
+
+    @Override
+    public GiteaEventKind kind() {
+        return GiteaEventKind.REPOSITORY;
+    }
+
+    @Override
+    public ExtractionPlan extractionPlan() {
+        return PLAN;
+    }
+
+    @Override
+    public String eventType(WebhookEvent event) {
+        return event.action() != null ? "repo_" + event.action() : "repository";
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.catalog.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules delivery retries with exponential backoff and jitter on a {@link TimingWheel}, so
+ * waiting retries hold no threads. Deliveries to a destination whose circuit is open are parked on
+ * the same timer until the circuit lets a probe through, for up to {@code retry.max-park-ms} after
+ * the event was accepted, without using up their attempts.
+ */
+@Component
+public class RetryScheduler {
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final long maxParkNanos;
+    private final TimingWheel timingWheel;
+
+    public RetryScheduler(@Value("${retry.max-attempts:5}") int maxAttempts,
+                          @Value("${retry.initial-delay-ms:1000}") long initialDelayMillis,
+                          @Value("${retry.max-delay-ms:60000}") long maxDelayMillis,
+                          @Value("${retry.multiplier:2.0}") double multiplier,
+                          @Value("${retry.max-park-ms:3600000}") long maxParkMillis,
+                          @Value("${retry.timer.tick-ms:100}") long tickMillis,
+                          @Value("${retry.timer.wheel-size:512}") int wheelSize) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+        this.maxParkNanos = TimeUnit.MILLISECONDS.toNanos(maxParkMillis);
+        this.timingWheel = new TimingWheel("retry-timer", tickMillis, wheelSize);
+    }
+
+    /**
+     * Whether a delivery that just failed on the given attempt (1-based) may be tried again.
+     */
+    public boolean canRetry(int failedAttempt) {
+        return failedAttempt < maxAttempts;
+    }
+
+    /**
+     * Backoff before the attempt after {@code failedAttempt}: the exponential delay, capped at the
+     * maximum, with the upper half randomized so retries of a burst do not fire together.
+     */
+    public long backoffMillis(int failedAttempt) {
+        double exponential = initialDelayMillis * Math.pow(multiplier, failedAttempt - 1);
+        long capped = (long) Math.min(maxDelayMillis, exponential);
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Runs the retry after the backoff for {@code failedAttempt}. The task runs on the timer thread
+     * and must only re-queue the delivery.
+     */
+    public void scheduleRetry(int failedAttempt, Runnable retry) {
+        timingWheel.schedule(retry, backoffMillis(failedAttempt), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether a delivery of an event accepted at {@code acceptedAtNanos} may still be parked.
+     */
+    public boolean canPark(long acceptedAtNanos) {
+        return System.nanoTime() - acceptedAtNanos < maxParkNanos;
+    }
+
+    /**
+     * Runs the parked delivery once {@code delayNanos} are over, plus the jittered first backoff so
+     * parked deliveries do not all come back at the same moment.
+     */
+    public void schedulePark(long delayNanos, Runnable retry) {
+        timingWheel.schedule(retry, TimeUnit.NANOSECONDS.toMillis(delayNanos) + backoffMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    public int getScheduledCount() {
+        return timingWheel.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+    }
+}
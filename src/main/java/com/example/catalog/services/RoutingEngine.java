@@ -0,0 +1,295 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.RoutingRule;
+import com.example.catalog.model.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Decides which destinations an event goes to, from the {@code routing.rules[n].*} rules.
+ * <p>
+ * The rules are compiled at startup into one index per condition. Each index maps a value to the
+ * bitmask of rules that accept it, plus a mask of rules that do not constrain that condition.
+ * Routing an event is one hash lookup per condition (a trie walk for branch globs) and a few
+ * word-wide ANDs, independent of how many rules there are. Destinations come back in rule order
+ * without duplicates.
+ * <p>
+ * Without configured rules the original routing applies: the common repository goes to
+ * {@code general}, the target user's events to {@code my-events}.
+ * <p>
+ * The compiled rules and the webhook URLs of the Discord destinations they send to form one
+ * immutable routing table, published through a single atomic reference: {@link #replace} swaps in
+ * a new table while events are being routed and delivered, without locking, and nobody sees the
+ * rules of one configuration with the URLs of another.
+ */
+@Component
+@RegisterReflectionForBinding(RoutingRule.class)
+public class RoutingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingEngine.class);
+
+    public static final List<RoutingRule> DEFAULT_RULES = List.of(
+            new RoutingRule(List.of("giteaFinalProject"), null, null, null, null, List.of(DiscordNotifier.DESTINATION_GENERAL)),
+            new RoutingRule(null, null, List.of("moslem"), null, null, List.of(DiscordNotifier.DESTINATION_MY_EVENTS)));
+
+    /**
+     * Compiled rules and the webhook URL of each Discord destination, published together.
+     */
+    private record RoutingTable(RuleSet rules, Map<String, String> webhookUrls) {
+    }
+
+    private final AtomicReference<RoutingTable> table;
+
+    @Autowired
+    public RoutingEngine(Environment environment) {
+        this(Binder.get(environment));
+    }
+
+    private RoutingEngine(Binder binder) {
+        this(rules(binder), DiscordNotifier.webhookUrls(binder), binder
+                .bind("email.destinations", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of())
+                .keySet());
+    }
+
+    /**
+     * Rules without any webhook URLs and without checking their destinations, for code constructed
+     * outside Spring (tests, benchmarks).
+     */
+    public RoutingEngine(List<RoutingRule> rules) {
+        this.table = new AtomicReference<>(new RoutingTable(new RuleSet(rules), Map.of()));
+        logger.info("Compiled {} routing rules", rules.size());
+    }
+
+    /**
+     * Compiles the rules together with the destinations they may send to.
+     *
+     * @throws IllegalArgumentException if a rule is invalid or sends to a destination that is
+     *                                  neither a Discord webhook nor an email destination.
+     */
+    public RoutingEngine(List<RoutingRule> rules, Map<String, String> webhookUrls, Set<String> emailDestinations) {
+        for (int i = 0; i < rules.size(); i++) {
+            for (String destination : rules.get(i).destinations()) {
+                if (!webhookUrls.containsKey(destination) && !emailDestinations.contains(destination)) {
+                    throw new IllegalArgumentException("Routing rule " + i + " sends to unknown destination " + destination);
+                }
+            }
+        }
+        this.table = new AtomicReference<>(new RoutingTable(new RuleSet(rules), Map.copyOf(webhookUrls)));
+        logger.info("Compiled {} routing rules for {} Discord destinations", rules.size(), webhookUrls.size());
+    }
+
+    /**
+     * The {@code routing.rules} bound from the given configuration, or {@link #DEFAULT_RULES}.
+     */
+    public static List<RoutingRule> rules(Binder binder) {
+        return binder.bind("routing.rules", Bindable.listOf(RoutingRule.class)).orElse(DEFAULT_RULES);
+    }
+
+    /**
+     * The destinations of every rule the event matches, in rule order; empty if none match.
+     */
+    public List<String> route(WebhookEvent event, String eventType) {
+        return table.get().rules().route(event, eventType);
+    }
+
+    /**
+     * The webhook URL of a Discord destination, or {@code null} if there is no such destination.
+     */
+    public String webhookUrl(String destination) {
+        return table.get().webhookUrls().get(destination);
+    }
+
+    public Map<String, String> getWebhookUrls() {
+        return table.get().webhookUrls();
+    }
+
+    /**
+     * Switches to the rules and destinations compiled by another engine in one step. Routing calls
+     * and sends already running finish with the table they started with.
+     *
+     * @return the webhook URLs in effect until now
+     */
+    public Map<String, String> replace(RoutingEngine compiled) {
+        return table.getAndSet(compiled.table.get()).webhookUrls();
+    }
+
+    /**
+     * Points one Discord destination at a new URL, keeping the rules.
+     */
+    void putWebhookUrl(String destination, String url) {
+        table.updateAndGet(current -> {
+            Map<String, String> urls = new HashMap<>(current.webhookUrls());
+            urls.put(destination, url);
+            return new RoutingTable(current.rules(), Map.copyOf(urls));
+        });
+    }
+
+    public int getRuleCount() {
+        return table.get().rules().ruleCount;
+    }
+
+    /**
+     * Branch or tag name of a ref: {@code refs/heads/main} becomes {@code main}. Create and
+     * delete events already carry the bare name.
+     */
+    static String branchName(String ref) {
+        if (ref == null) {
+            return null;
+        }
+        if (ref.startsWith("refs/heads/")) {
+            return ref.substring("refs/heads/".length());
+        }
+        if (ref.startsWith("refs/tags/")) {
+            return ref.substring("refs/tags/".length());
+        }
+        return ref;
+    }
+
+    static void set(long[] mask, int rule) {
+        mask[rule >>> 6] |= 1L << rule;
+    }
+
+    static boolean isSet(long[] mask, int rule) {
+        return (mask[rule >>> 6] & (1L << rule)) != 0;
+    }
+
+    static void or(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= bits[i];
+        }
+    }
+
+    static void and(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= bits[i];
+        }
+    }
+
+    /**
+     * One compiled, immutable set of rules.
+     */
+    private static final class RuleSet {
+
+        private final int ruleCount;
+        private final int words;
+        private final String[][] destinations;
+        private final ExactIndex eventTypes;
+        private final ExactIndex repos;
+        private final ExactIndex owners;
+        private final ExactIndex actors;
+        private final BranchPatternIndex branches;
+
+        RuleSet(List<RoutingRule> rules) {
+            this.ruleCount = rules.size();
+            this.words = Math.max(1, (ruleCount + 63) >>> 6);
+            this.destinations = new String[ruleCount][];
+            this.eventTypes = new ExactIndex(words);
+            this.repos = new ExactIndex(words);
+            this.owners = new ExactIndex(words);
+            this.actors = new ExactIndex(words);
+            this.branches = new BranchPatternIndex(words);
+            for (int i = 0; i < ruleCount; i++) {
+                RoutingRule rule = rules.get(i);
+                if (rule.destinations().isEmpty()) {
+                    throw new IllegalArgumentException("Routing rule " + i + " has no destinations");
+                }
+                destinations[i] = rule.destinations().toArray(new String[0]);
+                eventTypes.add(rule.eventTypes(), i);
+                repos.add(rule.repos(), i);
+                owners.add(rule.owners(), i);
+                actors.add(rule.actors(), i);
+                if (rule.branches().isEmpty()) {
+                    branches.addUnconstrained(i);
+                } else {
+                    for (String branch : rule.branches()) {
+                        branches.add(branch, i);
+                    }
+                }
+            }
+        }
+
+        List<String> route(WebhookEvent event, String eventType) {
+            long[] mask = new long[words];
+            for (int rule = 0; rule < ruleCount; rule += 64) {
+                int bits = Math.min(64, ruleCount - rule);
+                mask[rule >>> 6] = bits == 64 ? -1L : (1L << bits) - 1;
+            }
+            if (!eventTypes.retain(eventType, mask) || !repos.retain(event.repoName(), mask)
+                    || !owners.retain(event.owner(), mask) || !actors.retain(event.actor(), mask)) {
+                return List.of();
+            }
+            branches.retain(branchName(event.ref()), mask);
+
+            List<String> routed = new ArrayList<>(2);
+            for (int word = 0; word < words; word++) {
+                long bits = mask[word];
+                while (bits != 0) {
+                    int rule = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (String destination : destinations[rule]) {
+                        if (!routed.contains(destination)) {
+                            routed.add(destination);
+                        }
+                    }
+                }
+            }
+            return routed;
+        }
+    }
+
+    /**
+     * Exact-match condition: value to the rules listing it, plus the rules with no such condition.
+     */
+    private static final class ExactIndex {
+
+        private final Map<String, long[]> byValue = new HashMap<>();
+        private final long[] unconstrained;
+        private final int words;
+
+        ExactIndex(int words) {
+            this.words = words;
+            this.unconstrained = new long[words];
+        }
+
+        void add(List<String> values, int rule) {
+            if (values.isEmpty()) {
+                set(unconstrained, rule);
+                return;
+            }
+            Function<String, long[]> newMask = key -> new long[words];
+            for (String value : values) {
+                set(byValue.computeIfAbsent(value, newMask), rule);
+            }
+        }
+
+        /**
+         * Keeps in {@code mask} only the rules accepting {@code value}.
+         *
+         * @return whether any rule is left.
+         */
+        boolean retain(String value, long[] mask) {
+            long[] matching = value != null ? byValue.get(value) : null;
+            long any = 0;
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= unconstrained[i] | (matching != null ? matching[i] : 0);
+                any |= mask[i];
+            }
+            return any != 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.catalog.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel: one ticker thread advances a ring of buckets every tick and runs the tasks
+ * that fall due, so thousands of pending timers cost one thread and O(1) work to schedule instead
+ * of a sleeping thread or a heap operation each. Timers longer than one revolution wait out the
+ * extra revolutions in their bucket.
+ * <p>
+ * Tasks run on the ticker thread and must only hand work off (e.g. enqueue it), never block.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final long tickNanos;
+    private final Queue<Timer>[] buckets;
+    private final Queue<Timer> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickMillis, int wheelSize) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::run, name);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Runs the task on the ticker thread once the delay has passed, rounded up to the next tick.
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel is stopped");
+        }
+        incoming.add(new Timer(System.nanoTime() + unit.toNanos(delay), task));
+    }
+
+    /**
+     * Number of timers not yet fired. Only an estimate while the wheel is running.
+     */
+    public int size() {
+        int size = incoming.size();
+        for (Queue<Timer> bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            tick++;
+            placeIncoming();
+            expire(buckets[(int) (tick % buckets.length)]);
+        }
+    }
+
+    private void placeIncoming() {
+        Timer timer;
+        while ((timer = incoming.poll()) != null) {
+            long dueTick = Math.max(tick, (timer.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+            timer.remainingRounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick % buckets.length)].add(timer);
+        }
+    }
+
+    private void expire(Queue<Timer> bucket) {
+        Iterator<Timer> timers = bucket.iterator();
+        while (timers.hasNext()) {
+            Timer timer = timers.next();
+            if (timer.remainingRounds > 0) {
+                timer.remainingRounds--;
+                continue;
+            }
+            timers.remove();
+            try {
+                timer.task.run();
+            } catch (RuntimeException e) {
+                logger.error("Timer task failed", e);
+            }
+        }
+    }
+
+    private static final class Timer {
+        final long deadlineNanos;
+        final Runnable task;
+        long remainingRounds;
+
+        Timer(long deadlineNanos, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.catalog.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: the only state is the
+ * theoretical arrival time of the next request, advanced with a CAS. Callers reserve a slot and
+ * are told how long to wait before using it, so waiting never happens while holding a lock.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate and a burst of at least 1");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Reserves one permit.
+     *
+     * @return how many nanoseconds the caller must wait before the permit may be used; 0 if it is
+     * available immediately.
+     */
+    public long reserve() {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, now);
+            if (theoreticalArrival.compareAndSet(current, arrival + intervalNanos)) {
+                return Math.max(0, arrival - burstToleranceNanos - now);
+            }
+        }
+    }
+
+    /**
+     * Reserves one permit and waits until it may be used.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
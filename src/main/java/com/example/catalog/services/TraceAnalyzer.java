@@ -0,0 +1,208 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.LatencyBreakdown;
+import com.example.catalog.model.StageLatency;
+import com.example.catalog.model.TraceLatency;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a Flight Recorder recording with {@link WebhookStageEvent}s into a per-stage latency
+ * breakdown. Ingress stages are joined to delivery stages through the {@code enqueue} stage, which
+ * carries both the delivery ID and the journal sequence; the gap between queuing a webhook and a
+ * worker picking it up is reported as the {@code queued} stage.
+ * <p>
+ * Also runs from the command line, e.g. against the application jar:
+ * {@code java -cp app.jar -Dloader.main=com.example.catalog.services.TraceAnalyzer
+ * org.springframework.boot.loader.launch.PropertiesLauncher webhooks.jfr [slowest]}
+ */
+public final class TraceAnalyzer {
+
+    /** Derived stage: from the end of {@code enqueue} to the first delivery stage. */
+    public static final String STAGE_QUEUED = "queued";
+
+    private static final List<String> STAGE_ORDER = List.of(
+            WebhookStageEvent.STAGE_RESOLVE, WebhookStageEvent.STAGE_PARSE, WebhookStageEvent.STAGE_DEDUP,
+            WebhookStageEvent.STAGE_CLASSIFY, WebhookStageEvent.STAGE_ROUTE, WebhookStageEvent.STAGE_ADMIT, WebhookStageEvent.STAGE_ENQUEUE,
+            STAGE_QUEUED, WebhookStageEvent.STAGE_FORMAT, WebhookStageEvent.STAGE_SEND);
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The fields of one stage event; times in nanoseconds since the epoch.
+     */
+    private record Stage(String stage, String deliveryId, long sequence, String eventType, String repo,
+                         long startNanos, long durationNanos) {
+
+        long endNanos() {
+            return startNanos + durationNanos;
+        }
+    }
+
+    private static final class Trace {
+
+        private String deliveryId;
+        private long sequence;
+        private String eventType;
+        private String repo;
+        private long startNanos = Long.MAX_VALUE;
+        private long endNanos = Long.MIN_VALUE;
+        private long enqueuedNanos = -1;
+        private long firstDeliveryNanos = Long.MAX_VALUE;
+        private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+        Trace(String deliveryId) {
+            this.deliveryId = deliveryId;
+        }
+
+        void add(Stage stage) {
+            if (stage.eventType() != null) {
+                eventType = stage.eventType();
+            }
+            if (stage.repo() != null) {
+                repo = stage.repo();
+            }
+            startNanos = Math.min(startNanos, stage.startNanos());
+            endNanos = Math.max(endNanos, stage.endNanos());
+            stageNanos.merge(stage.stage(), stage.durationNanos(), Long::sum);
+        }
+    }
+
+    private TraceAnalyzer() {
+    }
+
+    /**
+     * Reads the recording and breaks the webhooks in it down by stage.
+     *
+     * @param slowest how many of the slowest webhooks to list
+     */
+    public static LatencyBreakdown analyze(Path recording, int slowest) throws IOException {
+        List<Stage> stages = new ArrayList<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (WebhookStageEvent.NAME.equals(event.getEventType().getName())) {
+                    stages.add(new Stage(event.getString("stage"), event.getString("deliveryId"),
+                            event.getLong("sequence"), event.getString("eventType"), event.getString("repo"),
+                            epochNanos(event.getStartTime()), event.getDuration().toNanos()));
+                }
+            }
+        }
+        return analyze(stages, slowest);
+    }
+
+    private static LatencyBreakdown analyze(List<Stage> stages, int slowest) {
+        Map<String, List<Long>> durations = new HashMap<>();
+        Map<String, Trace> byDeliveryId = new HashMap<>();
+        Map<Long, Trace> bySequence = new HashMap<>();
+        // Ingress first, so each delivery stage finds the trace its enqueue stage linked.
+        for (Stage stage : stages) {
+            durations.computeIfAbsent(stage.stage(), name -> new ArrayList<>()).add(stage.durationNanos());
+            if (stage.sequence() == 0 && stage.deliveryId() != null) {
+                byDeliveryId.computeIfAbsent(stage.deliveryId(), Trace::new).add(stage);
+            } else if (stage.stage().equals(WebhookStageEvent.STAGE_ENQUEUE)) {
+                Trace trace = stage.deliveryId() != null
+                        ? byDeliveryId.computeIfAbsent(stage.deliveryId(), Trace::new)
+                        : new Trace(null);
+                trace.sequence = stage.sequence();
+                trace.enqueuedNanos = stage.endNanos();
+                trace.add(stage);
+                bySequence.put(stage.sequence(), trace);
+            }
+        }
+        for (Stage stage : stages) {
+            if (stage.sequence() > 0 && !stage.stage().equals(WebhookStageEvent.STAGE_ENQUEUE)) {
+                Trace trace = bySequence.computeIfAbsent(stage.sequence(), sequence -> {
+                    // Queued before the recording started, or replayed from the journal.
+                    Trace replayed = new Trace(null);
+                    replayed.sequence = sequence;
+                    return replayed;
+                });
+                trace.add(stage);
+                trace.firstDeliveryNanos = Math.min(trace.firstDeliveryNanos, stage.startNanos());
+            }
+        }
+        for (Trace trace : bySequence.values()) {
+            if (trace.enqueuedNanos >= 0 && trace.firstDeliveryNanos != Long.MAX_VALUE) {
+                long queued = Math.max(0, trace.firstDeliveryNanos - trace.enqueuedNanos);
+                trace.stageNanos.put(STAGE_QUEUED, queued);
+                durations.computeIfAbsent(STAGE_QUEUED, name -> new ArrayList<>()).add(queued);
+            }
+        }
+
+        List<StageLatency> stageLatencies = new ArrayList<>();
+        durations.keySet().stream()
+                .sorted(Comparator.comparingInt((String stage) -> STAGE_ORDER.indexOf(stage) < 0
+                        ? Integer.MAX_VALUE : STAGE_ORDER.indexOf(stage)).thenComparing(stage -> stage))
+                .forEach(stage -> stageLatencies.add(latency(stage, durations.get(stage))));
+
+        List<TraceLatency> slowestTraces = new ArrayList<>();
+        List<Trace> traces = new ArrayList<>(byDeliveryId.values());
+        bySequence.values().stream().filter(trace -> trace.deliveryId == null).forEach(traces::add);
+        traces.stream()
+                .sorted(Comparator.comparingLong((Trace trace) -> trace.endNanos - trace.startNanos).reversed())
+                .limit(slowest)
+                .forEach(trace -> slowestTraces.add(traceLatency(trace)));
+        return new LatencyBreakdown(stages.size(), stageLatencies, slowestTraces);
+    }
+
+    private static StageLatency latency(String stage, List<Long> durations) {
+        long[] sorted = durations.stream().mapToLong(Long::longValue).sorted().toArray();
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        return new StageLatency(stage, sorted.length, mean / NANOS_PER_MILLI,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Nearest-rank percentile, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / NANOS_PER_MILLI;
+    }
+
+    private static TraceLatency traceLatency(Trace trace) {
+        Map<String, Double> stageMillis = new LinkedHashMap<>();
+        STAGE_ORDER.stream()
+                .filter(trace.stageNanos::containsKey)
+                .forEach(stage -> stageMillis.put(stage, trace.stageNanos.get(stage) / NANOS_PER_MILLI));
+        return new TraceLatency(trace.deliveryId, trace.sequence, trace.eventType, trace.repo,
+                (trace.endNanos - trace.startNanos) / NANOS_PER_MILLI, stageMillis);
+    }
+
+    private static long epochNanos(Instant instant) {
+        return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceAnalyzer <recording.jfr> [slowest]");
+            System.exit(2);
+        }
+        LatencyBreakdown breakdown = analyze(Path.of(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 10);
+        System.out.printf("%d stage events%n%n", breakdown.events());
+        System.out.printf("%-10s %8s %10s %10s %10s %10s %10s%n", "stage", "count", "mean ms", "p50 ms", "p95 ms",
+                "p99 ms", "max ms");
+        for (StageLatency stage : breakdown.stages()) {
+            System.out.printf("%-10s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", stage.stage(), stage.count(),
+                    stage.meanMillis(), stage.p50Millis(), stage.p95Millis(), stage.p99Millis(), stage.maxMillis());
+        }
+        System.out.printf("%nSlowest webhooks:%n");
+        for (TraceLatency trace : breakdown.slowest()) {
+            System.out.printf("%10.3f ms  %s #%d %s %s  %s%n", trace.totalMillis(), trace.deliveryId(),
+                    trace.sequence(), trace.eventType(), trace.repo(), trace.stageMillis());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.LatencyBreakdown;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-demand Flight Recorder recordings of {@link WebhookStageEvent}s. A recording runs for the
+ * requested time, at most {@code tracing.recording.max-seconds}, and is written to
+ * {@code tracing.recording.dir} when it ends or is stopped early. Outside a recording the stage
+ * events cost next to nothing.
+ */
+@Component
+public class TraceRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorder.class);
+
+    private final Path directory;
+    private final long maxSeconds;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public TraceRecorder(@Value("${tracing.recording.dir:data/recordings}") String directory,
+                         @Value("${tracing.recording.max-seconds:600}") long maxSeconds) {
+        this.directory = Path.of(directory);
+        this.maxSeconds = maxSeconds;
+    }
+
+    /**
+     * Starts recording webhook stages.
+     *
+     * @return the recording's ID
+     * @throws IllegalArgumentException if {@code seconds} is not between 1 and the maximum
+     */
+    public long start(long seconds) {
+        if (seconds < 1 || seconds > maxSeconds) {
+            throw new IllegalArgumentException("A recording lasts 1 to " + maxSeconds + " seconds");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create " + directory, e);
+        }
+        Recording recording = new Recording();
+        recording.enable(WebhookStageEvent.NAME).withoutStackTrace();
+        recording.setName("webhook-stages");
+        recording.setToDisk(true);
+        recording.setDuration(Duration.ofSeconds(seconds));
+        try {
+            recording.setDestination(directory.resolve("webhook-stages-" + recording.getId() + ".jfr"));
+        } catch (IOException e) {
+            recording.close();
+            throw new UncheckedIOException(e);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        logger.info("Recording webhook stages for {} s to {}", seconds, recording.getDestination());
+        return recording.getId();
+    }
+
+    /**
+     * Stops the recording if it is still running.
+     *
+     * @return the recording file
+     * @throws NoSuchElementException if there is no such recording
+     */
+    public Path stop(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new NoSuchElementException("No recording " + id);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        Path file = recording.getDestination();
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Recording " + id + " has no data yet");
+        }
+        return file;
+    }
+
+    /**
+     * Stops the recording if it is still running and breaks it down by stage.
+     */
+    public LatencyBreakdown breakdown(long id, int slowest) {
+        try {
+            return TraceAnalyzer.analyze(stop(id), slowest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read recording " + id, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recordings.values().forEach(Recording::close);
+    }
+}
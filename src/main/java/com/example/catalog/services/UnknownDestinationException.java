@@ -0,0 +1,13 @@
+package com.example.catalog.services;
+
+/**
+ * Thrown for a destination that is not configured, e.g. one removed by a config reload while
+ * notifications for it were still queued. Retrying cannot help, so the notification is
+ * dead-lettered at once.
+ */
+public class UnknownDestinationException extends DeliveryException {
+
+    public UnknownDestinationException(String destination) {
+        super("Unknown destination " + destination, -1);
+    }
+}
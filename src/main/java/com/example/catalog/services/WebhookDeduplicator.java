@@ -0,0 +1,117 @@
+package com.example.catalog.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers recently seen webhook deliveries so Gitea redeliveries are not notified twice.
+ * Entries expire on their own after the dedup window and the total number of entries is capped,
+ * so memory stays bounded on long-running instances.
+ * <p>
+ * Exposes {@code webhook.dedup.lookups{result=hit|miss}}, {@code webhook.dedup.hit.ratio} and
+ * {@code webhook.dedup.size} as metrics.
+ */
+@Component
+public class WebhookDeduplicator implements MeterBinder {
+
+    private static final HashFunction BODY_HASH = Hashing.murmur3_128();
+
+    private final Cache<String, Boolean> recentDeliveries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public WebhookDeduplicator(@Value("${webhook.dedup.window-seconds:5}") long windowSeconds,
+                               @Value("${webhook.dedup.max-entries:100000}") long maxEntries) {
+        this.recentDeliveries = CacheBuilder.newBuilder()
+                .expireAfterWrite(windowSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Builds the dedup key for a delivery: Gitea's delivery ID when present, otherwise a
+     * 128-bit hash of the raw request body.
+     */
+    public String deliveryKey(String deliveryId, byte[] body) {
+        if (deliveryId != null && !deliveryId.isBlank()) {
+            return "id:" + deliveryId;
+        }
+        return "body:" + BODY_HASH.hashBytes(body);
+    }
+
+    /**
+     * Atomically records the key if it has not been seen within the dedup window.
+     *
+     * @return {@code true} for a new delivery, {@code false} for a duplicate.
+     */
+    public boolean markIfAbsent(String key) {
+        if (recentDeliveries.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+            misses.increment();
+            return true;
+        }
+        hits.increment();
+        return false;
+    }
+
+    /**
+     * Forgets a key so a redelivery is accepted, e.g. when the first attempt could not be queued.
+     */
+    public void forget(String key) {
+        recentDeliveries.invalidate(key);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return recentDeliveries.stats().evictionCount();
+    }
+
+    public long size() {
+        return recentDeliveries.size();
+    }
+
+    /**
+     * Share of lookups that were duplicates, or 0 before the first lookup.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("webhook.dedup.lookups", hits, LongAdder::sum)
+                .description("Dedup lookups by whether the delivery had been seen before")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("webhook.dedup.lookups", misses, LongAdder::sum)
+                .description("Dedup lookups by whether the delivery had been seen before")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("webhook.dedup.hit.ratio", this, WebhookDeduplicator::getHitRatio)
+                .description("Share of dedup lookups that were duplicates")
+                .register(registry);
+        Gauge.builder("webhook.dedup.size", this, WebhookDeduplicator::size)
+                .description("Number of deliveries remembered in the dedup window")
+                .register(registry);
+    }
+}
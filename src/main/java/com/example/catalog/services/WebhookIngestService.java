@@ -0,0 +1,196 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.IngestResult;
+import com.example.catalog.model.WebhookEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Runs one webhook delivery through the pipeline: size check, handler lookup, field extraction,
+ * deduplication, classification, validation, routing, {@link AdmissionControl} and hand-off to the
+ * {@link NotificationDispatcher}. Shared by
+ * the single webhook endpoint and the NDJSON bulk endpoint, so both treat an event the same way.
+ * Every routed event is kept in the {@link EventHistory} with its outcome, and each stage is
+ * recorded as a {@link WebhookStageEvent} for Flight Recorder.
+ */
+@Service
+public class WebhookIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookIngestService.class);
+    /** Event type tag for webhooks rejected before they could be classified. */
+    private static final String UNCLASSIFIED = "none";
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final NotificationDispatcher notificationDispatcher;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final WebhookPayloadExtractor payloadExtractor;
+    private final GiteaEventRegistry eventRegistry;
+    private final RoutingEngine routingEngine;
+    private final AdmissionControl admissionControl;
+    private final EventHistory eventHistory;
+    private final PipelineMetrics metrics;
+
+    public WebhookIngestService(NotificationDispatcher notificationDispatcher,
+                                WebhookDeduplicator webhookDeduplicator,
+                                WebhookPayloadExtractor payloadExtractor,
+                                GiteaEventRegistry eventRegistry,
+                                RoutingEngine routingEngine,
+                                AdmissionControl admissionControl,
+                                EventHistory eventHistory,
+                                PipelineMetrics metrics) {
+        this.notificationDispatcher = notificationDispatcher;
+        this.webhookDeduplicator = webhookDeduplicator;
+        this.payloadExtractor = payloadExtractor;
+        this.eventRegistry = eventRegistry;
+        this.routingEngine = routingEngine;
+        this.admissionControl = admissionControl;
+        this.eventHistory = eventHistory;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ingests one delivery.
+     *
+     * @param giteaDeliveryId the {@code X-Gitea-Delivery} header, or {@code null}
+     * @param giteaEvent      the {@code X-Gitea-Event} header, or {@code null}
+     * @param giteaEventType  the {@code X-Gitea-Event-Type} header, or {@code null}
+     * @param body            the raw payload, possibly {@code null} or empty
+     */
+    public IngestResult ingest(String giteaDeliveryId, String giteaEvent, String giteaEventType, byte[] body) {
+        String deliveryId = null;
+        boolean firstDelivery = false;
+        try {
+            if (body != null) {
+                metrics.recordPayloadSize(body.length);
+            }
+            if (payloadExtractor.exceedsMaxBodySize(body)) {
+                logger.warn("Received oversized webhook payload of {} bytes.", body.length);
+                metrics.recordEvent(UNCLASSIFIED, "too_large");
+                return tooLarge();
+            }
+            // Keyed up front, so every stage of a webhook without X-Gitea-Delivery carries the same trace ID.
+            deliveryId = webhookDeduplicator.deliveryKey(giteaDeliveryId, body == null ? EMPTY_BODY : body);
+            String traceId = giteaDeliveryId == null || giteaDeliveryId.isBlank() ? deliveryId : giteaDeliveryId;
+            long stageStart = System.nanoTime();
+            WebhookStageEvent stage = WebhookStageEvent.start();
+            GiteaEventHandler eventHandler = eventRegistry.resolve(giteaEvent, giteaEventType);
+            stage.finish(WebhookStageEvent.STAGE_RESOLVE, traceId, 0, null, null, null);
+            metrics.recordStage(PipelineMetrics.STAGE_RESOLVE, stageStart);
+            WebhookEvent event;
+            stageStart = System.nanoTime();
+            stage = WebhookStageEvent.start();
+            try {
+                event = payloadExtractor.extract(body, eventHandler.extractionPlan());
+            } catch (JsonProcessingException e) {
+                logger.warn("Received malformed webhook payload.");
+                metrics.recordEvent(UNCLASSIFIED, "malformed");
+                return new IngestResult(HttpStatus.BAD_REQUEST.value(), "Invalid payload: Malformed JSON.");
+            }
+            stage.finish(WebhookStageEvent.STAGE_PARSE, traceId, 0, null, null, null);
+            metrics.recordStage(PipelineMetrics.STAGE_PARSE, stageStart);
+            if (event == null) {
+                logger.warn("Received empty webhook payload.");
+                metrics.recordEvent(UNCLASSIFIED, "empty");
+                return new IngestResult(HttpStatus.BAD_REQUEST.value(), "Invalid payload: Request body is empty.");
+            }
+
+            stage = WebhookStageEvent.start();
+            firstDelivery = webhookDeduplicator.markIfAbsent(deliveryId);
+            stage.finish(WebhookStageEvent.STAGE_DEDUP, traceId, 0, null, event.repoName(), null);
+            if (!firstDelivery) {
+                logger.info("Duplicate webhook detected and ignored: {}", deliveryId);
+                metrics.recordEvent(UNCLASSIFIED, "duplicate");
+                return new IngestResult(HttpStatus.OK.value(), "Duplicate webhook ignored");
+            }
+
+            String actor = getActor(event);
+            String repoName = getRepoName(event);
+            stageStart = System.nanoTime();
+            stage = WebhookStageEvent.start();
+            String eventType = eventHandler.eventType(event);
+            stage.finish(WebhookStageEvent.STAGE_CLASSIFY, traceId, 0, eventType, event.repoName(), null);
+            metrics.recordStage(PipelineMetrics.STAGE_CLASSIFY, stageStart);
+
+            if (actor.equals("Unknown User") || repoName.equals("Unknown Repo")) {
+                logger.warn("Invalid webhook payload: Missing actor or repository name.");
+                metrics.recordEvent(eventType, "invalid");
+                return new IngestResult(HttpStatus.BAD_REQUEST.value(), "Invalid webhook payload: Missing required fields.");
+            }
+
+            stageStart = System.nanoTime();
+            stage = WebhookStageEvent.start();
+            List<String> destinations = routingEngine.route(event, eventType);
+            stage.finish(WebhookStageEvent.STAGE_ROUTE, traceId, 0, eventType, repoName, null);
+            metrics.recordStage(PipelineMetrics.STAGE_ROUTE, stageStart);
+            if (destinations.isEmpty()) {
+                logger.info("No destination follows event {} in {}, nothing to deliver.", eventType, repoName);
+                record(event, eventType, destinations, "unrouted");
+                return accepted();
+            }
+
+            stage = WebhookStageEvent.start();
+            boolean admitted = admissionControl.admit(eventType);
+            stage.finish(WebhookStageEvent.STAGE_ADMIT, traceId, 0, eventType, repoName, null);
+            if (!admitted) {
+                logger.warn("Delivery backlog too long, shedding {} event.", eventType);
+                webhookDeduplicator.forget(deliveryId);
+                record(event, eventType, destinations, "shed");
+                return new IngestResult(HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "Delivery backlog is too long for this event, try again later.",
+                        admissionControl.getRetryAfterSeconds());
+            }
+            if (!notificationDispatcher.dispatch(event, eventType, destinations, traceId)) {
+                webhookDeduplicator.forget(deliveryId);
+                record(event, eventType, destinations, "rejected");
+                return new IngestResult(HttpStatus.SERVICE_UNAVAILABLE.value(), "Delivery queue is full, try again later.",
+                        admissionControl.getRetryAfterSeconds());
+            }
+            logger.info("Webhook accepted for delivery for event: {}", eventType);
+            record(event, eventType, destinations, "accepted");
+
+            return accepted();
+
+        } catch (Exception e) {
+            logger.error("Error processing webhook", e);
+            if (firstDelivery) {
+                // Nothing was handed off, so Gitea's redelivery must not be taken for a duplicate.
+                webhookDeduplicator.forget(deliveryId);
+            }
+            return new IngestResult(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error processing webhook");
+        }
+    }
+
+    /**
+     * Result for a payload over the size limit, for callers that reject it before reading it whole.
+     */
+    public IngestResult tooLarge() {
+        return new IngestResult(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Invalid payload: Request body exceeds " + payloadExtractor.getMaxBodyBytes() + " bytes.");
+    }
+
+    public int getMaxBodyBytes() {
+        return payloadExtractor.getMaxBodyBytes();
+    }
+
+    private void record(WebhookEvent event, String eventType, List<String> destinations, String outcome) {
+        metrics.recordEvent(eventType, outcome);
+        eventHistory.record(event, eventType, destinations, outcome);
+    }
+
+    private static IngestResult accepted() {
+        return new IngestResult(HttpStatus.ACCEPTED.value(), "Webhook accepted for delivery");
+    }
+
+    private String getActor(WebhookEvent event) {
+        return event.actor() != null ? event.actor() : "Unknown User";
+    }
+
+    private String getRepoName(WebhookEvent event) {
+        return event.repoName() != null ? event.repoName() : "Unknown Repo";
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns a classified webhook event into the Discord message text.
+ * <p>
+ * Each event type has a {@link MessageTemplate}, compiled once at startup. The built-in templates
+ * can be overridden, and templates for new event types added, with
+ * {@code notifier.templates.<eventType>=...} properties; event types without a template use
+ * {@code notifier.templates.default}.
+ */
+@Component
+public class WebhookMessageFormatter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookMessageFormatter.class);
+    public static final String TEMPLATES_PREFIX = "notifier.templates";
+    public static final String DEFAULT_TEMPLATE = "default";
+
+    private static final Map<String, String> BUILT_IN_TEMPLATES = builtInTemplates();
+
+    private final Map<String, MessageTemplate> templates;
+    private final MessageTemplate defaultTemplate;
+
+    public WebhookMessageFormatter() {
+        this(Map.of());
+    }
+
+    @Autowired
+    public WebhookMessageFormatter(Environment environment) {
+        this(Binder.get(environment)
+                .bind(TEMPLATES_PREFIX, Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of()));
+    }
+
+    public WebhookMessageFormatter(Map<String, String> templateOverrides) {
+        Map<String, String> sources = new LinkedHashMap<>(BUILT_IN_TEMPLATES);
+        sources.putAll(templateOverrides);
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        sources.forEach((eventType, source) -> compiled.put(eventType, MessageTemplate.compile(source)));
+        this.templates = Map.copyOf(compiled);
+        this.defaultTemplate = templates.get(DEFAULT_TEMPLATE);
+        if (!templateOverrides.isEmpty()) {
+            logger.info("Loaded message template overrides for {}", templateOverrides.keySet());
+        }
+    }
+
+    /**
+     * Renders the Discord message for an event that has already been validated and classified.
+     */
+    public String format(WebhookEvent event, String eventType) {
+        return templates.getOrDefault(eventType, defaultTemplate).render(event, eventType);
+    }
+
+    private static Map<String, String> builtInTemplates() {
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put("push", "🚀 **Push Event** by **{actor}** in **{repo}**\n🔹 **Branch:** {ref}");
+        templates.put("create_branch", "🌿 **New Branch Created** by **{actor}** in **{repo}**\n🔹 **Branch:** {ref}");
+        templates.put("delete_branch", "❌ **Branch Deleted** by **{actor}** in **{repo}**\n🗑️ **Branch:** {ref}");
+        templates.put("create_tag", "🏷️ **New Tag Created** by **{actor}** in **{repo}**\n🔹 **Tag:** {ref}");
+        templates.put("delete_tag", "🗑️ **Tag Deleted** by **{actor}** in **{repo}**\n🚫 **Tag:** {ref}");
+        templates.put("repo_created", "📁 **New Repository Created** by **{actor}**\n🔹 **Repository:** {repo}");
+        templates.put("repo_deleted", "🚨 **Repository Deleted** by **{actor}**\n🗑️ **Repository:** {repo}");
+        templates.put("pull_request_opened", "🔀 **Pull Request #{number} Opened** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("pull_request_closed", "🔒 **Pull Request #{number} Closed** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("pull_request_reopened", "🔁 **Pull Request #{number} Reopened** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("pull_request_comment_created", "💬 **{actor}** commented on pull request **#{number}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("issues_opened", "🐛 **Issue #{number} Opened** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("issues_closed", "✅ **Issue #{number} Closed** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("issues_reopened", "🔁 **Issue #{number} Reopened** by **{actor}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("issue_comment_created", "💬 **{actor}** commented on issue **#{number}** in **{repo}**\n🔹 **{title}**\n{url}");
+        templates.put("release_published", "📦 **Release {title} Published** by **{actor}** in **{repo}**\n🔹 **Tag:** {ref}\n{url}");
+        templates.put(DEFAULT_TEMPLATE, "⚡ **Unhandled Event** in **{repo}** by **{actor}**.");
+        return templates;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.catalog.services;
+
+import com.example.catalog.model.WebhookEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Pulls the fields the notifier needs out of a raw Gitea webhook body with a streaming
+ * {@link JsonParser}. Sub-trees the notifier does not read (commits, file lists, author blocks, ...)
+ * are skipped token by token and never materialized.
+ */
+@Component
+public class WebhookPayloadExtractor {
+
+    private final JsonFactory jsonFactory;
+    private final int maxBodyBytes;
+
+    public WebhookPayloadExtractor(ObjectMapper objectMapper,
+                                   @Value("${webhook.max-body-bytes:5242880}") int maxBodyBytes) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public boolean exceedsMaxBodySize(byte[] body) {
+        return body != null && body.length > maxBodyBytes;
+    }
+
+    /**
+     * Extracts the webhook event from the raw body, guessing which fields matter from the payload
+     * shape. Used when the request carries no event header.
+     *
+     * @see #extract(byte[], ExtractionPlan)
+     */
+    public WebhookEvent extract(byte[] body) throws IOException {
+        return extract(body, GiteaEventRegistry.PAYLOAD_SHAPE_HANDLER.extractionPlan());
+    }
+
+    /**
+     * Extracts the fields named by the plan from the raw body; everything else is skipped.
+     *
+     * @return the extracted event, or {@code null} if the body is empty, {@code null} or {@code {}}.
+     * @throws IOException if the body is not a well-formed JSON object.
+     */
+    public WebhookEvent extract(byte[] body, ExtractionPlan plan) throws IOException {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken root = parser.nextToken();
+            if (root == null || root == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (root != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Webhook payload must be a JSON object");
+            }
+            String[] values = new String[ExtractionPlan.Field.values().length];
+            if (readObject(parser, plan.root(), values) == 0) {
+                return null;
+            }
+            // Reject trailing garbage the same way full binding would.
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after webhook payload");
+            }
+            return new WebhookEvent(value(values, ExtractionPlan.Field.ACTOR), value(values, ExtractionPlan.Field.REPO),
+                    value(values, ExtractionPlan.Field.REF), value(values, ExtractionPlan.Field.BEFORE),
+                    value(values, ExtractionPlan.Field.AFTER), value(values, ExtractionPlan.Field.REF_TYPE),
+                    value(values, ExtractionPlan.Field.PUSHER_TYPE), value(values, ExtractionPlan.Field.ACTION),
+                    value(values, ExtractionPlan.Field.TITLE), value(values, ExtractionPlan.Field.NUMBER),
+                    value(values, ExtractionPlan.Field.URL), value(values, ExtractionPlan.Field.OWNER));
+        }
+    }
+
+    /**
+     * Walks the object the parser is positioned on, capturing the fields in the plan node and
+     * skipping everything else.
+     *
+     * @return the number of fields in the object.
+     */
+    private static int readObject(JsonParser parser, ExtractionPlan.Node node, String[] values) throws IOException {
+        int fieldCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            fieldCount++;
+            ExtractionPlan.Node child = node.child(name);
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.field() != null) {
+                values[child.field().ordinal()] = readText(parser);
+            } else if (parser.currentToken() == JsonToken.START_OBJECT) {
+                readObject(parser, child, values);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fieldCount;
+    }
+
+    private static String value(String[] values, ExtractionPlan.Field field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * Reads the current scalar value as text. Structured values are skipped and reported as an
+     * empty string so callers can still tell the field was present.
+     */
+    private static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getText();
+    }
+}
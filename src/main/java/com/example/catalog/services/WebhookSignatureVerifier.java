@@ -0,0 +1,130 @@
+package com.example.catalog.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Checks Gitea's {@code X-Gitea-Signature}, the hex HMAC-SHA256 of the raw request body under the
+ * webhook secret. Several secrets can be configured in {@code webhook.signature.secrets} so a
+ * secret can be rotated without dropping deliveries; with none configured, verification is off.
+ * <p>
+ * Initialised {@link Mac} instances are pooled and reused rather than kept per thread: with virtual
+ * threads every request runs on a new thread, so a thread-local instance would never be reused.
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSignatureVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 32;
+
+    private final MacPool[] pools;
+
+    public WebhookSignatureVerifier(@Value("${webhook.signature.secrets:}") List<String> secrets) {
+        this.pools = secrets.stream()
+                .filter(secret -> !secret.isBlank())
+                .map(MacPool::new)
+                .toArray(MacPool[]::new);
+        if (pools.length == 0) {
+            logger.warn("No webhook.signature.secrets configured, webhook signatures are not verified.");
+        } else {
+            logger.info("Verifying webhook signatures against {} secrets", pools.length);
+        }
+    }
+
+    public boolean isEnabled() {
+        return pools.length > 0;
+    }
+
+    public boolean verify(byte[] body, String signatureHex) {
+        return verify(body, 0, body.length, signatureHex);
+    }
+
+    /**
+     * Checks the signature of {@code length} bytes of {@code body} starting at {@code offset}.
+     *
+     * @return {@code true} if any configured secret produces the signature. A missing or malformed
+     * signature fails without computing any HMAC.
+     */
+    public boolean verify(byte[] body, int offset, int length, String signatureHex) {
+        byte[] expected = decodeHex(signatureHex);
+        if (expected == null) {
+            return false;
+        }
+        for (MacPool pool : pools) {
+            if (MessageDigest.isEqual(expected, pool.sign(body, offset, length))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes a 64-character hex signature, or returns {@code null} if it is not one.
+     */
+    private static byte[] decodeHex(String hex) {
+        if (hex == null || hex.length() != SIGNATURE_BYTES * 2) {
+            return null;
+        }
+        byte[] bytes = new byte[SIGNATURE_BYTES];
+        for (int i = 0; i < SIGNATURE_BYTES; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * Reusable {@link Mac} instances for one secret. New instances are cloned from an initialised
+     * prototype, which skips the provider lookup and key setup.
+     */
+    private static final class MacPool {
+
+        private final Mac prototype;
+        private final ConcurrentLinkedQueue<Mac> idle = new ConcurrentLinkedQueue<>();
+
+        private MacPool(String secret) {
+            try {
+                prototype = Mac.getInstance(ALGORITHM);
+                prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not initialise " + ALGORITHM, e);
+            }
+        }
+
+        byte[] sign(byte[] body, int offset, int length) {
+            Mac mac = idle.poll();
+            if (mac == null) {
+                mac = newMac();
+            }
+            try {
+                mac.update(body, offset, length);
+                return mac.doFinal();
+            } finally {
+                idle.offer(mac);
+            }
+        }
+
+        private Mac newMac() {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(ALGORITHM + " does not support cloning", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.catalog.services;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for one stage of a webhook on its way to a destination. Ingress stages
+ * carry the delivery ID; delivery stages carry the journal sequence, and the {@code enqueue} stage
+ * carries both, so {@link TraceAnalyzer} can follow a webhook end to end.
+ * <p>
+ * Use {@link #start()} before the stage and {@link #finish} after it. While no recording has the
+ * event enabled, {@code shouldCommit()} is false, the fields are never set and the JIT removes the
+ * event altogether.
+ */
+@Name(WebhookStageEvent.NAME)
+@Label("Webhook Stage")
+@Category({"Gitea Notifier", "Pipeline"})
+@Description("One stage of a webhook delivery")
+@StackTrace(false)
+public class WebhookStageEvent extends Event {
+
+    public static final String NAME = "com.example.catalog.WebhookStage";
+
+    public static final String STAGE_RESOLVE = "resolve";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_DEDUP = "dedup";
+    public static final String STAGE_CLASSIFY = "classify";
+    public static final String STAGE_ROUTE = "route";
+    public static final String STAGE_ADMIT = "admit";
+    public static final String STAGE_ENQUEUE = "enqueue";
+    public static final String STAGE_FORMAT = "format";
+    public static final String STAGE_SEND = "send";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Delivery ID")
+    @Description("X-Gitea-Delivery header, or the payload hash without one")
+    String deliveryId;
+
+    @Label("Sequence")
+    @Description("Outbox journal sequence, 0 before the event is queued")
+    long sequence;
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Repository")
+    String repo;
+
+    @Label("Destination")
+    String destination;
+
+    public static WebhookStageEvent start() {
+        WebhookStageEvent event = new WebhookStageEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the stage and commits it if a recording wants it. Any argument may be {@code null}.
+     */
+    public void finish(String stage, String deliveryId, long sequence, String eventType, String repo, String destination) {
+        end();
+        if (shouldCommit()) {
+            this.stage = stage;
+            this.deliveryId = deliveryId;
+            this.sequence = sequence;
+            this.eventType = eventType;
+            this.repo = repo;
+            this.destination = destination;
+            commit();
+        }
+    }
+}
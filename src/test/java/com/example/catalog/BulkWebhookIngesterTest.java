@@ -0,0 +1,208 @@
+package com.example.catalog;
+
+import com.example.catalog.services.AdmissionControl;
+import com.example.catalog.services.BulkWebhookIngester;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.DestinationBulkheads;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.EventHistory;
+import com.example.catalog.services.EventPriorities;
+import com.example.catalog.services.NotificationDigest;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.NotificationDispatcher.OverflowPolicy;
+import com.example.catalog.services.OutboxJournal;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RetryScheduler;
+import com.example.catalog.services.RoutingEngine;
+import com.example.catalog.services.WebhookDeduplicator;
+import com.example.catalog.services.WebhookIngestService;
+import com.example.catalog.services.WebhookMessageFormatter;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import com.example.catalog.services.WebhookSignatureVerifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkWebhookIngesterTest {
+
+    private static final String PUSH = "{\"ref\":\"refs/heads/main\",\"before\":\"a\",\"after\":\"b\","
+            + "\"sender\":{\"login\":\"moslem\"},\"repository\":{\"name\":\"giteaFinalProject\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private NotificationDispatcher notificationDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        notificationDispatcher = mock(NotificationDispatcher.class);
+        when(notificationDispatcher.dispatch(any(), anyString(), anyList(), any())).thenReturn(true);
+        when(notificationDispatcher.getQueueCapacity()).thenReturn(10);
+    }
+
+    @Test
+    void testIngest_AnswersEveryLineInOrder() throws IOException {
+        String envelope = "{\"delivery\":\"pr-1\",\"event\":\"pull_request\",\"payload\":{\"action\":\"opened\",\"number\":7,"
+                + "\"pull_request\":{\"title\":\"Add bulk ingest\"},\"sender\":{\"login\":\"someone\"},"
+                + "\"repository\":{\"name\":\"giteaFinalProject\"}}}";
+        String input = PUSH + "\n\n" + envelope + "\r\n{not json\n" + PUSH + "\n{\"delivery\":\"empty\"}";
+
+        List<JsonNode> results = ingest(ingester(1024, 1000), input, "push");
+
+        assertEquals(5, results.size());
+        assertResult(results.get(0), 1, 202);
+        assertResult(results.get(1), 3, 202);
+        assertEquals("pr-1", results.get(1).get("delivery").asText());
+        assertResult(results.get(2), 4, 400);
+        assertResult(results.get(3), 5, 200);
+        assertResult(results.get(4), 6, 400);
+        verify(notificationDispatcher).dispatch(any(), eq("push"), anyList(), any());
+        verify(notificationDispatcher).dispatch(any(), eq("pull_request_opened"), anyList(), any());
+    }
+
+    @Test
+    void testIngest_OversizedLineDoesNotStopTheStream() throws IOException {
+        String oversized = "{\"padding\":\"" + "x".repeat(2048) + "\"}";
+
+        List<JsonNode> results = ingest(ingester(1024, 1000), oversized + "\n" + PUSH + "\n", "push");
+
+        assertResult(results.get(0), 1, 413);
+        assertResult(results.get(1), 2, 202);
+    }
+
+    @Test
+    void testIngest_WaitsForQueueRoomBeforeDispatching() throws IOException {
+        when(notificationDispatcher.getBacklog()).thenReturn(5, 5, 5, 4);
+
+        List<JsonNode> results = ingest(ingester(1024, 5000), PUSH, "push");
+
+        assertResult(results.get(0), 1, 202);
+        verify(notificationDispatcher, atLeast(4)).getBacklog();
+        verify(notificationDispatcher).dispatch(any(), eq("push"), anyList(), any());
+    }
+
+    @Test
+    void testIngest_GivesUpOnLineWhenQueueStaysFull() throws IOException {
+        when(notificationDispatcher.getBacklog()).thenReturn(10);
+
+        List<JsonNode> results = ingest(ingester(1024, 50), PUSH, "push");
+
+        assertResult(results.get(0), 1, 503);
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void testIngest_PausesWhileSlowDeliveriesBackUp(@TempDir Path dir) throws Exception {
+        DiscordNotifier discordNotifier = mock(DiscordNotifier.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(discordNotifier).send(anyString(), anyString());
+        OutboxJournal journal = new OutboxJournal(true, dir.resolve("outbox"), 64 * 1024, 10);
+        RetryScheduler retryScheduler = new RetryScheduler(3, 20, 50, 2.0, 3600000, 5, 64);
+        DestinationBulkheads bulkheads = new DestinationBulkheads(2, 50, false);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(discordNotifier, EmailNotifier.disabled(),
+                new WebhookMessageFormatter(), journal, retryScheduler,
+                new DeadLetterStore(dir.resolve("dead-letters.ndjson"), objectMapper), bulkheads,
+                NotificationDigest.disabled(), new EventPriorities(), PipelineMetrics.inMemory(), 10, 1,
+                OverflowPolicy.REJECT, 5, false);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            input.append("{\"delivery\":\"push-").append(i).append("\",\"payload\":").append(PUSH).append("}\n");
+        }
+        try {
+            BulkWebhookIngester ingester = ingester(dispatcher, 1024, 5000, new WebhookSignatureVerifier(List.of()));
+            CompletableFuture<List<JsonNode>> results = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ingest(ingester, input.toString(), "push");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            // Each push goes to two destinations, so the third one takes the backlog past the limit of 5.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (dispatcher.getBacklog() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(200);
+            assertFalse(results.isDone());
+            assertEquals(3, journal.getPendingCount());
+            assertEquals(6, dispatcher.getBacklog());
+
+            release.countDown();
+            List<JsonNode> answered = results.get(5, TimeUnit.SECONDS);
+            assertEquals(10, answered.size());
+            answered.forEach(result -> assertEquals(202, result.get("status").asInt(), result.toString()));
+        } finally {
+            release.countDown();
+            dispatcher.shutdown();
+            retryScheduler.shutdown();
+            bulkheads.shutdown();
+            journal.close();
+        }
+    }
+
+    @Test
+    void testIngest_RequiresSignedEnvelopesWhenSecretsAreConfigured() throws IOException {
+        String signed = "{\"signature\":\"" + WebhookSignatureVerifierTest.sign("secret", PUSH) + "\",\"payload\":" + PUSH + "}";
+        String forged = "{\"signature\":\"" + WebhookSignatureVerifierTest.sign("guess", PUSH) + "\",\"payload\":" + PUSH + "}";
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(List.of("secret"));
+
+        List<JsonNode> results = ingest(ingester(1024, 1000, verifier), PUSH + "\n" + forged + "\n" + signed, "push");
+
+        assertResult(results.get(0), 1, 401);
+        assertResult(results.get(1), 2, 401);
+        assertResult(results.get(2), 3, 202);
+        verify(notificationDispatcher, times(1)).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    private BulkWebhookIngester ingester(int maxBodyBytes, long backpressureTimeoutMillis) {
+        return ingester(maxBodyBytes, backpressureTimeoutMillis, new WebhookSignatureVerifier(List.of()));
+    }
+
+    private BulkWebhookIngester ingester(int maxBodyBytes, long backpressureTimeoutMillis, WebhookSignatureVerifier verifier) {
+        return ingester(notificationDispatcher, maxBodyBytes, backpressureTimeoutMillis, verifier);
+    }
+
+    private BulkWebhookIngester ingester(NotificationDispatcher notificationDispatcher, int maxBodyBytes,
+                                         long backpressureTimeoutMillis, WebhookSignatureVerifier verifier) {
+        WebhookIngestService ingestService = new WebhookIngestService(notificationDispatcher,
+                new WebhookDeduplicator(5, 1000), new WebhookPayloadExtractor(objectMapper, maxBodyBytes),
+                GiteaEventRegistryTest.registry(), new RoutingEngine(RoutingEngine.DEFAULT_RULES),
+                new AdmissionControl(new EventPriorities(), notificationDispatcher, 0.5, 0.75, 0.9, 30),
+                new EventHistory(100), PipelineMetrics.inMemory());
+        return new BulkWebhookIngester(ingestService, notificationDispatcher, verifier, objectMapper, 0.5,
+                backpressureTimeoutMillis);
+    }
+
+    private List<JsonNode> ingest(BulkWebhookIngester ingester, String input, String giteaEvent) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ingester.ingest(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, giteaEvent, null);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void assertResult(JsonNode result, int line, int status) {
+        assertEquals(line, result.get("line").asInt(), result.toString());
+        assertEquals(status, result.get("status").asInt(), result.toString());
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.catalog;
+
+import com.example.catalog.services.CircuitBreaker;
+import com.example.catalog.services.CircuitBreaker.Permit;
+import com.example.catalog.services.CircuitBreaker.State;
+import com.example.catalog.services.CircuitOpenException;
+import com.example.catalog.services.DeliveryException;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.OutboundResponse;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RoutingEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpHeaders;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+    private final List<State> transitions = new ArrayList<>();
+
+    @Test
+    void testOnFailure_OpensOnceFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker(1);
+
+        for (int i = 0; i < 5; i++) {
+            call(breaker, false);
+            call(breaker, true);
+        }
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(List.of(State.OPEN), transitions);
+        assertNull(breaker.tryAcquire());
+        assertEquals(TimeUnit.SECONDS.toNanos(30), breaker.getRetryAfterNanos());
+    }
+
+    @Test
+    void testOnFailure_StaysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker(1);
+
+        for (int i = 0; i < 9; i++) {
+            call(breaker, true);
+        }
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void testWindow_OldFailuresSlideOut() {
+        CircuitBreaker breaker = breaker(1);
+        for (int i = 0; i < 9; i++) {
+            call(breaker, true);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            call(breaker, false);
+        }
+        call(breaker, true);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0.05, breaker.getFailureRate(), 1e-9);
+    }
+
+    @Test
+    void testHalfOpen_SuccessfulProbesCloseCircuit() {
+        CircuitBreaker breaker = breaker(2);
+        trip(breaker);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        Permit first = breaker.tryAcquire();
+        Permit second = breaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(breaker.tryAcquire(), "only two probes at a time");
+        first.onSuccess();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        second.onSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+    }
+
+    @Test
+    void testHalfOpen_FailedProbeReopensCircuit() {
+        CircuitBreaker breaker = breaker(1);
+        trip(breaker);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        breaker.tryAcquire().onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.OPEN), transitions);
+    }
+
+    @Test
+    void testHalfOpen_RefusedCallersWaitForTheProbe() {
+        CircuitBreaker breaker = breaker(1);
+        trip(breaker);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        assertNull(breaker.tryAcquire());
+        assertEquals(TimeUnit.SECONDS.toNanos(3), breaker.getRetryAfterNanos());
+        probe.onSuccess();
+        assertEquals(0, breaker.getRetryAfterNanos());
+    }
+
+    @Test
+    void testHalfOpen_CallsFromBeforeTheCircuitOpenedAreNotProbes() {
+        CircuitBreaker breaker = breaker(1);
+        Permit slow = breaker.tryAcquire();
+        trip(breaker);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+
+        slow.onSuccess();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(), "the probe is still in flight");
+        probe.onFailure();
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testDiscordNotifier_FailsFastWhileCircuitIsOpen() {
+        OutboundHttpClient httpClient = mock(OutboundHttpClient.class);
+        when(httpClient.postJson(any(), any())).thenReturn(new OutboundResponse(503, HttpHeaders.of(Map.of(), (n, v) -> true)));
+        PipelineMetrics metrics = PipelineMetrics.inMemory();
+        RoutingEngine routingEngine = new RoutingEngine(List.of(), Map.of("general", "https://discord.test/general"), Set.of());
+        DiscordNotifier notifier = new DiscordNotifier(httpClient, new ObjectMapper(), metrics, routingEngine);
+        ReflectionTestUtils.setField(notifier, "permitsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(notifier, "burst", 100);
+        ReflectionTestUtils.setField(notifier, "circuitWindowSize", 20);
+        ReflectionTestUtils.setField(notifier, "circuitMinimumCalls", 10);
+        ReflectionTestUtils.setField(notifier, "circuitFailureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(notifier, "circuitOpenMillis", 30_000L);
+        ReflectionTestUtils.setField(notifier, "circuitHalfOpenProbes", 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(DeliveryException.class, () -> notifier.send("general", "hello"));
+        }
+        CircuitOpenException open = assertThrows(CircuitOpenException.class, () -> notifier.send("general", "hello"));
+
+        verify(httpClient, times(10)).postJson(any(), any());
+        assertTrue(open.getRetryAfterNanos() > 0);
+        assertEquals(State.OPEN, notifier.getCircuitStates().get("general"));
+        assertEquals(2.0, metrics.getRegistry().get("discord.circuit.state").tag("destination", "general").gauge().value());
+        assertEquals(1.0, metrics.getRegistry().get("discord.circuit.transitions").tag("state", "open").counter().count());
+
+        notifier.webhookUrlsReplaced(routingEngine.replace(
+                new RoutingEngine(List.of(), Map.of("general", "https://discord.test/new-general"), Set.of())));
+        assertNull(notifier.getCircuitStates().get("general"), "a new URL starts with a closed circuit");
+    }
+
+    private CircuitBreaker breaker(int halfOpenProbes) {
+        return new CircuitBreaker(20, 10, 0.5, 30_000, halfOpenProbes, (from, to) -> transitions.add(to), clock::get);
+    }
+
+    private static void trip(CircuitBreaker breaker) {
+        for (int i = 0; i < 10; i++) {
+            call(breaker, true);
+        }
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    private static void call(CircuitBreaker breaker, boolean fails) {
+        Permit permit = breaker.tryAcquire();
+        assertNotNull(permit);
+        if (fails) {
+            permit.onFailure();
+        } else {
+            permit.onSuccess();
+        }
+    }
+}
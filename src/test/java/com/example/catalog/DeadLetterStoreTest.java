@@ -0,0 +1,68 @@
+package com.example.catalog;
+
+import com.example.catalog.model.DeadLetter;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.DeadLetterStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAdd_PersistsAcrossInstances() {
+        Path file = dir.resolve("nested/dead-letters.ndjson");
+        new DeadLetterStore(file, new ObjectMapper()).add(deadLetter(1, "general"));
+        new DeadLetterStore(file, new ObjectMapper()).add(deadLetter(2, "my-events"));
+
+        List<DeadLetter> deadLetters = new DeadLetterStore(file, new ObjectMapper()).list();
+
+        assertEquals(List.of(deadLetter(1, "general"), deadLetter(2, "my-events")), deadLetters);
+    }
+
+    @Test
+    void testDrain_ReturnsAllAndEmptiesTheStore() {
+        Path file = dir.resolve("dead-letters.ndjson");
+        DeadLetterStore store = new DeadLetterStore(file, new ObjectMapper());
+        store.add(deadLetter(1, "general"));
+
+        assertEquals(1, store.drain().size());
+        assertTrue(store.list().isEmpty());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testAdd_ReportsFailedWrite() {
+        DeadLetterStore store = new DeadLetterStore(dir, new ObjectMapper());
+
+        assertFalse(store.add(deadLetter(1, "general")));
+    }
+
+    @Test
+    void testList_SkipsMalformedLines() throws IOException {
+        Path file = dir.resolve("dead-letters.ndjson");
+        DeadLetterStore store = new DeadLetterStore(file, new ObjectMapper());
+        assertTrue(store.add(deadLetter(1, "general")));
+        Files.writeString(file, "{\"sequence\":2,\"destin\n", StandardOpenOption.APPEND);
+        assertTrue(store.add(deadLetter(3, "my-events")));
+
+        assertEquals(List.of(deadLetter(1, "general"), deadLetter(3, "my-events")), store.list());
+        assertEquals(2, store.drain().size());
+    }
+
+    private static DeadLetter deadLetter(long sequence, String destination) {
+        WebhookEvent event = new WebhookEvent("moslem", "giteaFinalProject", "refs/heads/main", "abc123", "def456", null, null, null);
+        return new DeadLetter(sequence, destination, "push", event, 5, "Discord returned HTTP 503", 1700000000000L);
+    }
+}
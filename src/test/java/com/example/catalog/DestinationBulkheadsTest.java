@@ -0,0 +1,52 @@
+package com.example.catalog;
+
+import com.example.catalog.model.DestinationStats;
+import com.example.catalog.model.EventPriority;
+import com.example.catalog.services.DestinationBulkheads;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DestinationBulkheadsTest {
+
+    @Test
+    void testSubmit_AfterShutdownIsRejectedAndLeavesTheBulkheadIdle() throws Exception {
+        DestinationBulkheads bulkheads = new DestinationBulkheads(2, 50, false);
+        assertTrue(bulkheads.submit("general", EventPriority.NORMAL, () -> { }, e -> { }));
+        assertTrue(bulkheads.awaitIdle(5, TimeUnit.SECONDS));
+        bulkheads.shutdown();
+
+        assertFalse(bulkheads.submit("general", EventPriority.NORMAL, () -> { }, e -> { }));
+        assertTrue(bulkheads.awaitIdle(1, TimeUnit.SECONDS));
+        DestinationStats stats = bulkheads.getStats().get(0);
+        assertEquals(0, stats.active());
+        assertEquals(1, stats.rejected());
+    }
+
+    @Test
+    void testSubmit_QueuedDeliveriesStartMostUrgentFirst() throws Exception {
+        DestinationBulkheads bulkheads = new DestinationBulkheads(1, 10, false);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> started = new CopyOnWriteArrayList<>();
+        try {
+            bulkheads.submit("general", EventPriority.LOW, () -> release.await(5, TimeUnit.SECONDS), e -> { });
+            bulkheads.submit("general", EventPriority.LOW, () -> started.add("comment"), e -> { });
+            bulkheads.submit("general", EventPriority.NORMAL, () -> started.add("push"), e -> { });
+            bulkheads.submit("general", EventPriority.CRITICAL, () -> started.add("delete"), e -> { });
+            bulkheads.submit("general", EventPriority.NORMAL, () -> started.add("second push"), e -> { });
+            assertEquals(5, bulkheads.getBacklog());
+
+            release.countDown();
+            assertTrue(bulkheads.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(List.of("delete", "push", "second push", "comment"), started);
+            assertEquals(0, bulkheads.getBacklog());
+        } finally {
+            bulkheads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.catalog;
+
+import com.example.catalog.services.DeliveryException;
+import com.example.catalog.services.DiscordWebhookSender;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.OutboundResponse;
+import com.example.catalog.services.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DiscordWebhookSenderTest {
+
+    private static final String WEBHOOK_URL = "https://discord.example/api/webhooks/1/token";
+    private static final byte[] BODY = "{\"content\":\"hello\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final OutboundHttpClient httpClient = mock(OutboundHttpClient.class);
+
+    @Test
+    void testSend_PostsContentToWebhook() {
+        when(httpClient.postJson(any(), any())).thenReturn(response(204, Map.of()));
+
+        sender(3).send(BODY);
+
+        verify(httpClient).postJson(URI.create(WEBHOOK_URL), BODY);
+    }
+
+    @Test
+    void testSend_RetriesAfterTooManyRequests() {
+        when(httpClient.postJson(any(), any()))
+                .thenReturn(response(429, Map.of("Retry-After", "0.05")))
+                .thenReturn(response(204, Map.of()));
+
+        long start = System.nanoTime();
+        sender(3).send(BODY);
+
+        assertTrue(System.nanoTime() - start >= 50_000_000L);
+        verify(httpClient, times(2)).postJson(eq(URI.create(WEBHOOK_URL)), any());
+    }
+
+    @Test
+    void testSend_ReportsEveryCallToListener() {
+        when(httpClient.postJson(any(), any()))
+                .thenReturn(response(429, Map.of("Retry-After", "0")))
+                .thenReturn(response(204, Map.of()));
+        List<Integer> statuses = new ArrayList<>();
+
+        sender(3).send(BODY, (statusCode, nanos) -> statuses.add(statusCode));
+
+        assertEquals(List.of(429, 204), statuses);
+    }
+
+    @Test
+    void testSend_GivesUpAfterMaxRetries() {
+        when(httpClient.postJson(any(), any())).thenReturn(response(429, Map.of("Retry-After", "0")));
+
+        DeliveryException e = assertThrows(DeliveryException.class, () -> sender(1).send(BODY));
+
+        assertEquals(429, e.getStatusCode());
+        verify(httpClient, times(2)).postJson(any(), any());
+    }
+
+    @Test
+    void testSend_FailsOnErrorStatus() {
+        when(httpClient.postJson(any(), any())).thenReturn(response(404, Map.of()));
+
+        DeliveryException e = assertThrows(DeliveryException.class, () -> sender(3).send(BODY));
+
+        assertEquals(404, e.getStatusCode());
+        verify(httpClient, times(1)).postJson(any(), any());
+    }
+
+    @Test
+    void testSend_WaitsForBucketResetWhenRemainingIsZero() {
+        when(httpClient.postJson(any(), any()))
+                .thenReturn(response(204, Map.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "0.1")))
+                .thenReturn(response(204, Map.of()));
+        DiscordWebhookSender sender = sender(3);
+
+        sender.send(BODY);
+        long start = System.nanoTime();
+        sender.send(BODY);
+
+        assertTrue(System.nanoTime() - start >= 90_000_000L);
+    }
+
+    private DiscordWebhookSender sender(int maxRetries) {
+        return new DiscordWebhookSender(WEBHOOK_URL, httpClient, new TokenBucket(1000, 10), maxRetries);
+    }
+
+    private static OutboundResponse response(int status, Map<String, String> headers) {
+        Map<String, List<String>> values = new HashMap<>();
+        headers.forEach((name, value) -> values.put(name, List.of(value)));
+        return new OutboundResponse(status, HttpHeaders.of(values, (name, value) -> true));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.catalog;
+
+import com.example.catalog.services.DeliveryException;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.UnknownDestinationException;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailNotifierTest {
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailNotifier notifier;
+
+    @AfterEach
+    void tearDown() {
+        if (notifier != null) {
+            notifier.shutdown();
+        }
+    }
+
+    @Test
+    void testSend_BurstGoesOutAsOneEmail() throws Exception {
+        notifier = notifier(200, 50);
+
+        List<CompletableFuture<Void>> sent = IntStream.range(0, 5)
+                .mapToObj(i -> notifier.send("team", "🚀 **New Push** by **moslem**\nbranch-" + i))
+                .toList();
+        CompletableFuture.allOf(sent.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        MimeMessage[] received = smtp.getReceivedMessages();
+        assertEquals(2, received.length, "one copy per recipient");
+        assertEquals("[Gitea] 5 notifications", received[0].getSubject());
+        String body = GreenMailUtil.getBody(received[0]);
+        assertTrue(body.contains("New Push by moslem"), body);
+        assertTrue(body.contains("branch-0") && body.contains("branch-4"), body);
+        assertEquals(1, notifier.getConnectionCount());
+    }
+
+    @Test
+    void testSend_FullBatchDoesNotWaitForWindow() throws Exception {
+        notifier = notifier(60_000, 3);
+
+        List<CompletableFuture<Void>> sent = IntStream.range(0, 3)
+                .mapToObj(i -> notifier.send("team", "event " + i))
+                .toList();
+
+        CompletableFuture.allOf(sent.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals("[Gitea] 3 notifications", smtp.getReceivedMessages()[0].getSubject());
+    }
+
+    @Test
+    void testSend_ReusesConnectionAcrossBatches() throws Exception {
+        notifier = notifier(20, 50);
+
+        notifier.send("team", "first").get(5, TimeUnit.SECONDS);
+        notifier.send("team", "second").get(5, TimeUnit.SECONDS);
+        notifier.send("alerts", "third").get(5, TimeUnit.SECONDS);
+
+        assertEquals(5, smtp.getReceivedMessages().length);
+        assertEquals("[Gitea] first", smtp.getReceivedMessages()[0].getSubject());
+        assertEquals(1, notifier.getConnectionCount());
+    }
+
+    @Test
+    void testSend_ReconnectsAfterServerDropsConnection() throws Exception {
+        notifier = notifier(20, 50);
+        notifier.send("team", "before restart").get(5, TimeUnit.SECONDS);
+
+        smtp.stop();
+        smtp.start();
+        notifier.send("team", "after restart").get(5, TimeUnit.SECONDS);
+
+        assertEquals("[Gitea] after restart", smtp.getReceivedMessages()[0].getSubject());
+        assertEquals(2, notifier.getConnectionCount());
+    }
+
+    @Test
+    void testSend_UnknownDestinationFails() {
+        notifier = notifier(20, 50);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> notifier.send("nowhere", "lost").get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(UnknownDestinationException.class, failure.getCause());
+    }
+
+    @Test
+    void testShutdown_SendsOpenBatches() throws Exception {
+        notifier = notifier(60_000, 50);
+        CompletableFuture<Void> sent = notifier.send("team", "pending at shutdown");
+
+        notifier.shutdown();
+
+        sent.get(1, TimeUnit.SECONDS);
+        assertEquals(2, smtp.getReceivedMessages().length);
+    }
+
+    @Test
+    void testShutdown_GivesUpOnUnresponsiveServer() throws Exception {
+        // Accepts connections but never sends the SMTP greeting.
+        try (ServerSocket silent = new ServerSocket(0)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(silent.getLocalPort());
+            notifier = new EmailNotifier(mailSender, Map.of("team", "dev@example.com"), "gitea@example.com",
+                    0, 1, PipelineMetrics.inMemory());
+            CompletableFuture<Void> sent = notifier.send("team", "stuck");
+
+            // Less than a millisecond left must not turn into an unbounded join.
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> notifier.shutdown(500, TimeUnit.MICROSECONDS));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> sent.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(DeliveryException.class, failure.getCause());
+        }
+    }
+
+    private static EmailNotifier notifier(long windowMillis, int maxNotifications) {
+        return new EmailNotifier(mailSender(),
+                Map.of("team", "dev@example.com, ops@example.com", "alerts", "oncall@example.com"),
+                "gitea@example.com", windowMillis, maxNotifications, PipelineMetrics.inMemory());
+    }
+
+    static JavaMailSenderImpl mailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        return mailSender;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.catalog;
+
+import com.example.catalog.model.HistoryPage;
+import com.example.catalog.model.HistoryRecord;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.EventHistory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventHistoryTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void testQuery_ReturnsNewestFirstWithAllFields() {
+        EventHistory history = new EventHistory(10, clock::get);
+        history.record(event("moslem", "repo-a", "refs/heads/main"), "push", List.of("general", "my-events"), "accepted");
+        clock.addAndGet(1000);
+        history.record(event("alice", "repo-b", null), "repo_created", List.of(), "unrouted");
+
+        List<HistoryRecord> events = history.query(null, null, null, null, null, null, 10).events();
+
+        assertEquals(2, events.size());
+        assertEquals(new HistoryRecord(2, Instant.ofEpochMilli(1_001_000), "repo_created", "repo-b", "alice", null,
+                List.of(), "unrouted"), events.get(0));
+        assertEquals(new HistoryRecord(1, Instant.ofEpochMilli(1_000_000), "push", "repo-a", "moslem", "refs/heads/main",
+                List.of("general", "my-events"), "accepted"), events.get(1));
+    }
+
+    @Test
+    void testQuery_FiltersByRepoActorAndType() {
+        EventHistory history = new EventHistory(20, clock::get);
+        for (int i = 0; i < 12; i++) {
+            history.record(event(i % 2 == 0 ? "moslem" : "alice", "repo-" + (i % 3), "branch-" + i),
+                    i % 4 == 0 ? "delete_branch" : "push", List.of("general"), "accepted");
+        }
+
+        assertEquals(List.of("branch-9", "branch-6", "branch-3", "branch-0"), refs(history.query("repo-0", null, null, null, null, null, 10)));
+        assertEquals(List.of("branch-11", "branch-9", "branch-7", "branch-5", "branch-3", "branch-1"),
+                refs(history.query(null, "alice", null, null, null, null, 10)));
+        assertEquals(List.of("branch-6", "branch-0"), refs(history.query("repo-0", "moslem", null, null, null, null, 10)));
+        assertEquals(List.of("branch-8", "branch-4", "branch-0"), refs(history.query(null, null, "delete_branch", null, null, null, 10)));
+        assertEquals(List.of(), refs(history.query("unknown-repo", null, null, null, null, null, 10)));
+    }
+
+    @Test
+    void testQuery_FiltersByTimeRange() {
+        EventHistory history = new EventHistory(10, clock::get);
+        for (int i = 0; i < 5; i++) {
+            history.record(event("moslem", "repo-a", "branch-" + i), "push", List.of("general"), "accepted");
+            clock.addAndGet(60_000);
+        }
+
+        HistoryPage page = history.query("repo-a", null, null, Instant.ofEpochMilli(1_060_000),
+                Instant.ofEpochMilli(1_180_000), null, 10);
+
+        assertEquals(List.of("branch-2", "branch-1"), refs(page));
+    }
+
+    @Test
+    void testQuery_PagesWithCursor() {
+        EventHistory history = new EventHistory(10, clock::get);
+        for (int i = 0; i < 5; i++) {
+            history.record(event("moslem", "repo-a", "branch-" + i), "push", List.of("general"), "accepted");
+        }
+
+        HistoryPage first = history.query("repo-a", null, null, null, null, null, 2);
+        HistoryPage second = history.query("repo-a", null, null, null, null, first.nextCursor(), 2);
+        HistoryPage last = history.query("repo-a", null, null, null, null, second.nextCursor(), 2);
+
+        assertEquals(List.of("branch-4", "branch-3"), refs(first));
+        assertEquals(List.of("branch-2", "branch-1"), refs(second));
+        assertEquals(List.of("branch-0"), refs(last));
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void testRecord_OverwritesOldestAndKeepsSymbolsBounded() {
+        EventHistory history = new EventHistory(4, clock::get);
+        for (int i = 0; i < 1000; i++) {
+            history.record(event("user-" + i, "repo-" + i, "branch-" + i), "push", List.of("general"), "accepted");
+        }
+
+        assertEquals(4, history.size());
+        assertEquals(List.of("branch-999", "branch-998", "branch-997", "branch-996"),
+                refs(history.query(null, null, "push", null, null, null, 10)));
+        assertEquals(List.of(), refs(history.query("repo-995", null, null, null, null, null, 10)));
+        // Per event one repo, actor and ref, shared by all: type, destinations and outcome.
+        assertEquals(4 * 3 + 3, history.getSymbolCount());
+    }
+
+    @Test
+    void testQuery_IndexSkipsEvictedEventsWhenValueComesBack() {
+        EventHistory history = new EventHistory(3, clock::get);
+        history.record(event("moslem", "repo-a", "old"), "push", List.of("general"), "accepted");
+        history.record(event("moslem", "repo-b", "b-1"), "push", List.of("general"), "accepted");
+        history.record(event("moslem", "repo-b", "b-2"), "push", List.of("general"), "accepted");
+        history.record(event("moslem", "repo-b", "b-3"), "push", List.of("general"), "accepted");
+        history.record(event("moslem", "repo-a", "new"), "push", List.of("general"), "accepted");
+
+        assertEquals(List.of("new"), refs(history.query("repo-a", null, null, null, null, null, 10)));
+        assertEquals(List.of("new", "b-3", "b-2"), refs(history.query(null, "moslem", null, null, null, null, 10)));
+    }
+
+    private static List<String> refs(HistoryPage page) {
+        return page.events().stream().map(HistoryRecord::ref).toList();
+    }
+
+    private static WebhookEvent event(String actor, String repo, String ref) {
+        return new WebhookEvent(actor, repo, ref, null, null, null, null, null);
+    }
+}
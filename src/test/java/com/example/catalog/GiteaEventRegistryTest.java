@@ -0,0 +1,95 @@
+package com.example.catalog;
+
+import com.example.catalog.model.GiteaEventKind;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.CreateEventHandler;
+import com.example.catalog.services.DeleteEventHandler;
+import com.example.catalog.services.GiteaEventHandler;
+import com.example.catalog.services.GiteaEventRegistry;
+import com.example.catalog.services.IssueCommentEventHandler;
+import com.example.catalog.services.IssuesEventHandler;
+import com.example.catalog.services.PullRequestCommentEventHandler;
+import com.example.catalog.services.PullRequestEventHandler;
+import com.example.catalog.services.PushEventHandler;
+import com.example.catalog.services.ReleaseEventHandler;
+import com.example.catalog.services.RepositoryEventHandler;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GiteaEventRegistryTest {
+
+    private final GiteaEventRegistry registry = registry();
+    private final WebhookPayloadExtractor extractor = new WebhookPayloadExtractor(new ObjectMapper(), 1024 * 1024);
+
+    static GiteaEventRegistry registry() {
+        return new GiteaEventRegistry(List.of(new PushEventHandler(), new CreateEventHandler(), new DeleteEventHandler(),
+                new RepositoryEventHandler(), new PullRequestEventHandler(), new PullRequestCommentEventHandler(),
+                new IssuesEventHandler(), new IssueCommentEventHandler(), new ReleaseEventHandler()));
+    }
+
+    @Test
+    void testResolve_PrefersSpecificEventTypeHeader() {
+        assertEquals(GiteaEventKind.PULL_REQUEST_COMMENT, registry.resolve("issue_comment", "pull_request_comment").kind());
+        assertEquals(GiteaEventKind.ISSUE_COMMENT, registry.resolve("issue_comment", "issue_comment").kind());
+        assertEquals(GiteaEventKind.PULL_REQUEST, registry.resolve("pull_request", "pull_request_label").kind());
+        assertEquals(GiteaEventKind.PUSH, registry.resolve("push", null).kind());
+    }
+
+    @Test
+    void testResolve_UnknownHeaderKeepsItsNameAsEventType() throws IOException {
+        GiteaEventHandler handler = registry.resolve("wiki", null);
+
+        WebhookEvent event = extract(handler, "{\"action\":\"created\",\"sender\":{\"login\":\"moslem\"}}");
+
+        assertEquals("wiki", handler.eventType(event));
+    }
+
+    @Test
+    void testResolve_NoHeadersFallsBackToPayloadShape() throws IOException {
+        GiteaEventHandler handler = registry.resolve(null, null);
+
+        assertSame(GiteaEventRegistry.PAYLOAD_SHAPE_HANDLER, handler);
+        assertEquals("push", handler.eventType(extract(handler, "{\"before\":\"a\",\"after\":\"b\"}")));
+    }
+
+    @Test
+    void testHandlers_ClassifyAndExtractOnlyTheirFields() throws IOException {
+        GiteaEventHandler create = registry.resolve("create", null);
+        WebhookEvent tag = extract(create, "{\"ref\":\"v1\",\"ref_type\":\"tag\",\"sha\":\"abc\"}");
+        assertEquals("create_tag", create.eventType(tag));
+
+        GiteaEventHandler delete = registry.resolve("delete", null);
+        assertEquals("delete_branch", delete.eventType(extract(delete, "{\"ref\":\"old\",\"ref_type\":\"branch\"}")));
+
+        GiteaEventHandler issues = registry.resolve("issues", "issues");
+        WebhookEvent issue = extract(issues, "{\"action\":\"closed\",\"number\":3,\"before\":\"x\","
+                + "\"issue\":{\"number\":3,\"title\":\"Crash\",\"html_url\":\"https://gitea/i/3\",\"user\":{\"login\":\"x\"}}}");
+        assertEquals("issues_closed", issues.eventType(issue));
+        assertEquals("Crash", issue.title());
+        assertEquals("3", issue.number());
+        assertNull(issue.before());
+
+        GiteaEventHandler release = registry.resolve("release", "release");
+        WebhookEvent published = extract(release, "{\"action\":\"published\","
+                + "\"release\":{\"tag_name\":\"v2.0\",\"name\":\"Two\",\"html_url\":\"https://gitea/r/2\"}}");
+        assertEquals("release_published", release.eventType(published));
+        assertEquals("v2.0", published.ref());
+    }
+
+    @Test
+    void testRegistry_RejectsDuplicateHandlers() {
+        assertThrows(IllegalStateException.class,
+                () -> new GiteaEventRegistry(List.of(new PushEventHandler(), new PushEventHandler())));
+    }
+
+    private WebhookEvent extract(GiteaEventHandler handler, String json) throws IOException {
+        return extractor.extract(json.getBytes(StandardCharsets.UTF_8), handler.extractionPlan());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.catalog;
+
+import com.example.catalog.load.LoadTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("load")
+class LoadHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarnessTest.class);
+
+    @Test
+    void testShortRun_DeliversEveryNotificationDespiteInjectedFailures() throws Exception {
+        LoadTest.Report report = LoadTest.run(LoadTest.Options.parse(new String[]{
+                "--rate=50", "--duration-seconds=2", "--concurrency=8", "--discord-latency-ms=5",
+                "--error-rate=0.1", "--rate-limit-rate=0.05", "--drain-timeout-seconds=20"}));
+
+        logger.info("Load harness report:\n{}", report.format());
+        assertEquals(100, report.replay().getSent());
+        assertEquals(100, report.replay().count(202));
+        assertTrue(report.expected() > 0);
+        assertTrue(report.injectedErrors() > 0);
+        assertEquals(report.expected(), report.delivered());
+        assertEquals(0, report.getLost());
+    }
+
+    @Test
+    void testOverload_ShedsAtIngressInsteadOfLosingNotifications() throws Exception {
+        // Two slots per destination at 100 ms a send cannot keep up with 200 req/s, so the bulkheads fill.
+        LoadTest.Report report = LoadTest.run(LoadTest.Options.parse(new String[]{
+                "--rate=200", "--duration-seconds=2", "--concurrency=32", "--discord-latency-ms=100",
+                "--error-rate=0", "--rate-limit-rate=0", "--drain-timeout-seconds=60",
+                "--notifier.queue.capacity=100"}));
+
+        logger.info("Load harness report:\n{}", report.format());
+        assertEquals(400, report.replay().getSent());
+        assertEquals(400, report.replay().count(202) + report.replay().count(429));
+        assertTrue(report.replay().count(429) > 0, "nothing was shed");
+        assertEquals(0, report.deadLettered());
+        assertEquals(0, report.getLost());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.catalog;
+
+import com.example.catalog.model.Notification;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.NotificationDigest;
+import com.example.catalog.services.NotificationDigest.Entry;
+import com.example.catalog.services.NotificationDigest.Message;
+import com.example.catalog.services.WebhookMessageFormatter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDigestTest {
+
+    private final List<List<Entry>> flushed = new CopyOnWriteArrayList<>();
+    private NotificationDigest digest;
+
+    @AfterEach
+    void tearDown() {
+        digest.shutdown();
+    }
+
+    @Test
+    void testRender_GroupsByRepositoryAndEventType() {
+        digest = digest(10_000, 50);
+        List<Entry> entries = List.of(
+                entry(1, push("ci-bot", "ci-repo", "refs/heads/a"), "push"),
+                entry(2, push("someone", "docs", "refs/heads/main"), "push"),
+                entry(3, push("ci-bot", "ci-repo", "refs/heads/b"), "push"));
+
+        List<Message> messages = digest.render(entries);
+
+        assertEquals(1, messages.size());
+        String content = messages.get(0).content();
+        assertTrue(content.startsWith("📬 **2 push events** in **ci-repo**\n• **ci-bot** refs/heads/a\n• **ci-bot** refs/heads/b\n"),
+                content);
+        assertTrue(content.endsWith(new WebhookMessageFormatter().format(entries.get(1).notification().event(), "push")),
+                content);
+        assertEquals(3, messages.get(0).entries().size());
+    }
+
+    @Test
+    void testRender_SplitsAtDiscordMessageLimit() {
+        digest = digest(10_000, 500);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            entries.add(entry(i, push("ci-bot", "ci-repo", "refs/heads/feature/a-fairly-long-branch-name-" + i), "push"));
+        }
+
+        List<Message> messages = digest.render(entries);
+
+        assertTrue(messages.size() > 1);
+        int covered = 0;
+        for (Message message : messages) {
+            assertTrue(message.content().length() <= NotificationDigest.MESSAGE_LIMIT, message.content());
+            assertTrue(message.content().startsWith("📬 **200 push events** in **ci-repo**\n"));
+            assertEquals(message.entries().size(), message.content().split("\n").length - 1);
+            covered += message.entries().size();
+        }
+        assertEquals(200, covered);
+    }
+
+    @Test
+    void testRender_TruncatesOverlongLines() {
+        digest = digest(10_000, 50);
+        String title = "x".repeat(5000);
+        WebhookEvent issue = new WebhookEvent("someone", "repo", null, null, null, null, null, "opened",
+                title, "7", "https://gitea.example/repo/issues/7", null);
+
+        List<Message> messages = digest.render(List.of(entry(1, issue, "issues_opened"), entry(2, issue, "issues_opened")));
+
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).content().length() <= NotificationDigest.MESSAGE_LIMIT);
+        assertTrue(messages.get(0).content().contains("• **someone** #7 xxx"));
+    }
+
+    @Test
+    void testAdd_FlushesAfterWindow() throws InterruptedException {
+        digest = digest(100, 50);
+        long start = System.nanoTime();
+
+        digest.add("general", entry(1, push("ci-bot", "ci-repo", "refs/heads/a"), "push"));
+        digest.add("general", entry(2, push("ci-bot", "ci-repo", "refs/heads/b"), "push"));
+        assertEquals(2, digest.getPendingCount());
+
+        awaitFlushes(1);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(2, flushed.get(0).size());
+        assertEquals(0, digest.getPendingCount());
+    }
+
+    @Test
+    void testAdd_FlushesAtSizeLimitWithoutWaiting() throws InterruptedException {
+        digest = digest(60_000, 3);
+
+        for (int i = 0; i < 7; i++) {
+            digest.add("general", entry(i, push("ci-bot", "ci-repo", "refs/heads/" + i), "push"));
+        }
+
+        assertEquals(2, flushed.size());
+        assertEquals(1, digest.getPendingCount());
+        digest.flushAll();
+        assertEquals(3, flushed.size());
+        assertEquals(1, flushed.get(2).size());
+    }
+
+    @Test
+    void testIsEnabled_OnlyForConfiguredDestinations() {
+        digest = digest(100, 50);
+
+        assertTrue(digest.isEnabled("general"));
+        assertFalse(digest.isEnabled("my-events"));
+        assertFalse(NotificationDigest.disabled().isEnabled("general"));
+    }
+
+    private NotificationDigest digest(long windowMillis, int maxEvents) {
+        NotificationDigest digest = new NotificationDigest(new WebhookMessageFormatter(), Set.of("general"), windowMillis, maxEvents);
+        digest.start((destination, entries) -> flushed.add(entries));
+        return digest;
+    }
+
+    private void awaitFlushes(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (flushed.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, flushed.size());
+    }
+
+    private static Entry entry(long sequence, WebhookEvent event, String eventType) {
+        return new Entry(new Notification(sequence, event, eventType, List.of("general")), 1, System.nanoTime());
+    }
+
+    private static WebhookEvent push(String actor, String repo, String ref) {
+        return new WebhookEvent(actor, repo, ref, "abc123", "def456", null, null, null);
+    }
+}
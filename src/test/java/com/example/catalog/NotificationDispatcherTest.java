@@ -0,0 +1,541 @@
+package com.example.catalog;
+
+import com.example.catalog.model.DeadLetter;
+import com.example.catalog.model.DestinationStats;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.CircuitOpenException;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.DeliveryException;
+import com.example.catalog.services.DestinationBulkheads;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.EventPriorities;
+import com.example.catalog.services.NotificationDigest;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.NotificationDispatcher.OverflowPolicy;
+import com.example.catalog.services.OutboxJournal;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RetryScheduler;
+import com.example.catalog.services.UnknownDestinationException;
+import com.example.catalog.services.WebhookMessageFormatter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private final DiscordNotifier discordNotifier = mock(DiscordNotifier.class);
+    private final WebhookMessageFormatter formatter = spy(new WebhookMessageFormatter());
+    @TempDir
+    Path outboxDir;
+    private OutboxJournal journal;
+    private RetryScheduler retryScheduler;
+    private DeadLetterStore deadLetterStore;
+    private DestinationBulkheads bulkheads;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        journal = new OutboxJournal(true, outboxDir, 64 * 1024, 10);
+        retryScheduler = new RetryScheduler(3, 20, 50, 2.0, 3600000, 5, 64);
+        deadLetterStore = new DeadLetterStore(outboxDir.resolve("dead-letters.ndjson"), new ObjectMapper());
+        bulkheads = new DestinationBulkheads(2, 50, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        retryScheduler.shutdown();
+        bulkheads.shutdown();
+        journal.close();
+    }
+
+    @Test
+    void testDispatch_DeliversOnWorkerThread() {
+        dispatcher = dispatcher(10, 2, OverflowPolicy.REJECT, false);
+
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("first"));
+    }
+
+    @Test
+    void testDispatch_DeliversToEveryDestinationEvenIfOneFails() {
+        doThrow(new RuntimeException("Discord down")).when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("first"), "push", List.of("general", "my-events"));
+
+        verify(discordNotifier, timeout(1000)).send(eq("my-events"), contains("first"));
+    }
+
+    @Test
+    void testDelivery_FullBulkheadHoldsTheWorkerInsteadOfFailing() throws InterruptedException {
+        bulkheads = new DestinationBulkheads(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(dispatcher.dispatch(push("event-" + i), "push", List.of("general")));
+        }
+        // One send running, one in the bulkhead queue, the worker waiting with the third: two left queued.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.getQueueDepth() > 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(2, dispatcher.getQueueDepth());
+
+        release.countDown();
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (journal.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        verify(discordNotifier, times(5)).send(eq("general"), anyString());
+        assertTrue(deadLetterStore.list().isEmpty());
+    }
+
+    @Test
+    void testBacklog_CountsDeliveriesWaitingInTheBulkheads() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(dispatcher.dispatch(push("event-" + i), "push", List.of("general")));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(4, dispatcher.getBacklog());
+
+        release.countDown();
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (dispatcher.getBacklog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    void testDispatch_MarksDeliveredDestinationsInJournal() {
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("first"), "push", List.of("general", "my-events"));
+        dispatcher.shutdown();
+
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    void testDispatch_QueueFull_RejectPolicyRefusesNotification() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        dispatcher = dispatcher(1, 1, OverflowPolicy.REJECT, false);
+
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        assertTrue(dispatcher.dispatch(push("second"), "push", List.of("general")));
+        assertFalse(dispatcher.dispatch(push("third"), "push", List.of("general")));
+
+        release.countDown();
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("second"));
+        verify(discordNotifier, never()).send(anyString(), contains("third"));
+    }
+
+    @Test
+    void testDispatch_QueueFull_DropOldestKeepsNewest() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        dispatcher = dispatcher(1, 1, OverflowPolicy.DROP_OLDEST, false);
+
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        assertTrue(dispatcher.dispatch(push("second"), "push", List.of("general")));
+        assertTrue(dispatcher.dispatch(push("third"), "push", List.of("general")));
+
+        release.countDown();
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("third"));
+        verify(discordNotifier, never()).send(anyString(), contains("second"));
+        List<DeadLetter> deadLetters = deadLetterStore.list();
+        assertEquals(1, deadLetters.size());
+        assertEquals("second", deadLetters.get(0).event().ref());
+        assertEquals("dropped by overflow policy", deadLetters.get(0).lastError());
+        assertEquals(0, deadLetters.get(0).attempts());
+    }
+
+    @Test
+    void testDispatch_QueueFull_DropOldestDropsOnlyTheVictimsDestination() throws InterruptedException {
+        CountDownLatch hung = new CountDownLatch(1);
+        doAnswer(invocation -> hung.await(5, TimeUnit.SECONDS)).when(discordNotifier).send(eq("my-events"), anyString());
+        doThrow(new DeliveryException("Discord returned HTTP 502", 502))
+                .doNothing()
+                .when(discordNotifier).send(eq("general"), contains("mixed"));
+        dispatcher = dispatcher(1, 1, OverflowPolicy.DROP_OLDEST, false);
+
+        assertTrue(dispatcher.dispatch(push("mixed"), "push", List.of("general", "my-events")));
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("mixed"));
+        CountDownLatch release = blockWorker();
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        // The retry to general waits behind the blocked worker until the next push evicts it.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.getQueueDepth() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(dispatcher.dispatch(push("third"), "push", List.of("general")));
+
+        // "mixed" is still owed to my-events, "first" is being formatted and "third" is queued.
+        assertEquals(3, journal.getPendingCount());
+        release.countDown();
+        hung.countDown();
+        dispatcher.shutdown();
+        assertEquals(0, journal.getPendingCount());
+        verify(discordNotifier, times(1)).send(eq("general"), contains("mixed"));
+    }
+
+    @Test
+    void testDispatch_CriticalEventOvertakesQueuedPushes() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        dispatcher = dispatcher(4, 1, OverflowPolicy.REJECT, false);
+
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        assertTrue(dispatcher.dispatch(push("second"), "push", List.of("general")));
+        assertTrue(dispatcher.dispatch(push("third"), "push", List.of("general")));
+        assertTrue(dispatcher.dispatch(push("feature"), "delete_branch", List.of("general")));
+
+        release.countDown();
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("third"));
+        InOrder order = inOrder(formatter);
+        order.verify(formatter).format(argThat(event -> "feature".equals(event.ref())), eq("delete_branch"));
+        order.verify(formatter).format(argThat(event -> "second".equals(event.ref())), eq("push"));
+        order.verify(formatter).format(argThat(event -> "third".equals(event.ref())), eq("push"));
+    }
+
+    @Test
+    void testDispatch_QueueFull_DropOldestNeverEvictsMoreUrgentEvent() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        dispatcher = dispatcher(1, 1, OverflowPolicy.DROP_OLDEST, false);
+
+        assertTrue(dispatcher.dispatch(push("first"), "push", List.of("general")));
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        assertTrue(dispatcher.dispatch(push("feature"), "delete_branch", List.of("general")));
+        assertFalse(dispatcher.dispatch(push("third"), "push", List.of("general")));
+
+        release.countDown();
+        verify(discordNotifier, timeout(1000)).send(eq("general"), contains("feature"));
+        verify(discordNotifier, never()).send(anyString(), contains("third"));
+    }
+
+    @Test
+    void testShutdown_DrainsQueuedNotifications() {
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(push("branch-" + i), "push", List.of("general"));
+        }
+
+        dispatcher.shutdown();
+
+        verify(discordNotifier, times(5)).send(eq("general"), contains("branch-"));
+        assertFalse(dispatcher.dispatch(push("late"), "push", List.of("general")));
+    }
+
+    @Test
+    void testReplayOutbox_DeliversEventsLeftFromPreviousRun() {
+        journal.append(push("left-over"), "push", List.of("general", "my-events"));
+        journal.markDelivered(1, "general");
+        journal.close();
+        journal = new OutboxJournal(true, outboxDir, 64 * 1024, 10);
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.replayOutbox();
+
+        verify(discordNotifier, timeout(1000)).send(eq("my-events"), contains("left-over"));
+        verify(discordNotifier, never()).send(eq("general"), anyString());
+    }
+
+    @Test
+    void testReplayOutbox_RetriesEventsTheFullQueueRefused() {
+        for (String ref : List.of("first", "second", "third", "fourth")) {
+            journal.append(push(ref), "push", List.of("general"));
+        }
+        journal.close();
+        journal = new OutboxJournal(true, outboxDir, 64 * 1024, 10);
+        CountDownLatch release = blockWorker();
+        dispatcher = dispatcher(1, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.replayOutbox();
+        verify(formatter, timeout(1000)).format(argThat(event -> "first".equals(event.ref())), anyString());
+        release.countDown();
+
+        verify(discordNotifier, timeout(2000)).send(eq("general"), contains("fourth"));
+        verify(discordNotifier, timeout(2000).times(4)).send(eq("general"), anyString());
+    }
+
+    @Test
+    void testFanOut_HungDestinationDoesNotDelayOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(push("branch-" + i), "push", List.of("general", "my-events"));
+        }
+
+        verify(discordNotifier, timeout(1000).times(5)).send(eq("my-events"), contains("branch-"));
+        // A delivery is counted just after send returns.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (stats("my-events").delivered() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        DestinationStats general = stats("general");
+        assertEquals(2, general.active());
+        assertEquals(3, general.queued());
+        assertEquals(5, stats("my-events").delivered());
+        release.countDown();
+        dispatcher.shutdown();
+        assertEquals(5, stats("general").delivered());
+    }
+
+    @Test
+    void testFanOut_CountsFailuresPerDestination() {
+        doThrow(new DeliveryException("Discord returned HTTP 404", 404))
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("first"), "push", List.of("general", "my-events"));
+        dispatcher.shutdown();
+
+        assertEquals(1, stats("general").failed());
+        assertEquals(0, stats("general").delivered());
+        assertEquals(1, stats("my-events").delivered());
+    }
+
+    @Test
+    void testDelivery_RetriesTransientFailureUntilItSucceeds() {
+        doThrow(new DeliveryException("Discord returned HTTP 502", 502))
+                .doNothing()
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("flaky"), "push", List.of("general", "my-events"));
+
+        verify(discordNotifier, timeout(2000).times(2)).send(eq("general"), contains("flaky"));
+        verify(discordNotifier, times(1)).send(eq("my-events"), contains("flaky"));
+        assertTrue(deadLetterStore.list().isEmpty());
+    }
+
+    @Test
+    void testDelivery_ExhaustedRetriesGoToDeadLetterStore() throws InterruptedException {
+        doThrow(new DeliveryException("Discord returned HTTP 503", 503))
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("down"), "push", List.of("general"));
+
+        verify(discordNotifier, timeout(2000).times(3)).send(eq("general"), contains("down"));
+        List<DeadLetter> deadLetters = awaitDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals("general", deadLetters.get(0).destination());
+        assertEquals(3, deadLetters.get(0).attempts());
+        assertEquals("down", deadLetters.get(0).event().ref());
+        // The journal entry is only released once the dead letter is safely stored.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (journal.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    void testDelivery_PermanentFailureIsNotRetried() throws InterruptedException {
+        doThrow(new DeliveryException("Discord returned HTTP 404", 404))
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("gone"), "push", List.of("general"));
+
+        List<DeadLetter> deadLetters = awaitDeadLetters();
+        assertEquals(1, deadLetters.get(0).attempts());
+        verify(discordNotifier, times(1)).send(eq("general"), anyString());
+    }
+
+    @Test
+    void testDelivery_KeepsEventInJournalWhenDeadLetterCannotBeWritten() throws InterruptedException {
+        // A directory where the file should be makes every write fail, as a full disk would.
+        deadLetterStore = new DeadLetterStore(outboxDir, new ObjectMapper());
+        doThrow(new DeliveryException("Discord returned HTTP 404", 404))
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("gone"), "push", List.of("general"));
+        verify(discordNotifier, timeout(1000)).send(eq("general"), anyString());
+        dispatcher.shutdown();
+
+        assertEquals(1, journal.getPendingCount());
+    }
+
+    @Test
+    void testDelivery_UnknownDestinationIsNotRetried() throws InterruptedException {
+        doThrow(new UnknownDestinationException("releases")).when(discordNotifier).send(eq("releases"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("orphaned"), "push", List.of("releases"));
+
+        List<DeadLetter> deadLetters = awaitDeadLetters();
+        assertEquals(1, deadLetters.get(0).attempts());
+        assertEquals("Unknown destination releases", deadLetters.get(0).lastError());
+        verify(discordNotifier, times(1)).send(eq("releases"), anyString());
+    }
+
+    @Test
+    void testDelivery_OpenCircuitParksWithoutUsingUpRetries() throws InterruptedException {
+        doThrow(new CircuitOpenException("general", 0))
+                .doThrow(new CircuitOpenException("general", 0))
+                .doThrow(new CircuitOpenException("general", 0))
+                .doThrow(new CircuitOpenException("general", 0))
+                .doNothing()
+                .when(discordNotifier).send(eq("general"), anyString());
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        dispatcher.dispatch(push("parked"), "push", List.of("general"));
+
+        verify(discordNotifier, timeout(2000).times(5)).send(eq("general"), contains("parked"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (journal.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, journal.getPendingCount());
+        assertTrue(deadLetterStore.list().isEmpty());
+    }
+
+    @Test
+    void testRedrive_DeliversDeadLetterAgain() {
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false);
+
+        assertTrue(dispatcher.redrive(new DeadLetter(7, "my-events", "push", push("again"), 3, "HTTP 503", 0)));
+
+        verify(discordNotifier, timeout(1000)).send(eq("my-events"), contains("again"));
+    }
+
+    @Test
+    void testVirtualThreadMode_DeliversAndDrains() {
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, true);
+        boolean virtualThreadsAvailable = Runtime.version().feature() >= 21;
+        assertEquals(virtualThreadsAvailable, dispatcher.isVirtualThreadMode());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(dispatcher.dispatch(push("branch-" + i), "push", List.of("general")));
+        }
+        dispatcher.shutdown();
+
+        verify(discordNotifier, times(5)).send(eq("general"), contains("branch-"));
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertFalse(dispatcher.dispatch(push("late"), "push", List.of("general")));
+    }
+
+    @Test
+    void testDigest_CombinesBurstIntoOneMessagePerDestination() {
+        NotificationDigest digest = new NotificationDigest(formatter, Set.of("general"), 500, 100);
+        dispatcher = dispatcher(100, 2, OverflowPolicy.REJECT, false, digest);
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(dispatcher.dispatch(push("refs/heads/ci-" + i), "push", List.of("general", "my-events")));
+        }
+
+        verify(discordNotifier, timeout(2000)).send(eq("general"), contains("40 push events"));
+        verify(discordNotifier, timeout(2000).times(40)).send(eq("my-events"), contains("ci-"));
+        verify(discordNotifier, times(1)).send(eq("general"), anyString());
+        dispatcher.shutdown();
+        assertEquals(0, journal.getPendingCount());
+        digest.shutdown();
+    }
+
+    @Test
+    void testDigest_FailedDigestIsRetried() {
+        doThrow(new DeliveryException("HTTP 503", 503)).doNothing().when(discordNotifier).send(eq("general"), anyString());
+        NotificationDigest digest = new NotificationDigest(formatter, Set.of("general"), 50, 100);
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false, digest);
+
+        dispatcher.dispatch(push("one"), "push", List.of("general"));
+        dispatcher.dispatch(push("two"), "push", List.of("general"));
+
+        verify(discordNotifier, timeout(2000).times(2)).send(eq("general"), contains("2 push events"));
+        dispatcher.shutdown();
+        assertEquals(0, journal.getPendingCount());
+        assertTrue(deadLetterStore.list().isEmpty());
+        digest.shutdown();
+    }
+
+    @Test
+    void testShutdown_FlushesOpenDigests() {
+        NotificationDigest digest = new NotificationDigest(formatter, Set.of("general"), 60_000, 100);
+        dispatcher = dispatcher(10, 1, OverflowPolicy.REJECT, false, digest);
+
+        dispatcher.dispatch(push("pending"), "push", List.of("general"));
+        dispatcher.shutdown();
+
+        verify(discordNotifier).send(eq("general"), contains("pending"));
+        assertEquals(0, journal.getPendingCount());
+        digest.shutdown();
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, int workers, OverflowPolicy policy, boolean virtualThreads) {
+        return dispatcher(capacity, workers, policy, virtualThreads, NotificationDigest.disabled());
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, int workers, OverflowPolicy policy, boolean virtualThreads,
+                                              NotificationDigest digest) {
+        return new NotificationDispatcher(discordNotifier, EmailNotifier.disabled(), formatter, journal, retryScheduler,
+                deadLetterStore, bulkheads, digest, new EventPriorities(), PipelineMetrics.inMemory(), capacity, workers,
+                policy, 5, virtualThreads);
+    }
+
+    private DestinationStats stats(String destination) {
+        return dispatcher.getDestinationStats().stream()
+                .filter(stats -> stats.destination().equals(destination))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<DeadLetter> awaitDeadLetters() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        List<DeadLetter> deadLetters = deadLetterStore.list();
+        while (deadLetters.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            deadLetters = deadLetterStore.list();
+        }
+        return deadLetters;
+    }
+
+    private static WebhookEvent push(String ref) {
+        return new WebhookEvent("moslem", "giteaFinalProject", ref, "abc123", "def456", null, null, null);
+    }
+
+    /**
+     * Holds the dispatcher worker while it formats the "first" notification.
+     */
+    private CountDownLatch blockWorker() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(formatter).format(argThat(event -> "first".equals(event.ref())), anyString());
+        return release;
+    }
+}
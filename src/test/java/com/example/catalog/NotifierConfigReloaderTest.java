@@ -0,0 +1,135 @@
+package com.example.catalog;
+
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.NotifierConfigReloader;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RoutingEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotifierConfigReloaderTest {
+
+    private static final WebhookEvent RELEASE = new WebhookEvent("moslem", "api", "v1.0", null, null, null, null, null);
+
+    @TempDir
+    Path configDir;
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("general.channel.url", "https://discord.test/general")
+            .withProperty("my.events.url", "https://discord.test/my-events");
+    private DiscordNotifier discordNotifier;
+    private RoutingEngine routingEngine;
+    private NotifierConfigReloader reloader;
+
+    @BeforeEach
+    void setUp() {
+        routingEngine = new RoutingEngine(environment);
+        discordNotifier = new DiscordNotifier(new OutboundHttpClient(1000, 1000, 1000, 1), new ObjectMapper(),
+                PipelineMetrics.inMemory(), routingEngine);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (reloader != null) {
+            reloader.shutdown();
+        }
+    }
+
+    @Test
+    void testStart_AppliesFileOverApplicationConfig() throws IOException {
+        Path file = write("""
+                discord.destinations.releases=https://discord.test/releases
+                routing.rules[0].event-types=release_published
+                routing.rules[0].destinations=releases
+                """);
+        reloader = reloader(file, false);
+
+        reloader.start();
+
+        assertEquals(1, reloader.getVersion());
+        assertEquals("https://discord.test/releases", discordNotifier.getWebhookUrls().get("releases"));
+        assertEquals("https://discord.test/general", discordNotifier.getWebhookUrls().get("general"));
+        assertEquals(List.of("releases"), routingEngine.route(RELEASE, "release_published"));
+        assertEquals(List.of(), routingEngine.route(RELEASE, "push"));
+    }
+
+    @Test
+    void testReload_InvalidConfigKeepsRunningSnapshot() throws IOException {
+        Path file = write("routing.rules[0].destinations=general\n");
+        reloader = reloader(file, false);
+        reloader.start();
+
+        write("""
+                discord.destinations.releases=ftp://discord.test/releases
+                routing.rules[0].destinations=releases
+                """);
+        IllegalArgumentException badUrl = assertThrows(IllegalArgumentException.class, reloader::reload);
+        write("routing.rules[0].destinations=nowhere\n");
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class, reloader::reload);
+
+        assertEquals("Destination releases needs an absolute http(s) URL", badUrl.getMessage());
+        assertEquals("Routing rule 0 sends to unknown destination nowhere", unknown.getMessage());
+        assertEquals(1, reloader.getVersion());
+        assertNull(discordNotifier.getWebhookUrls().get("releases"));
+        assertEquals(List.of("general"), routingEngine.route(RELEASE, "push"));
+    }
+
+    @Test
+    void testReload_UnchangedFileIsNotAppliedAgain() throws IOException {
+        Path file = write("routing.rules[0].destinations=general\n");
+        reloader = reloader(file, false);
+        reloader.start();
+
+        assertEquals(1, reloader.reload());
+    }
+
+    @Test
+    void testWatch_AppliesChangedFile() throws IOException, InterruptedException {
+        Path file = write("routing.rules[0].destinations=general\n");
+        reloader = reloader(file, true);
+        reloader.start();
+
+        Path replacement = configDir.resolve("notifier.properties.tmp");
+        Files.writeString(replacement, "routing.rules[0].destinations=my-events\n");
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reloader.getVersion() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, reloader.getVersion());
+        assertEquals(List.of("my-events"), routingEngine.route(RELEASE, "push"));
+    }
+
+    @Test
+    void testReload_WithoutFileIsRefused() {
+        reloader = new NotifierConfigReloader(environment, discordNotifier, EmailNotifier.disabled(), routingEngine,
+                "", true);
+
+        assertThrows(IllegalStateException.class, reloader::reload);
+    }
+
+    private NotifierConfigReloader reloader(Path file, boolean watch) {
+        return new NotifierConfigReloader(environment, discordNotifier, EmailNotifier.disabled(), routingEngine,
+                file.toString(), watch);
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(configDir.resolve("notifier.properties"), content);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.catalog;
+
+import com.example.catalog.services.DeliveryException;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.OutboundResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundHttpClientTest {
+
+    private HttpServer server;
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            receivedBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4");
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testPostJson_ReturnsStatusAndHeaders() {
+        OutboundHttpClient client = new OutboundHttpClient(1000, 1000, 2000, 2);
+
+        OutboundResponse response = client.postJson(uri("/ok"), "{\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(204, response.statusCode());
+        assertTrue(response.isSuccessful());
+        assertEquals("4", response.header("x-ratelimit-remaining"));
+        assertEquals("{\"content\":\"hi\"}", receivedBody.get());
+    }
+
+    @Test
+    void testPostJson_ReadTimeoutFailsFast() {
+        OutboundHttpClient client = new OutboundHttpClient(1000, 200, 5000, 2);
+
+        long start = System.nanoTime();
+        assertThrows(DeliveryException.class, () -> client.postJson(uri("/slow"), new byte[0]));
+
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+    }
+
+    @Test
+    void testPostJson_TotalTimeoutBoundsTheWholeCall() {
+        OutboundHttpClient client = new OutboundHttpClient(1000, 5000, 300, 2);
+
+        long start = System.nanoTime();
+        assertThrows(DeliveryException.class, () -> client.postJson(uri("/slow"), new byte[0]));
+
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+    }
+
+    @Test
+    void testPostJson_HungUrlDoesNotStallOtherUrlsOnTheSameHost() throws InterruptedException {
+        OutboundHttpClient client = new OutboundHttpClient(1000, 5000, 5000, 1);
+        Thread hung = new Thread(() -> assertDoesNotThrow(() -> client.postJson(uri("/slow"), new byte[0])));
+        hung.start();
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        assertEquals(204, client.postJson(uri("/ok"), new byte[0]).statusCode());
+
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        hung.join();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
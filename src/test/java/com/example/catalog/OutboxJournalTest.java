@@ -0,0 +1,190 @@
+package com.example.catalog;
+
+import com.example.catalog.model.Notification;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.OutboxJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAppend_AssignsIncreasingSequences() {
+        OutboxJournal journal = new OutboxJournal(true, dir, 64 * 1024, 10);
+
+        Notification first = journal.append(event("a"), "push", List.of("general"));
+        Notification second = journal.append(event("b"), "push", List.of("general"));
+
+        assertEquals(first.sequence() + 1, second.sequence());
+        assertEquals(2, journal.getPendingCount());
+        journal.close();
+    }
+
+    @Test
+    void testRecovery_ReturnsOnlyUndeliveredDestinations() {
+        OutboxJournal journal = new OutboxJournal(true, dir, 64 * 1024, 10);
+        Notification delivered = journal.append(event("done"), "push", List.of("general"));
+        Notification partial = journal.append(event("partial"), "create_branch", List.of("general", "my-events"));
+        Notification discarded = journal.append(event("discarded"), "push", List.of("general"));
+        journal.markDelivered(delivered.sequence(), "general");
+        journal.markDelivered(partial.sequence(), "general");
+        journal.discard(discarded.sequence());
+        journal.close();
+
+        OutboxJournal reopened = new OutboxJournal(true, dir, 64 * 1024, 10);
+        List<Notification> recovered = reopened.takeRecovered();
+
+        assertEquals(List.of(new Notification(partial.sequence(), event("partial"), "create_branch", List.of("my-events"))), recovered);
+        assertTrue(reopened.takeRecovered().isEmpty());
+        assertEquals(partial.sequence() + 2, reopened.append(event("next"), "push", List.of("general")).sequence());
+        reopened.close();
+    }
+
+    @Test
+    void testRecovery_KeepsPullRequestDetails() {
+        OutboxJournal journal = new OutboxJournal(true, dir, 64 * 1024, 10);
+        WebhookEvent pullRequest = new WebhookEvent("moslem", "giteaFinalProject", null, null, null, null, null,
+                "opened", "Add templates", "12", "https://gitea/pr/12", "org");
+        journal.append(pullRequest, "pull_request_opened", List.of("general"));
+        journal.close();
+
+        OutboxJournal reopened = new OutboxJournal(true, dir, 64 * 1024, 10);
+
+        assertEquals(pullRequest, reopened.takeRecovered().get(0).event());
+        reopened.close();
+    }
+
+    @Test
+    void testRecovery_IgnoresTornTail() throws IOException {
+        OutboxJournal journal = new OutboxJournal(true, dir, 64 * 1024, 10);
+        journal.append(event("kept"), "push", List.of("general"));
+        journal.append(event("torn"), "push", List.of("general"));
+        journal.close();
+        corruptLastRecordChecksum();
+
+        OutboxJournal reopened = new OutboxJournal(true, dir, 64 * 1024, 10);
+        List<Notification> recovered = reopened.takeRecovered();
+
+        assertEquals(1, recovered.size());
+        assertEquals("kept", recovered.get(0).event().ref());
+        reopened.close();
+    }
+
+    @Test
+    void testRotation_DeliveredSegmentsAreDeleted() throws IOException {
+        OutboxJournal journal = new OutboxJournal(true, dir, 4096, 10);
+        for (int i = 0; i < 200; i++) {
+            Notification notification = journal.append(event("branch-" + i), "push", List.of("general"));
+            journal.markDelivered(notification.sequence(), "general");
+        }
+
+        assertEquals(0, journal.getPendingCount());
+        assertEquals(1, journal.getSegmentCount());
+        assertEquals(1, segmentFiles().size());
+        journal.close();
+    }
+
+    @Test
+    void testCompaction_CopiesStragglersForward() throws IOException {
+        OutboxJournal journal = new OutboxJournal(true, dir, 4096, 10);
+        Notification straggler = journal.append(event("straggler"), "push", List.of("general"));
+        for (int i = 0; i < 200; i++) {
+            Notification notification = journal.append(event("branch-" + i), "push", List.of("general"));
+            journal.markDelivered(notification.sequence(), "general");
+        }
+
+        assertTrue(segmentFiles().size() <= 2);
+        journal.close();
+
+        OutboxJournal reopened = new OutboxJournal(true, dir, 4096, 10);
+        assertEquals(List.of(straggler), reopened.takeRecovered());
+        reopened.close();
+    }
+
+    @Test
+    void testCompaction_RotationWhileCopyingForwardKeepsSealedSegment() throws IOException {
+        // Five large events fill the first segment exactly, so the next append seals it.
+        OutboxJournal journal = new OutboxJournal(true, dir, 8192, 10);
+        List<Notification> large = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            large.add(journal.append(event(String.valueOf(i).repeat(1536)), "push", List.of("general")));
+        }
+        // The second segment holds only undelivered events and is left with less room than a large event.
+        for (int i = 0; i < 70; i++) {
+            journal.append(event(String.format("pending-%02d", i)), "push", List.of("general"));
+        }
+        // Delivering all but one large event compacts the first segment, and the copy rotates the second.
+        for (int i = 0; i < 4; i++) {
+            journal.markDelivered(large.get(i).sequence(), "general");
+        }
+
+        assertEquals(71, journal.getPendingCount());
+        assertEquals(2, journal.getSegmentCount());
+        assertEquals(2, segmentFiles().size());
+        journal.close();
+
+        OutboxJournal reopened = new OutboxJournal(true, dir, 8192, 10);
+        List<Notification> recovered = reopened.takeRecovered();
+        assertEquals(71, recovered.size());
+        assertTrue(recovered.contains(large.get(4)));
+        reopened.close();
+    }
+
+    @Test
+    void testDisabled_AssignsSequencesWithoutTouchingDisk() throws IOException {
+        OutboxJournal journal = new OutboxJournal(false, dir.resolve("unused"), 4096, 10);
+
+        Notification notification = journal.append(event("a"), "push", List.of("general"));
+        journal.markDelivered(notification.sequence(), "general");
+
+        assertEquals(1, notification.sequence());
+        assertEquals(0, journal.getPendingCount());
+        assertFalse(Files.exists(dir.resolve("unused")));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    private void corruptLastRecordChecksum() throws IOException {
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            long position = 0;
+            long lastPosition = 0;
+            while (true) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                if (length <= 0) {
+                    break;
+                }
+                lastPosition = position;
+                position += 8 + length;
+            }
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f, 0x7f, 0x7f, 0x7f}), lastPosition + 4);
+        }
+    }
+
+    private static WebhookEvent event(String ref) {
+        return new WebhookEvent("moslem", "giteaFinalProject", ref, "abc123", "def456", null, null, null);
+    }
+}
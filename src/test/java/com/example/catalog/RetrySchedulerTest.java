@@ -0,0 +1,76 @@
+package com.example.catalog;
+
+import com.example.catalog.services.RetryScheduler;
+import com.example.catalog.services.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetrySchedulerTest {
+
+    @Test
+    void testBackoff_GrowsExponentiallyWithinJitterBounds() {
+        RetryScheduler scheduler = new RetryScheduler(5, 1000, 60000, 2.0, 3600000, 100, 64);
+        try {
+            for (int attempt = 1; attempt <= 4; attempt++) {
+                long full = 1000L << (attempt - 1);
+                long backoff = scheduler.backoffMillis(attempt);
+                assertTrue(backoff >= full / 2 && backoff <= full, "attempt " + attempt + " backoff " + backoff);
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testBackoff_IsCappedAtMaxDelay() {
+        RetryScheduler scheduler = new RetryScheduler(20, 1000, 5000, 2.0, 3600000, 100, 64);
+        try {
+            assertTrue(scheduler.backoffMillis(15) <= 5000);
+            assertTrue(scheduler.backoffMillis(15) >= 2500);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testCanRetry_StopsAtMaxAttempts() {
+        RetryScheduler scheduler = new RetryScheduler(3, 1000, 60000, 2.0, 3600000, 100, 64);
+        try {
+            assertTrue(scheduler.canRetry(1));
+            assertTrue(scheduler.canRetry(2));
+            assertFalse(scheduler.canRetry(3));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testTimingWheel_FiresTasksAfterTheirDelay() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel("test-wheel", 5, 8);
+        try {
+            CountDownLatch fired = new CountDownLatch(2);
+            long start = System.nanoTime();
+            wheel.schedule(fired::countDown, 20, TimeUnit.MILLISECONDS);
+            // Longer than one revolution of the wheel (8 ticks of 5 ms), so it has to wait out rounds.
+            wheel.schedule(fired::countDown, 100, TimeUnit.MILLISECONDS);
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertEquals(0, wheel.size());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void testTimingWheel_RefusesTasksOnceStopped() {
+        TimingWheel wheel = new TimingWheel("test-wheel", 5, 8);
+        wheel.stop();
+
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> { }, 10, TimeUnit.MILLISECONDS));
+    }
+}
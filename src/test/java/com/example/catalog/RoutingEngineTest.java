@@ -0,0 +1,124 @@
+package com.example.catalog;
+
+import com.example.catalog.model.RoutingRule;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.RoutingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingEngineTest {
+
+    @Test
+    void testRoute_DefaultRulesKeepOriginalRouting() {
+        RoutingEngine engine = new RoutingEngine(environment());
+
+        assertEquals(List.of("general", "my-events"), engine.route(event("moslem", "giteaFinalProject", "org", "main"), "push"));
+        assertEquals(List.of("general"), engine.route(event("someone", "giteaFinalProject", "org", "main"), "push"));
+        assertEquals(List.of("my-events"), engine.route(event("moslem", "other", "org", "main"), "push"));
+        assertEquals(List.of(), engine.route(event("someone", "other", "org", "main"), "push"));
+    }
+
+    @Test
+    void testRoute_RulesFromConfiguration() {
+        MockEnvironment environment = environment()
+                .withProperty("discord.destinations.reviews", "https://discord.test/reviews")
+                .withProperty("email.destinations.audit", "audit@example.com")
+                .withProperty("routing.rules[0].owners", "platform")
+                .withProperty("routing.rules[0].event-types", "pull_request_opened,pull_request_closed")
+                .withProperty("routing.rules[0].destinations", "reviews,audit");
+        RoutingEngine engine = new RoutingEngine(environment);
+
+        assertEquals(1, engine.getRuleCount());
+        assertEquals(List.of("reviews", "audit"), engine.route(event("a", "api", "platform", null), "pull_request_opened"));
+        assertEquals(List.of(), engine.route(event("a", "api", "platform", null), "issues_opened"));
+        assertEquals(List.of(), engine.route(event("a", "api", "other", null), "pull_request_opened"));
+    }
+
+    @Test
+    void testRoute_BranchGlobs() {
+        RoutingEngine engine = new RoutingEngine(List.of(
+                branchRule("main", "exact"),
+                branchRule("release/*", "release"),
+                branchRule("feature/**", "feature"),
+                branchRule("*-hotfix", "hotfix")));
+
+        assertEquals(List.of("exact"), route(engine, "refs/heads/main"));
+        assertEquals(List.of("release"), route(engine, "refs/heads/release/1.2"));
+        assertEquals(List.of(), route(engine, "refs/heads/release/1.2/rc"));
+        assertEquals(List.of("feature"), route(engine, "refs/heads/feature/a/b"));
+        assertEquals(List.of("hotfix"), route(engine, "urgent-hotfix"));
+        assertEquals(List.of(), route(engine, "team/urgent-hotfix"));
+        assertEquals(List.of(), route(engine, "mainline"));
+        assertEquals(List.of(), route(engine, null));
+    }
+
+    @Test
+    void testRoute_ManyRulesMergeDestinationsInRuleOrder() {
+        List<RoutingRule> rules = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rules.add(new RoutingRule(List.of("repo-" + i), null, null, null, null, List.of("channel-" + i)));
+        }
+        rules.add(new RoutingRule(null, null, List.of("moslem"), null, null, List.of("channel-7", "my-events")));
+        rules.add(new RoutingRule(null, null, null, List.of("push"), List.of("release/*"), List.of("releases")));
+        RoutingEngine engine = new RoutingEngine(rules);
+
+        assertEquals(List.of("channel-7", "my-events", "releases"),
+                engine.route(event("moslem", "repo-7", "org", "refs/heads/release/2"), "push"));
+        assertEquals(List.of("channel-250"), engine.route(event("x", "repo-250", "org", "main"), "push"));
+    }
+
+    @Test
+    void testRules_WithoutDestinationsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RoutingEngine(List.of(new RoutingRule(List.of("repo"), null, null, null, null, null))));
+    }
+
+    @Test
+    void testRules_SendingToUnknownDestinationAreRejectedAtStartup() {
+        MockEnvironment environment = environment()
+                .withProperty("routing.rules[0].destinations", "general,releases");
+
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class, () -> new RoutingEngine(environment));
+
+        assertEquals("Routing rule 0 sends to unknown destination releases", unknown.getMessage());
+    }
+
+    @Test
+    void testReplace_SwapsRulesAndWebhookUrlsTogether() {
+        RoutingEngine engine = new RoutingEngine(List.of(branchRule("main", "general")),
+                Map.of("general", "https://discord.test/general"), Set.of());
+
+        Map<String, String> previous = engine.replace(new RoutingEngine(List.of(branchRule("main", "releases")),
+                Map.of("releases", "https://discord.test/releases"), Set.of()));
+
+        assertEquals(Map.of("general", "https://discord.test/general"), previous);
+        assertEquals(List.of("releases"), route(engine, "main"));
+        assertEquals("https://discord.test/releases", engine.webhookUrl("releases"));
+        assertNull(engine.webhookUrl("general"));
+    }
+
+    private static List<String> route(RoutingEngine engine, String ref) {
+        return engine.route(event("a", "repo", "org", ref), "push");
+    }
+
+    private static RoutingRule branchRule(String branch, String destination) {
+        return new RoutingRule(null, null, null, null, List.of(branch), List.of(destination));
+    }
+
+    private static WebhookEvent event(String actor, String repo, String owner, String ref) {
+        return new WebhookEvent(actor, repo, ref, null, null, null, null, null, null, null, null, owner);
+    }
+
+    private static MockEnvironment environment() {
+        return new MockEnvironment()
+                .withProperty("general.channel.url", "https://discord.test/general")
+                .withProperty("my.events.url", "https://discord.test/my-events");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.catalog;
+
+import com.example.catalog.services.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    void testReserve_BurstIsAvailableImmediately() {
+        TokenBucket bucket = new TokenBucket(2.5, 5, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(800), bucket.reserve());
+    }
+
+    @Test
+    void testReserve_RefillsOverTime() {
+        TokenBucket bucket = new TokenBucket(2.5, 5, clock::get);
+        for (int i = 0; i < 5; i++) {
+            bucket.reserve();
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(800));
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), bucket.reserve());
+    }
+
+    @Test
+    void testReserve_IdleTimeDoesNotAccumulateBeyondBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, clock::get);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
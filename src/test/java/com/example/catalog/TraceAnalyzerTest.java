@@ -0,0 +1,100 @@
+package com.example.catalog;
+
+import com.example.catalog.model.LatencyBreakdown;
+import com.example.catalog.model.StageLatency;
+import com.example.catalog.model.TraceLatency;
+import com.example.catalog.services.TraceAnalyzer;
+import com.example.catalog.services.WebhookStageEvent;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceAnalyzerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAnalyze_JoinsIngressAndDeliveryStagesBySequence() throws Exception {
+        Path file = record(() -> {
+            webhook("fast", 1, 0);
+            webhook("slow", 2, 50);
+        });
+
+        LatencyBreakdown breakdown = TraceAnalyzer.analyze(file, 10);
+
+        assertEquals(16, breakdown.events());
+        assertEquals(List.of("resolve", "parse", "dedup", "classify", "route", "enqueue", "queued", "format", "send"),
+                breakdown.stages().stream().map(StageLatency::stage).toList());
+        StageLatency send = breakdown.stages().get(8);
+        assertEquals(2, send.count());
+        assertTrue(send.maxMillis() >= 50, "slow send took " + send.maxMillis());
+
+        TraceLatency slowest = breakdown.slowest().get(0);
+        assertEquals("slow", slowest.deliveryId());
+        assertEquals(2, slowest.sequence());
+        assertEquals("push", slowest.eventType());
+        assertEquals("api", slowest.repo());
+        assertTrue(slowest.totalMillis() >= slowest.stageMillis().get("send"));
+        assertTrue(slowest.stageMillis().containsKey("queued"));
+        assertEquals("fast", breakdown.slowest().get(1).deliveryId());
+    }
+
+    @Test
+    void testAnalyze_DeliveryWithoutIngressIsReportedBySequence() throws Exception {
+        Path file = record(() -> {
+            WebhookStageEvent send = WebhookStageEvent.start();
+            send.finish(WebhookStageEvent.STAGE_SEND, null, 42, "push", "api", "general");
+        });
+
+        LatencyBreakdown breakdown = TraceAnalyzer.analyze(file, 10);
+
+        assertEquals(1, breakdown.slowest().size());
+        assertNull(breakdown.slowest().get(0).deliveryId());
+        assertEquals(42, breakdown.slowest().get(0).sequence());
+    }
+
+    @Test
+    void testStageEvent_IsNotRecordedWithoutRecording() throws Exception {
+        WebhookStageEvent.start().finish(WebhookStageEvent.STAGE_PARSE, "before", 0, null, null, null);
+        Path file = record(() -> { });
+
+        assertEquals(0, TraceAnalyzer.analyze(file, 10).events());
+    }
+
+    private static void webhook(String deliveryId, long sequence, long sendMillis) throws InterruptedException {
+        for (String stage : List.of(WebhookStageEvent.STAGE_RESOLVE, WebhookStageEvent.STAGE_PARSE,
+                WebhookStageEvent.STAGE_DEDUP, WebhookStageEvent.STAGE_CLASSIFY, WebhookStageEvent.STAGE_ROUTE)) {
+            WebhookStageEvent.start().finish(stage, deliveryId, 0, "push", "api", null);
+        }
+        WebhookStageEvent.start().finish(WebhookStageEvent.STAGE_ENQUEUE, deliveryId, sequence, "push", "api", null);
+        WebhookStageEvent.start().finish(WebhookStageEvent.STAGE_FORMAT, null, sequence, "push", "api", null);
+        WebhookStageEvent send = WebhookStageEvent.start();
+        Thread.sleep(sendMillis);
+        send.finish(WebhookStageEvent.STAGE_SEND, null, sequence, "push", "api", "general");
+    }
+
+    private interface Stages {
+        void run() throws Exception;
+    }
+
+    private Path record(Stages stages) throws Exception {
+        Path file = dir.resolve("stages.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(WebhookStageEvent.NAME).withoutStackTrace();
+            recording.start();
+            stages.run();
+            recording.stop();
+            recording.dump(file);
+        } catch (IOException e) {
+            fail(e);
+        }
+        return file;
+    }
+}
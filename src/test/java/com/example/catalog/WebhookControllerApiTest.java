@@ -4,20 +4,27 @@ import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.TestPropertySource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureObservability
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class WebhookControllerApiTest {
 
+    private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
     @LocalServerPort
     private int port;
 
@@ -46,8 +53,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
     }
 
     @Test
@@ -69,8 +76,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
 
         given()
                 .contentType(ContentType.JSON)
@@ -100,8 +107,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
     }
 
     @Test
@@ -122,8 +129,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
     }
 
     @Test
@@ -144,8 +151,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
     }
 
     @Test
@@ -167,8 +174,8 @@ class WebhookControllerApiTest {
                 .when()
                 .post("/gitea/webhook")
                 .then()
-                .statusCode(200)
-                .body(equalTo("Webhook received and processed"));
+                .statusCode(202)
+                .body(equalTo("Webhook accepted for delivery"));
     }
 
     @Test
@@ -199,4 +206,161 @@ class WebhookControllerApiTest {
                 .body(equalTo("Invalid webhook payload: Missing required fields."));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testPrometheusEndpoint_ExposesPipelineMetrics() {
+        Map<String, Object> payload = new HashMap<>();
+        Map<String, Object> sender = new HashMap<>();
+        sender.put("login", "someone");
+        payload.put("sender", sender);
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("name", "metrics-repo");
+        payload.put("repository", repository);
+        payload.put("ref", "refs/heads/main");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(payload)
+                .when()
+                .post("/gitea/webhook")
+                .then()
+                .statusCode(202);
+
+        given()
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(200)
+                .body(containsString("webhook_payload_size_bytes_count"),
+                        containsString("webhook_stage_duration_seconds_bucket{stage=\"parse\""),
+                        containsString("outcome=\"unrouted\""),
+                        containsString("webhook_dedup_lookups_total{result=\"miss\"}"),
+                        containsString("webhook_dedup_hit_ratio"),
+                        containsString("notifier_queue_depth"),
+                        containsString("http_server_requests_seconds_count"));
+    }
+
+    @Test
+    void testBulkEndpoint_StreamsOneResultPerLine() {
+        String push = "{\"ref\":\"refs/heads/bulk\",\"before\":\"a\",\"after\":\"b\","
+                + "\"sender\":{\"login\":\"bulk-user\"},\"repository\":{\"name\":\"bulk-repo\"}}";
+        String ndjson = push + "\n" + push + "\n{\"delivery\":\"bulk-1\",\"event\":\"push\",\"payload\":{}}\n";
+
+        String body = given()
+                .contentType("application/x-ndjson")
+                .header("X-Gitea-Event", "push")
+                .body(ndjson.getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post("/gitea/webhook/bulk")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract().asString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length, body);
+        assertThat(lines[0], containsString("\"status\":202"));
+        assertThat(lines[1], containsString("\"status\":200"));
+        assertThat(lines[2], allOf(containsString("\"delivery\":\"bulk-1\""), containsString("\"status\":400")));
+    }
+
+    @Test
+    void testHistoryEndpoint_ListsEventsForRepo() {
+        String push = "{\"ref\":\"refs/heads/history\",\"before\":\"a\",\"after\":\"b\","
+                + "\"sender\":{\"login\":\"moslem\"},\"repository\":{\"name\":\"history-repo\"}}";
+        given()
+                .contentType(ContentType.JSON)
+                .header("X-Gitea-Event", "push")
+                .body(push)
+                .when()
+                .post("/gitea/webhook")
+                .then()
+                .statusCode(202);
+
+        given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .queryParam("repo", "history-repo")
+                .queryParam("since", "2020-01-01T00:00:00Z")
+                .when()
+                .get("/gitea/admin/history")
+                .then()
+                .statusCode(200)
+                .body("events", hasSize(1),
+                        "events[0].eventType", equalTo("push"),
+                        "events[0].actor", equalTo("moslem"),
+                        "events[0].ref", equalTo("refs/heads/history"),
+                        "events[0].destinations", contains("my-events"),
+                        "events[0].outcome", equalTo("accepted"),
+                        "nextCursor", nullValue());
+    }
+
+    @Test
+    void testRecordingEndpoints_BreakDownWebhookStages() {
+        long id = given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .queryParam("seconds", 30)
+                .when()
+                .post("/gitea/admin/recordings")
+                .then()
+                .statusCode(201)
+                .extract().jsonPath().getLong("id");
+        String push = "{\"ref\":\"refs/heads/traced\",\"before\":\"a\",\"after\":\"b\","
+                + "\"sender\":{\"login\":\"moslem\"},\"repository\":{\"name\":\"traced-repo\"}}";
+        given()
+                .contentType(ContentType.JSON)
+                .header("X-Gitea-Event", "push")
+                .header("X-Gitea-Delivery", "traced-1")
+                .body(push)
+                .when()
+                .post("/gitea/webhook")
+                .then()
+                .statusCode(202);
+
+        given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .when()
+                .get("/gitea/admin/recordings/" + id + "/breakdown")
+                .then()
+                .statusCode(200)
+                .body("stages.stage", hasItems("resolve", "parse", "dedup", "classify", "route", "admit", "enqueue"),
+                        "slowest.deliveryId", hasItem("traced-1"));
+        given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .when()
+                .get("/gitea/admin/recordings/" + id + "/file")
+                .then()
+                .statusCode(200)
+                .contentType("application/octet-stream");
+        given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .when()
+                .get("/gitea/admin/recordings/999999/breakdown")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void testAdminEndpoints_RequireAdminToken() {
+        given()
+                .when()
+                .get("/gitea/admin/destinations")
+                .then()
+                .statusCode(401);
+        given()
+                .header("Authorization", "Bearer guessed")
+                .when()
+                .post("/gitea/admin/dead-letters/redrive")
+                .then()
+                .statusCode(401);
+        given()
+                .when()
+                .get("/gitea/admin/destinations;x=1")
+                .then()
+                .statusCode(401);
+        given()
+                .header("Authorization", ADMIN_AUTHORIZATION)
+                .when()
+                .get("/gitea/admin/destinations")
+                .then()
+                .statusCode(200);
+    }
+}
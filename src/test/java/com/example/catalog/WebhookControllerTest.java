@@ -1,30 +1,62 @@
 package com.example.catalog;
 
 import com.example.catalog.controller.WebhookController;
-import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.model.HistoryRecord;
+import com.example.catalog.model.TraceLatency;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.AdmissionControl;
+import com.example.catalog.services.BulkWebhookIngester;
+import com.example.catalog.services.EventHistory;
+import com.example.catalog.services.EventPriorities;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RoutingEngine;
+import com.example.catalog.services.TraceAnalyzer;
+import com.example.catalog.services.WebhookDeduplicator;
+import com.example.catalog.services.WebhookIngestService;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import com.example.catalog.services.WebhookSignatureVerifier;
+import com.example.catalog.services.WebhookStageEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class WebhookControllerTest {
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private WebhookController webhookController;
-    private DiscordNotifier discordNotifier;
+    private NotificationDispatcher notificationDispatcher;
+    private EventHistory eventHistory;
 
     @BeforeEach
     void setUp() {
-        discordNotifier = mock(DiscordNotifier.class);
-        webhookController = new WebhookController(discordNotifier);
+        notificationDispatcher = mock(NotificationDispatcher.class);
+        when(notificationDispatcher.dispatch(any(), anyString(), anyList(), any())).thenReturn(true);
+        eventHistory = new EventHistory(100);
+        WebhookIngestService ingestService = new WebhookIngestService(notificationDispatcher,
+                new WebhookDeduplicator(5, 1000), new WebhookPayloadExtractor(objectMapper, 1024),
+                GiteaEventRegistryTest.registry(), new RoutingEngine(RoutingEngine.DEFAULT_RULES),
+                new AdmissionControl(new EventPriorities(), notificationDispatcher, 0.5, 0.75, 0.9, 30),
+                eventHistory, PipelineMetrics.inMemory());
+        webhookController = new WebhookController(ingestService,
+                new BulkWebhookIngester(ingestService, notificationDispatcher, new WebhookSignatureVerifier(List.of()),
+                        objectMapper, 0.5, 1000));
     }
 
     @Test
@@ -39,10 +71,10 @@ class WebhookControllerTest {
         payload.put("before", "abc123");
         payload.put("after", "def456");
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("Webhook received and processed", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(contains("Push Event"), eq(true), eq(true));
+        ResponseEntity<String> response = handleWebhook(payload);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Webhook accepted for delivery", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), eq("push"), eq(List.of("general", "my-events")), any());
     }
 
     @Test
@@ -57,12 +89,12 @@ class WebhookControllerTest {
         payload.put("before", "abc123");
         payload.put("after", "def456");
 
-        webhookController.handleWebhook(payload);
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
+        handleWebhook(payload);
+        ResponseEntity<String> response = handleWebhook(payload);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Duplicate webhook ignored", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        verify(notificationDispatcher, times(1)).dispatch(any(), anyString(), anyList(), any());
     }
 
 
@@ -78,10 +110,10 @@ class WebhookControllerTest {
         repository.put("name", "giteaFinalProject");
         payload.put("repository", repository);
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("Webhook received and processed", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(contains("New Branch Created"), eq(true), eq(true));
+        ResponseEntity<String> response = handleWebhook(payload);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Webhook accepted for delivery", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), eq("create_branch"), eq(List.of("general", "my-events")), any());
     }
 
     @Test
@@ -97,10 +129,10 @@ class WebhookControllerTest {
         payload.put("repository", repository);
         payload.put("action", "deleted");
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("Webhook received and processed", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(contains("Branch Deleted"), eq(true), eq(true));
+        ResponseEntity<String> response = handleWebhook(payload);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Webhook accepted for delivery", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), eq("delete_branch"), eq(List.of("general", "my-events")), any());
     }
 
     @Test
@@ -114,10 +146,10 @@ class WebhookControllerTest {
         repository.put("name", "testRepo");
         payload.put("repository", repository);
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("Webhook received and processed", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(contains("New Repository Created"), eq(false), eq(true));
+        ResponseEntity<String> response = handleWebhook(payload);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Webhook accepted for delivery", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), eq("repo_created"), eq(List.of("my-events")), any());
     }
 
     @Test
@@ -131,21 +163,21 @@ class WebhookControllerTest {
         repository.put("name", "testRepo");
         payload.put("repository", repository);
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("Webhook received and processed", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(contains("Repository Deleted"), eq(false), eq(true));
+        ResponseEntity<String> response = handleWebhook(payload);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Webhook accepted for delivery", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), eq("repo_deleted"), eq(List.of("my-events")), any());
     }
 
     @Test
     void testHandleWebhook_EmptyPayload_ShouldReturnBadRequest() {
         Map<String, Object> payload = new HashMap<>();
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
+        ResponseEntity<String> response = handleWebhook(payload);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Invalid payload: Request body is empty.", response.getBody());
-        verify(discordNotifier, never()).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
     }
 
     @Test
@@ -154,11 +186,11 @@ class WebhookControllerTest {
         payload.put("before", "abc123");
         payload.put("after", "def456");
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
+        ResponseEntity<String> response = handleWebhook(payload);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Invalid webhook payload: Missing required fields.", response.getBody());
-        verify(discordNotifier, never()).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
     }
 
     @Test
@@ -166,11 +198,11 @@ class WebhookControllerTest {
         Map<String, Object> payload = new HashMap<>();
         payload.put("invalid_key", "some_value");
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
+        ResponseEntity<String> response = handleWebhook(payload);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Invalid webhook payload: Missing required fields.", response.getBody());
-        verify(discordNotifier, never()).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
     }
 
     @Test
@@ -185,12 +217,179 @@ class WebhookControllerTest {
         payload.put("before", "abc123");
         payload.put("after", "def456");
 
-        doThrow(new RuntimeException("Unexpected error")).when(discordNotifier).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        when(notificationDispatcher.dispatch(any(), anyString(), anyList(), any()))
+                .thenThrow(new RuntimeException("Unexpected error"))
+                .thenReturn(true);
 
-        ResponseEntity<String> response = webhookController.handleWebhook(payload);
+        ResponseEntity<String> response = handleWebhook(payload);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertEquals("Error processing webhook", response.getBody());
-        verify(discordNotifier, times(1)).sendNotification(anyString(), anyBoolean(), anyBoolean());
+        verify(notificationDispatcher, times(1)).dispatch(any(), anyString(), anyList(), any());
+
+        ResponseEntity<String> redelivery = handleWebhook(payload);
+
+        assertEquals(HttpStatus.ACCEPTED, redelivery.getStatusCode());
+        verify(notificationDispatcher, times(2)).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void testHandleWebhook_QueueFull_ShouldReturnServiceUnavailable() {
+        Map<String, Object> payload = new HashMap<>();
+        Map<String, Object> sender = new HashMap<>();
+        sender.put("login", "moslem");
+        payload.put("sender", sender);
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("name", "giteaFinalProject");
+        payload.put("repository", repository);
+        payload.put("before", "abc123");
+        payload.put("after", "def456");
+
+        when(notificationDispatcher.dispatch(any(), anyString(), anyList(), any())).thenReturn(false);
+
+        ResponseEntity<String> response = handleWebhook(payload);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Delivery queue is full, try again later.", response.getBody());
+    }
+
+    @Test
+    void testHandleWebhook_SameDeliveryIdWithDifferentBodyIgnored() throws JsonProcessingException {
+        Map<String, Object> payload = new HashMap<>();
+        Map<String, Object> sender = new HashMap<>();
+        sender.put("login", "moslem");
+        payload.put("sender", sender);
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("name", "giteaFinalProject");
+        payload.put("repository", repository);
+        payload.put("before", "abc123");
+        payload.put("after", "def456");
+
+        webhookController.handleWebhook("delivery-1", null, null, objectMapper.writeValueAsBytes(payload));
+        payload.put("after", "fed654");
+        ResponseEntity<String> response = webhookController.handleWebhook("delivery-1", null, null, objectMapper.writeValueAsBytes(payload));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Duplicate webhook ignored", response.getBody());
+        verify(notificationDispatcher, times(1)).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void testHandleWebhook_StagesWithoutDeliveryIdShareOneTrace(@TempDir Path dir) throws Exception {
+        Map<String, Object> payload = new HashMap<>();
+        Map<String, Object> sender = new HashMap<>();
+        sender.put("login", "moslem");
+        payload.put("sender", sender);
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("name", "giteaFinalProject");
+        payload.put("repository", repository);
+        payload.put("before", "abc123");
+        payload.put("after", "def456");
+
+        Path file = dir.resolve("stages.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(WebhookStageEvent.NAME).withoutStackTrace();
+            recording.start();
+            handleWebhook(payload);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<TraceLatency> traces = TraceAnalyzer.analyze(file, 10).slowest();
+        assertEquals(1, traces.size());
+        assertTrue(traces.get(0).deliveryId().startsWith("body:"));
+        assertEquals(List.of("resolve", "parse", "dedup", "classify", "route", "admit"),
+                List.copyOf(traces.get(0).stageMillis().keySet()));
+    }
+
+    @Test
+    void testHandleWebhook_MalformedJson_ShouldReturnBadRequest() {
+        ResponseEntity<String> response = webhookController.handleWebhook(null, null, null, "{\"sender\":".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid payload: Malformed JSON.", response.getBody());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void testHandleWebhook_OversizedPayload_ShouldReturnPayloadTooLarge() {
+        byte[] body = ("{\"padding\":\"" + "x".repeat(2048) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+        ResponseEntity<String> response = webhookController.handleWebhook(null, null, null, body);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        assertEquals("Invalid payload: Request body exceeds 1024 bytes.", response.getBody());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void testHandleWebhook_PullRequestClassifiedFromHeader() throws JsonProcessingException {
+        String body = "{\"action\":\"opened\",\"number\":12,"
+                + "\"pull_request\":{\"title\":\"Add templates\",\"html_url\":\"https://gitea/pr/12\",\"body\":\"long\"},"
+                + "\"repository\":{\"name\":\"giteaFinalProject\"},\"sender\":{\"login\":\"moslem\"}}";
+
+        ResponseEntity<String> response = webhookController.handleWebhook("delivery-pr", "pull_request", "pull_request",
+                body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        ArgumentCaptor<WebhookEvent> event = ArgumentCaptor.forClass(WebhookEvent.class);
+        verify(notificationDispatcher).dispatch(event.capture(), eq("pull_request_opened"), eq(List.of("general", "my-events")), any());
+        assertEquals("Add templates", event.getValue().title());
+        assertEquals("12", event.getValue().number());
+        assertEquals("https://gitea/pr/12", event.getValue().url());
+    }
+
+    @Test
+    void testHandleWebhook_DeleteHeaderClassifiesTagDelete() {
+        String body = "{\"ref\":\"v1.0\",\"ref_type\":\"tag\",\"pusher_type\":\"user\","
+                + "\"repository\":{\"name\":\"giteaFinalProject\"},\"sender\":{\"login\":\"moslem\"}}";
+
+        webhookController.handleWebhook("delivery-del", "delete", null, body.getBytes(StandardCharsets.UTF_8));
+
+        verify(notificationDispatcher).dispatch(any(), eq("delete_tag"), anyList(), any());
+    }
+
+    @Test
+    void testHandleWebhook_BusyQueue_ShedsPushWithRetryAfter() {
+        when(notificationDispatcher.getQueueCapacity()).thenReturn(10);
+        when(notificationDispatcher.getBacklog()).thenReturn(8);
+        String body = "{\"ref\":\"refs/heads/main\",\"before\":\"a\",\"after\":\"b\","
+                + "\"repository\":{\"name\":\"giteaFinalProject\"},\"sender\":{\"login\":\"moslem\"}}";
+
+        ResponseEntity<String> response = webhookController.handleWebhook("delivery-push", "push", null,
+                body.getBytes(StandardCharsets.UTF_8));
+        ResponseEntity<String> retried = webhookController.handleWebhook("delivery-push", "push", null,
+                body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst("Retry-After"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, retried.getStatusCode());
+        verify(notificationDispatcher, never()).dispatch(any(), anyString(), anyList(), any());
+        List<HistoryRecord> history = eventHistory.query("giteaFinalProject", null, "push", null, null, null, 10).events();
+        assertEquals(2, history.size());
+        assertEquals("shed", history.get(0).outcome());
+        assertEquals(List.of("general", "my-events"), history.get(0).destinations());
+    }
+
+    @Test
+    void testHandleWebhook_BusyQueue_AdmitsCriticalEvent() {
+        when(notificationDispatcher.getQueueCapacity()).thenReturn(10);
+        when(notificationDispatcher.getBacklog()).thenReturn(9);
+        String body = "{\"ref\":\"feature\",\"ref_type\":\"branch\",\"pusher_type\":\"user\","
+                + "\"repository\":{\"name\":\"giteaFinalProject\"},\"sender\":{\"login\":\"moslem\"}}";
+
+        ResponseEntity<String> response = webhookController.handleWebhook("delivery-del", "delete", null,
+                body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verify(notificationDispatcher).dispatch(any(), eq("delete_branch"), anyList(), any());
+    }
+
+    private ResponseEntity<String> handleWebhook(Map<String, Object> payload) {
+        try {
+            return webhookController.handleWebhook(null, null, null, objectMapper.writeValueAsBytes(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.example.catalog;
+
+import com.example.catalog.services.WebhookDeduplicator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookDeduplicatorTest {
+
+    @Test
+    void testDeliveryKey_PrefersGiteaDeliveryId() {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(5, 100);
+        byte[] body = "{\"ref\":\"main\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("id:abc-123", deduplicator.deliveryKey("abc-123", body));
+    }
+
+    @Test
+    void testDeliveryKey_FallsBackToBodyHash() {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(5, 100);
+        byte[] body = "{\"ref\":\"main\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] otherBody = "{\"ref\":\"dev\"}".getBytes(StandardCharsets.UTF_8);
+
+        String key = deduplicator.deliveryKey(null, body);
+
+        assertTrue(key.startsWith("body:"));
+        assertEquals(key, deduplicator.deliveryKey("", body.clone()));
+        assertNotEquals(key, deduplicator.deliveryKey(null, otherBody));
+    }
+
+    @Test
+    void testMarkIfAbsent_CountsHitsAndMisses() {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(5, 100);
+
+        assertTrue(deduplicator.markIfAbsent("id:1"));
+        assertFalse(deduplicator.markIfAbsent("id:1"));
+        assertTrue(deduplicator.markIfAbsent("id:2"));
+
+        assertEquals(1, deduplicator.getHitCount());
+        assertEquals(2, deduplicator.getMissCount());
+    }
+
+    @Test
+    void testMarkIfAbsent_ExpiresAfterWindow() throws InterruptedException {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(1, 100);
+
+        assertTrue(deduplicator.markIfAbsent("id:1"));
+        Thread.sleep(1100);
+
+        assertTrue(deduplicator.markIfAbsent("id:1"));
+    }
+
+    @Test
+    void testMarkIfAbsent_StaysWithinMemoryCap() {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(60, 10);
+
+        for (int i = 0; i < 100; i++) {
+            deduplicator.markIfAbsent("id:" + i);
+        }
+
+        assertTrue(deduplicator.size() <= 10);
+        assertTrue(deduplicator.getEvictionCount() >= 90);
+    }
+
+    @Test
+    void testForget_AllowsRedelivery() {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(5, 100);
+
+        deduplicator.markIfAbsent("id:1");
+        deduplicator.forget("id:1");
+
+        assertTrue(deduplicator.markIfAbsent("id:1"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.catalog;
+
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.MessageTemplate;
+import com.example.catalog.services.WebhookMessageFormatter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookMessageFormatterTest {
+
+    private final WebhookMessageFormatter formatter = new WebhookMessageFormatter();
+
+    @Test
+    void testFormat_PushEvent() {
+        String message = formatter.format(event("refs/heads/main"), "push");
+
+        assertEquals("🚀 **Push Event** by **moslem** in **giteaFinalProject**\n🔹 **Branch:** refs/heads/main", message);
+    }
+
+    @Test
+    void testFormat_BranchAndTagEvents() {
+        assertTrue(formatter.format(event("feature"), "create_branch").startsWith("🌿 **New Branch Created**"));
+        assertTrue(formatter.format(event("feature"), "delete_branch").startsWith("❌ **Branch Deleted**"));
+        assertTrue(formatter.format(event("v1.0"), "create_tag").contains("**Tag:** v1.0"));
+        assertTrue(formatter.format(event("v1.0"), "delete_tag").startsWith("🗑️ **Tag Deleted**"));
+    }
+
+    @Test
+    void testFormat_RepositoryEvents() {
+        assertEquals("📁 **New Repository Created** by **moslem**\n🔹 **Repository:** giteaFinalProject",
+                formatter.format(event(null), "repo_created"));
+        assertTrue(formatter.format(event(null), "repo_deleted").startsWith("🚨 **Repository Deleted**"));
+    }
+
+    @Test
+    void testFormat_MissingRefAndUnknownType() {
+        assertTrue(formatter.format(event(null), "push").endsWith("**Branch:** Unknown Ref"));
+        assertEquals("⚡ **Unhandled Event** in **giteaFinalProject** by **moslem**.", formatter.format(event(null), "unknown"));
+    }
+
+    @Test
+    void testFormat_ConfiguredTemplatesOverrideAndExtendBuiltIns() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("notifier.templates.push", "{actor} pushed {ref} to {repo}")
+                .withProperty("notifier.templates.create_release", "Release {ref} ({eventType}) in {repo}");
+        WebhookMessageFormatter configured = new WebhookMessageFormatter(environment);
+
+        assertEquals("moslem pushed main to giteaFinalProject", configured.format(event("main"), "push"));
+        assertEquals("Release v2 (create_release) in giteaFinalProject", configured.format(event("v2"), "create_release"));
+        assertTrue(configured.format(event("feature"), "create_branch").startsWith("🌿 **New Branch Created**"));
+    }
+
+    @Test
+    void testCompile_RejectsUnknownAndUnterminatedPlaceholders() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("{author} pushed"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("{actor pushed"));
+        assertThrows(IllegalArgumentException.class, () -> new WebhookMessageFormatter(Map.of("push", "{nope}")));
+    }
+
+    @Test
+    void testRender_MissingFieldsAndEscapedBrace() {
+        MessageTemplate template = MessageTemplate.compile("{{}{action}} {before}..{after} {refType}");
+
+        assertEquals("{} .. ", template.render(event(null), "push"));
+    }
+
+    private static WebhookEvent event(String ref) {
+        return new WebhookEvent("moslem", "giteaFinalProject", ref, null, null, null, null, null);
+    }
+}
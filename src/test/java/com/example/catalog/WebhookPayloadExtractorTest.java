@@ -0,0 +1,68 @@
+package com.example.catalog;
+
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookPayloadExtractorTest {
+
+    private final WebhookPayloadExtractor extractor = new WebhookPayloadExtractor(new ObjectMapper(), 1024 * 1024);
+
+    @Test
+    void testExtract_PushPayloadSkipsUnneededSubtrees() throws IOException {
+        String json = "{"
+                + "\"ref\":\"refs/heads/main\",\"before\":\"abc123\",\"after\":\"def456\","
+                + "\"commits\":[{\"id\":\"1\",\"author\":{\"name\":\"a\",\"login\":\"not-the-sender\"},\"added\":[\"x\"]}],"
+                + "\"repository\":{\"id\":7,\"owner\":{\"login\":\"org\",\"name\":\"nested\"},\"name\":\"giteaFinalProject\"},"
+                + "\"sender\":{\"id\":1,\"login\":\"moslem\"}"
+                + "}";
+
+        WebhookEvent event = extractor.extract(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(new WebhookEvent("moslem", "giteaFinalProject", "refs/heads/main", "abc123", "def456",
+                null, null, null, null, null, null, "org"), event);
+    }
+
+    @Test
+    void testExtract_CreateBranchPayload() throws IOException {
+        String json = "{\"ref\":\"feature\",\"ref_type\":\"branch\",\"pusher_type\":\"user\","
+                + "\"action\":\"deleted\",\"sender\":{\"login\":\"moslem\"},\"repository\":{\"name\":\"repo\"}}";
+
+        WebhookEvent event = extractor.extract(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("branch", event.refType());
+        assertEquals("user", event.pusherType());
+        assertEquals("deleted", event.action());
+        assertNull(event.before());
+    }
+
+    @Test
+    void testExtract_EmptyBodiesReturnNull() throws IOException {
+        assertNull(extractor.extract(null));
+        assertNull(extractor.extract(new byte[0]));
+        assertNull(extractor.extract("{}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(extractor.extract("null".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testExtract_MalformedBodiesThrow() {
+        assertThrows(JsonProcessingException.class, () -> extractor.extract("[1,2]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(JsonProcessingException.class, () -> extractor.extract("{\"ref\":".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(JsonProcessingException.class, () -> extractor.extract("{\"ref\":\"a\"} x".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testExceedsMaxBodySize() {
+        WebhookPayloadExtractor small = new WebhookPayloadExtractor(new ObjectMapper(), 4);
+
+        assertFalse(small.exceedsMaxBodySize("{}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(small.exceedsMaxBodySize("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
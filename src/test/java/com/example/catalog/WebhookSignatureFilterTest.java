@@ -0,0 +1,126 @@
+package com.example.catalog;
+
+import com.example.catalog.controller.WebhookSignatureFilter;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.WebhookSignatureVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookSignatureFilterTest {
+
+    private static final String BODY = "{\"ref\":\"refs/heads/main\"}";
+
+    private final WebhookSignatureFilter filter = new WebhookSignatureFilter(
+            new WebhookSignatureVerifier(List.of("secret")), PipelineMetrics.inMemory(), 1024);
+
+    @Test
+    void testFilter_PassesSignedBodyThroughUnchanged() throws Exception {
+        MockHttpServletRequest request = webhook(BODY, WebhookSignatureVerifierTest.sign("secret", BODY));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(BODY, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void testFilter_RejectsMissingAndInvalidSignatures() throws Exception {
+        MockHttpServletResponse unsigned = filter(webhook(BODY, null));
+        MockHttpServletResponse forged = filter(webhook(BODY, WebhookSignatureVerifierTest.sign("guess", BODY)));
+
+        assertEquals(401, unsigned.getStatus());
+        assertEquals("Missing webhook signature.", unsigned.getContentAsString());
+        assertEquals(401, forged.getStatus());
+        assertEquals("Invalid webhook signature.", forged.getContentAsString());
+    }
+
+    @Test
+    void testFilter_RejectsOversizedBodyBeforeSigning() throws Exception {
+        String large = "{\"padding\":\"" + "x".repeat(2048) + "\"}";
+
+        MockHttpServletResponse response = filter(webhook(large, WebhookSignatureVerifierTest.sign("secret", large)));
+
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    void testFilter_BoundsBodiesWithoutSecretsToo() throws Exception {
+        WebhookSignatureFilter unsigned = new WebhookSignatureFilter(
+                new WebhookSignatureVerifier(List.of()), PipelineMetrics.inMemory(), 1024);
+        // Refused on the declared length alone, without reading the body.
+        MockHttpServletRequest declared = withContentLength(webhook("{}", null), 1048576);
+        // No Content-Length, as with a chunked upload.
+        MockHttpServletRequest chunked = withContentLength(webhook("{\"padding\":\"" + "x".repeat(2048) + "\"}", null), -1);
+        MockHttpServletRequest small = webhook(BODY, null);
+        MockFilterChain chain = new MockFilterChain();
+
+        for (MockHttpServletRequest oversized : List.of(declared, chunked)) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain rejected = new MockFilterChain();
+            unsigned.doFilter(oversized, response, rejected);
+            assertEquals(413, response.getStatus());
+            assertNull(rejected.getRequest());
+        }
+        unsigned.doFilter(small, new MockHttpServletResponse(), chain);
+        assertEquals(BODY, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFilter_CoversDecoratedAndEncodedWebhookPaths() throws Exception {
+        for (String path : List.of("/gitea/webhook;x=1", "/gitea/%77ebhook")) {
+            MockHttpServletRequest request = webhook(BODY, null);
+            request.setRequestURI(path);
+
+            assertEquals(401, filter(request).getStatus(), path);
+        }
+    }
+
+    @Test
+    void testFilter_IgnoresOtherEndpoints() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gitea/admin/destinations");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertSame(request, chain.getRequest());
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertNull(chain.getRequest());
+        return response;
+    }
+
+    private static MockHttpServletRequest withContentLength(MockHttpServletRequest request, long contentLength) {
+        MockHttpServletRequest sized = new MockHttpServletRequest(request.getMethod(), request.getRequestURI()) {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+        sized.setContent(request.getContentAsByteArray());
+        return sized;
+    }
+
+    private static MockHttpServletRequest webhook(String body, String signature) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/gitea/webhook");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setContentType("application/json");
+        if (signature != null) {
+            request.addHeader(WebhookSignatureFilter.SIGNATURE_HEADER, signature);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.catalog;
+
+import com.example.catalog.services.WebhookSignatureVerifier;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookSignatureVerifierTest {
+
+    private static final byte[] BODY = "{\"ref\":\"refs/heads/main\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testVerify_AcceptsSignatureFromAnyConfiguredSecret() {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(List.of("current", "previous"));
+
+        assertTrue(verifier.isEnabled());
+        assertTrue(verifier.verify(BODY, sign("current", BODY)));
+        assertTrue(verifier.verify(BODY, sign("previous", BODY)));
+        assertTrue(verifier.verify(BODY, sign("current", BODY).toUpperCase()));
+    }
+
+    @Test
+    void testVerify_RejectsWrongSecretTamperedBodyAndMalformedSignature() {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(List.of("current"));
+        String signature = sign("current", BODY);
+
+        assertFalse(verifier.verify(BODY, sign("other", BODY)));
+        assertFalse(verifier.verify("{\"ref\":\"refs/heads/evil\"}".getBytes(StandardCharsets.UTF_8), signature));
+        assertFalse(verifier.verify(BODY, null));
+        assertFalse(verifier.verify(BODY, signature.substring(2)));
+        assertFalse(verifier.verify(BODY, "zz" + signature.substring(2)));
+    }
+
+    @Test
+    void testVerify_ChecksOnlyTheGivenRange() {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(List.of("current"));
+        byte[] framed = ("xx" + new String(BODY, StandardCharsets.UTF_8) + "yy").getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(verifier.verify(framed, 2, BODY.length, sign("current", BODY)));
+    }
+
+    @Test
+    void testVerify_IsDisabledWithoutSecrets() {
+        assertFalse(new WebhookSignatureVerifier(List.of()).isEnabled());
+        assertFalse(new WebhookSignatureVerifier(List.of(" ")).isEnabled());
+    }
+
+    @Test
+    void testVerify_IsSafeToShareBetweenThreads() throws Exception {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(List.of("current"));
+        String signature = sign("current", BODY);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                boolean valid = i % 2 == 0;
+                results.add(executor.submit(() -> verifier.verify(BODY, valid ? signature : sign("other", BODY)) == valid));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static String sign(String secret, String body) {
+        return sign(secret, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sign(String secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
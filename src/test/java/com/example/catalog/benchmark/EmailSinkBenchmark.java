@@ -0,0 +1,93 @@
+package com.example.catalog.benchmark;
+
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.PipelineMetrics;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifications per second into a local SMTP server: {@link EmailNotifier}, which batches a burst
+ * over one kept-open connection, against the naive {@code JavaMailSender.send} per notification,
+ * which connects, authenticates and sends one message each time. Each invocation is a burst of
+ * {@value #BURST} notifications for one destination, like a CI push to many branches.
+ * Run with {@code mvn -Pbenchmark test -Djmh.args="EmailSinkBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class EmailSinkBenchmark {
+
+    static final int BURST = 40;
+    private static final String RECIPIENT = "team@example.com";
+
+    private GreenMail smtp;
+    private JavaMailSenderImpl mailSender;
+    private EmailNotifier emailNotifier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        smtp = new GreenMail(new ServerSetup(0, "localhost", ServerSetup.PROTOCOL_SMTP));
+        smtp.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getSmtp().getPort());
+        emailNotifier = new EmailNotifier(mailSender, Map.of("team", RECIPIENT), "gitea@example.com",
+                5, BURST, PipelineMetrics.inMemory());
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        smtp.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emailNotifier.shutdown();
+        smtp.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void naivePerNotification() {
+        for (int i = 0; i < BURST; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("gitea@example.com");
+            message.setTo(RECIPIENT);
+            message.setSubject("[Gitea] push " + i);
+            message.setText("🚀 New Push by moslem in giteaFinalProject\nbranch-" + i);
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void batchedOverPooledConnection() throws Exception {
+        CompletableFuture<?>[] sent = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            sent[i] = emailNotifier.send("team", "🚀 **New Push** by **moslem** in **giteaFinalProject**\nbranch-" + i);
+        }
+        CompletableFuture.allOf(sent).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.catalog.benchmark;
+
+import com.example.catalog.model.RoutingRule;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.RoutingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolution cost against the size of the rule set. Rules are a mix of repository, owner,
+ * actor, event-type and branch-glob conditions, so every index is exercised.
+ * Run with {@code mvn -Pbenchmark test -Djmh.args="RoutingBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Param({"10", "500"})
+    public int rules;
+
+    private RoutingEngine engine;
+    private WebhookEvent matchingEvent;
+    private WebhookEvent unmatchedEvent;
+
+    @Setup
+    public void setUp() {
+        List<RoutingRule> ruleSet = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+            switch (i % 5) {
+                case 0 -> ruleSet.add(new RoutingRule(List.of("repo-" + i), null, null, null, null, List.of("repo-channel-" + i)));
+                case 1 -> ruleSet.add(new RoutingRule(null, List.of("org-" + i), null, null, null, List.of("org-channel-" + i)));
+                case 2 -> ruleSet.add(new RoutingRule(null, null, List.of("user-" + i), null, null, List.of("user-channel-" + i)));
+                case 3 -> ruleSet.add(new RoutingRule(null, null, null, List.of("push"), List.of("release-" + i + "/*"), List.of("release-channel")));
+                default -> ruleSet.add(new RoutingRule(List.of("repo-" + (i - 4)), null, null, List.of("pull_request_opened"), null, List.of("reviews")));
+            }
+        }
+        engine = new RoutingEngine(ruleSet);
+        matchingEvent = new WebhookEvent("user-2", "repo-0", "refs/heads/release-3/1.0", null, null, null, null, null,
+                null, null, null, "org-1");
+        unmatchedEvent = new WebhookEvent("nobody", "nothing", "refs/heads/main", null, null, null, null, null,
+                null, null, null, "none");
+    }
+
+    @Benchmark
+    public List<String> routeMatching() {
+        return engine.route(matchingEvent, "push");
+    }
+
+    @Benchmark
+    public List<String> routeUnmatched() {
+        return engine.route(unmatchedEvent, "push");
+    }
+}
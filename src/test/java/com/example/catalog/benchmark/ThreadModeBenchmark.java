@@ -0,0 +1,143 @@
+package com.example.catalog.benchmark;
+
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.DestinationBulkheads;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.EventPriorities;
+import com.example.catalog.services.NotificationDigest;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.NotificationDispatcher.OverflowPolicy;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.OutboxJournal;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.RetryScheduler;
+import com.example.catalog.services.RoutingEngine;
+import com.example.catalog.services.WebhookMessageFormatter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares platform worker threads against one-virtual-thread-per-delivery while Discord is slow.
+ * Each benchmark thread plays a Gitea delivery: it dispatches a notification and waits until the
+ * stub Discord server has answered it. Throughput mode gives sustained webhooks/sec, sample mode
+ * gives the p99 event-to-delivery latency.
+ * <p>
+ * Virtual mode needs JDK 21+; on older JDKs both runs use platform threads.
+ * Run with {@code mvn -Pbenchmark test -Djmh.args="ThreadModeBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(200)
+public class ThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"200"})
+    public int discordLatencyMillis;
+
+    private HttpServer stubDiscord;
+    private OutboxJournal journal;
+    private RetryScheduler retryScheduler;
+    private NotificationDispatcher dispatcher;
+    private final Map<String, CountDownLatch> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stubDiscord = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        stubDiscord.setExecutor(Executors.newCachedThreadPool());
+        stubDiscord.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(discordLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        stubDiscord.start();
+
+        PipelineMetrics metrics = PipelineMetrics.inMemory();
+        DiscordNotifier notifier = new DiscordNotifier(new OutboundHttpClient(1000, 10_000, 30_000, 1024), new ObjectMapper(),
+                metrics, new RoutingEngine(RoutingEngine.DEFAULT_RULES)) {
+            @Override
+            public void send(String destination, String message) {
+                try {
+                    super.send(destination, message);
+                } finally {
+                    pending.remove(message.substring(message.lastIndexOf(' ') + 1)).countDown();
+                }
+            }
+        };
+        notifier.setDISCORD_WEBHOOK_URL("http://localhost:" + stubDiscord.getAddress().getPort() + "/webhook");
+        ReflectionTestUtils.setField(notifier, "permitsPerSecond", 1_000_000.0);
+        ReflectionTestUtils.setField(notifier, "burst", 1_000_000);
+        ReflectionTestUtils.setField(notifier, "maxRateLimitRetries", 0);
+        ReflectionTestUtils.setField(notifier, "circuitWindowSize", 20);
+        ReflectionTestUtils.setField(notifier, "circuitMinimumCalls", 20);
+        ReflectionTestUtils.setField(notifier, "circuitFailureRateThreshold", 1.0);
+        ReflectionTestUtils.setField(notifier, "circuitHalfOpenProbes", 1);
+
+        journal = new OutboxJournal(false, Path.of("unused"), 0, 0);
+        retryScheduler = new RetryScheduler(1, 1000, 1000, 2.0, 3600000, 100, 64);
+        dispatcher = new NotificationDispatcher(notifier, EmailNotifier.disabled(), new WebhookMessageFormatter(), journal,
+                retryScheduler, new DeadLetterStore(Path.of("target/benchmark-dead-letters.ndjson"), new ObjectMapper()),
+                new DestinationBulkheads(10_000, 10_000, virtualThreads), NotificationDigest.disabled(),
+                new EventPriorities(), metrics,
+                10_000, 4, OverflowPolicy.REJECT, 30, virtualThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+        retryScheduler.shutdown();
+        stubDiscord.stop(0);
+    }
+
+    @Benchmark
+    public void deliverWebhook() throws InterruptedException {
+        String ref = "event-" + sequence.incrementAndGet();
+        CountDownLatch delivered = new CountDownLatch(1);
+        pending.put(ref, delivered);
+        WebhookEvent event = new WebhookEvent("moslem", "giteaFinalProject", ref, "abc123", "def456", null, null, null);
+        if (!dispatcher.dispatch(event, "push", List.of(DiscordNotifier.DESTINATION_GENERAL))) {
+            pending.remove(ref);
+            throw new IllegalStateException("Dispatcher rejected the notification");
+        }
+        delivered.await();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.catalog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Realistic Gitea webhook bodies for benchmarks, built from the captured payloads under
+ * {@code src/test/resources/fixtures}.
+ */
+public final class WebhookFixtures {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private WebhookFixtures() {
+    }
+
+    /**
+     * A create event for a new branch, about 1.5 KB.
+     */
+    public static byte[] createBranch() {
+        return read("fixtures/gitea-create-branch.json");
+    }
+
+    /**
+     * A push event carrying {@code commits} commits, each copied from the captured single-commit
+     * push with a distinct id. 200 commits come to roughly 200 KB.
+     */
+    public static byte[] push(int commits) {
+        try {
+            ObjectNode push = (ObjectNode) objectMapper.readTree(read("fixtures/gitea-push.json"));
+            ObjectNode template = (ObjectNode) push.get("commits").get(0);
+            ArrayNode commitList = push.putArray("commits");
+            for (int i = 0; i < commits; i++) {
+                ObjectNode commit = template.deepCopy();
+                commit.put("id", String.format("%040x", i + 1));
+                commit.put("message", "Commit " + (i + 1) + ": " + template.get("message").asText());
+                commitList.add(commit);
+            }
+            push.put("total_commits", commits);
+            return objectMapper.writeValueAsBytes(push);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(String resource) {
+        try (InputStream in = WebhookFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.catalog.benchmark;
+
+import com.example.catalog.controller.WebhookController;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.AdmissionControl;
+import com.example.catalog.services.BulkWebhookIngester;
+import com.example.catalog.services.CreateEventHandler;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.DeleteEventHandler;
+import com.example.catalog.services.DestinationBulkheads;
+import com.example.catalog.services.DiscordNotifier;
+import com.example.catalog.services.EventHistory;
+import com.example.catalog.services.EmailNotifier;
+import com.example.catalog.services.EventPriorities;
+import com.example.catalog.services.GiteaEventHandler;
+import com.example.catalog.services.GiteaEventRegistry;
+import com.example.catalog.services.NotificationDigest;
+import com.example.catalog.services.NotificationDispatcher;
+import com.example.catalog.services.NotificationDispatcher.OverflowPolicy;
+import com.example.catalog.services.OutboundHttpClient;
+import com.example.catalog.services.OutboxJournal;
+import com.example.catalog.services.PipelineMetrics;
+import com.example.catalog.services.PushEventHandler;
+import com.example.catalog.services.RepositoryEventHandler;
+import com.example.catalog.services.RetryScheduler;
+import com.example.catalog.services.RoutingEngine;
+import com.example.catalog.services.WebhookDeduplicator;
+import com.example.catalog.services.WebhookIngestService;
+import com.example.catalog.services.WebhookMessageFormatter;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import com.example.catalog.services.WebhookSignatureVerifier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The stages of the webhook hot path, one benchmark each, on captured Gitea payloads: a small
+ * create-branch event and pushes with 1 and 200 commits. {@code handleWebhook} runs the whole
+ * ingress path through a real dispatcher into a Discord notifier that does nothing.
+ * <p>
+ * The benchmark profile runs JMH with the GC profiler, so {@code gc.alloc.rate.norm} gives the
+ * bytes allocated per event, and writes {@code target/jmh-result.json} to compare across releases:
+ * {@code mvn -Pbenchmark test -Djmh.args="WebhookHotPathBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookHotPathBenchmark {
+
+    @Param({"create_branch", "push_1", "push_200"})
+    public String payload;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong deliveryIds = new AtomicLong();
+    private byte[] body;
+    private String giteaEvent;
+    private GiteaEventRegistry registry;
+    private GiteaEventHandler handler;
+    private WebhookPayloadExtractor extractor;
+    private WebhookDeduplicator deduplicator;
+    private WebhookMessageFormatter formatter;
+    private WebhookEvent event;
+    private String eventType;
+
+    private OutboxJournal journal;
+    private RetryScheduler retryScheduler;
+    private DestinationBulkheads bulkheads;
+    private NotificationDispatcher dispatcher;
+    private WebhookController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (payload) {
+            case "create_branch" -> {
+                body = WebhookFixtures.createBranch();
+                giteaEvent = "create";
+            }
+            case "push_1" -> {
+                body = WebhookFixtures.push(1);
+                giteaEvent = "push";
+            }
+            case "push_200" -> {
+                body = WebhookFixtures.push(200);
+                giteaEvent = "push";
+            }
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+        registry = new GiteaEventRegistry(List.of(new PushEventHandler(), new CreateEventHandler(),
+                new DeleteEventHandler(), new RepositoryEventHandler()));
+        handler = registry.resolve(giteaEvent, null);
+        extractor = new WebhookPayloadExtractor(objectMapper, 5 * 1024 * 1024);
+        deduplicator = new WebhookDeduplicator(5, 100_000);
+        formatter = new WebhookMessageFormatter();
+        event = extractor.extract(body, handler.extractionPlan());
+        eventType = handler.eventType(event);
+        if (!eventType.equals(payload.startsWith("push") ? "push" : "create_branch")) {
+            throw new IllegalStateException("Fixture " + payload + " classified as " + eventType);
+        }
+
+        PipelineMetrics metrics = PipelineMetrics.inMemory();
+        DiscordNotifier noOpNotifier = new DiscordNotifier(new OutboundHttpClient(1000, 1000, 1000, 1), objectMapper, metrics,
+                new RoutingEngine(RoutingEngine.DEFAULT_RULES)) {
+            @Override
+            public void send(String destination, String message) {
+            }
+        };
+        journal = new OutboxJournal(false, Path.of("unused"), 0, 0);
+        retryScheduler = new RetryScheduler(1, 1000, 1000, 2.0, 3600000, 100, 64);
+        bulkheads = new DestinationBulkheads(2, 10_000, false);
+        dispatcher = new NotificationDispatcher(noOpNotifier, EmailNotifier.disabled(), formatter, journal, retryScheduler,
+                new DeadLetterStore(Path.of("target/benchmark-dead-letters.ndjson"), objectMapper), bulkheads,
+                NotificationDigest.disabled(), new EventPriorities(), metrics,
+                10_000, 4, OverflowPolicy.CALLER_RUNS, 30, false);
+        WebhookIngestService ingestService = new WebhookIngestService(dispatcher, deduplicator, extractor, registry,
+                new RoutingEngine(RoutingEngine.DEFAULT_RULES),
+                new AdmissionControl(new EventPriorities(), dispatcher, 1, 1, 1, 30),
+                new EventHistory(10_000), metrics);
+        controller = new WebhookController(ingestService,
+                new BulkWebhookIngester(ingestService, dispatcher, new WebhookSignatureVerifier(List.of()),
+                        objectMapper, 0.5, 30_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+        bulkheads.shutdown();
+        retryScheduler.shutdown();
+    }
+
+    /**
+     * Baseline: binding the whole payload into a {@code Map}, as the controller originally did.
+     */
+    @Benchmark
+    public Map<?, ?> bindToMap() throws IOException {
+        return objectMapper.readValue(body, Map.class);
+    }
+
+    @Benchmark
+    public WebhookEvent extractFields() throws IOException {
+        return extractor.extract(body, handler.extractionPlan());
+    }
+
+    @Benchmark
+    public String classify() {
+        return registry.resolve(giteaEvent, null).eventType(event);
+    }
+
+    @Benchmark
+    public boolean dedupByDeliveryId() {
+        return deduplicator.markIfAbsent(deduplicator.deliveryKey("delivery-" + deliveryIds.incrementAndGet(), body));
+    }
+
+    @Benchmark
+    public String dedupKeyFromBodyHash() {
+        return deduplicator.deliveryKey(null, body);
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(event, eventType);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> handleWebhook() {
+        return controller.handleWebhook("delivery-" + deliveryIds.incrementAndGet(), giteaEvent, null, body);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.catalog.load;
+
+import com.example.catalog.benchmark.WebhookFixtures;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a corpus of Gitea deliveries against the webhook endpoint, either at a fixed target rate
+ * or as fast as the workers can go. Every request gets its own {@code X-Gitea-Delivery} ID, so the
+ * deduplicator lets the same body through again.
+ * <p>
+ * At a target rate, each request has a scheduled start time and its latency is measured from that
+ * time rather than from when a worker got round to sending it. A service that falls behind then
+ * shows up in the percentiles instead of quietly lowering the offered load.
+ */
+public class GiteaReplayer {
+
+    /**
+     * One captured delivery: the {@code X-Gitea-Event} header and the request body.
+     */
+    public record Delivery(String giteaEvent, byte[] body) {
+    }
+
+    private final URI webhookUri;
+    private final List<Delivery> corpus;
+    private final int concurrency;
+    private final HttpClient httpClient;
+
+    public GiteaReplayer(URI webhookUri, List<Delivery> corpus, int concurrency) {
+        this.webhookUri = webhookUri;
+        this.corpus = List.copyOf(corpus);
+        this.concurrency = concurrency;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * A mix resembling a busy repository: mostly small pushes, some larger ones, a branch now and
+     * then and the occasional huge push.
+     */
+    public static List<Delivery> defaultCorpus() {
+        List<Delivery> corpus = new ArrayList<>();
+        byte[] smallPush = WebhookFixtures.push(1);
+        byte[] mediumPush = WebhookFixtures.push(20);
+        for (int i = 0; i < 12; i++) {
+            corpus.add(new Delivery("push", smallPush));
+        }
+        for (int i = 0; i < 4; i++) {
+            corpus.add(new Delivery("push", mediumPush));
+        }
+        corpus.add(new Delivery("create", WebhookFixtures.createBranch()));
+        corpus.add(new Delivery("create", WebhookFixtures.createBranch()));
+        corpus.add(new Delivery("create", WebhookFixtures.createBranch()));
+        corpus.add(new Delivery("push", WebhookFixtures.push(200)));
+        return corpus;
+    }
+
+    public List<Delivery> getCorpus() {
+        return corpus;
+    }
+
+    /**
+     * Sends deliveries for the given duration.
+     *
+     * @param ratePerSecond requests per second to offer, or 0 to send as fast as possible.
+     */
+    public Result run(double ratePerSecond, Duration duration) throws InterruptedException {
+        String runId = Long.toHexString(System.nanoTime());
+        AtomicLong next = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        for (int w = 0; w < concurrency; w++) {
+            workers[w] = new Worker(runId, next, start, end, intervalNanos);
+            threads[w] = new Thread(workers[w], "load-replayer-" + w);
+            threads[w].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        long[] acceptedByDelivery = new long[corpus.size()];
+        long[] latencies = new long[Arrays.stream(workers).mapToInt(worker -> worker.size).sum()];
+        int offset = 0;
+        for (Worker worker : workers) {
+            worker.statusCounts.forEach((status, count) -> statusCounts.merge(status, count, Long::sum));
+            for (int i = 0; i < acceptedByDelivery.length; i++) {
+                acceptedByDelivery[i] += worker.acceptedByDelivery[i];
+            }
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.size);
+            offset += worker.size;
+        }
+        Arrays.sort(latencies);
+        return new Result(elapsed, statusCounts, acceptedByDelivery, latencies);
+    }
+
+    /**
+     * What the service answered during a run.
+     *
+     * @param statusCounts       responses by HTTP status; -1 counts requests that got no response.
+     * @param acceptedByDelivery 202 responses per corpus entry, in corpus order.
+     * @param latenciesNanos     every request's latency, sorted.
+     */
+    public record Result(long elapsedNanos, Map<Integer, Long> statusCounts, long[] acceptedByDelivery,
+                         long[] latenciesNanos) {
+
+        public long getSent() {
+            return latenciesNanos.length;
+        }
+
+        public long count(int status) {
+            return statusCounts.getOrDefault(status, 0L);
+        }
+
+        public double getThroughput() {
+            return latenciesNanos.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        /**
+         * Latency at the given quantile, e.g. 0.99, in nanoseconds.
+         */
+        public long percentile(double quantile) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, Math.min(index, latenciesNanos.length - 1))];
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final String runId;
+        private final AtomicLong next;
+        private final long start;
+        private final long end;
+        private final double intervalNanos;
+        private final Map<Integer, Long> statusCounts = new TreeMap<>();
+        private final long[] acceptedByDelivery = new long[corpus.size()];
+        private long[] latencies = new long[1024];
+        private int size;
+
+        private Worker(String runId, AtomicLong next, long start, long end, double intervalNanos) {
+            this.runId = runId;
+            this.next = next;
+            this.start = start;
+            this.end = end;
+            this.intervalNanos = intervalNanos;
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long sequence = next.getAndIncrement();
+                long scheduled = intervalNanos > 0 ? start + (long) (sequence * intervalNanos) : System.nanoTime();
+                if (scheduled >= end) {
+                    return;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                int index = (int) (sequence % corpus.size());
+                int status = send(corpus.get(index), "load-" + runId + "-" + sequence);
+                record(System.nanoTime() - scheduled);
+                statusCounts.merge(status, 1L, Long::sum);
+                if (status == 202) {
+                    acceptedByDelivery[index]++;
+                }
+            }
+        }
+
+        private int send(Delivery delivery, String deliveryId) {
+            HttpRequest request = HttpRequest.newBuilder(webhookUri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .header("X-Gitea-Delivery", deliveryId)
+                    .header("X-Gitea-Event", delivery.giteaEvent())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(delivery.body()))
+                    .build();
+            try {
+                return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+
+        private void record(long latencyNanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+    }
+}
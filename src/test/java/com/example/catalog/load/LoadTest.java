@@ -0,0 +1,197 @@
+package com.example.catalog.load;
+
+import com.example.catalog.Application;
+import com.example.catalog.model.WebhookEvent;
+import com.example.catalog.services.DeadLetterStore;
+import com.example.catalog.services.GiteaEventHandler;
+import com.example.catalog.services.GiteaEventRegistry;
+import com.example.catalog.services.RoutingEngine;
+import com.example.catalog.services.WebhookPayloadExtractor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what one instance can sustain: starts the application against a {@link StubDiscordServer},
+ * replays Gitea deliveries at it with a {@link GiteaReplayer}, waits for the pipeline to drain and
+ * reports throughput, ingress latency percentiles and how many notifications reached Discord.
+ * <p>
+ * Run with {@code mvn -Pload-test test -Dload.args="--rate=500 --duration-seconds=60"}. Harness
+ * options are {@code --rate} (0 for as fast as possible), {@code --duration-seconds},
+ * {@code --concurrency}, {@code --discord-latency-ms}, {@code --error-rate},
+ * {@code --rate-limit-rate} and {@code --drain-timeout-seconds}; any other {@code --name=value}
+ * is passed to the application, e.g. {@code --spring.threads.virtual.enabled=true}.
+ */
+public final class LoadTest {
+
+    private static final Path WORK_DIR = Path.of("target", "load-test");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // A devtools restart would run the application in a second class loader, detached from the harness.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Report report = run(Options.parse(args));
+        System.out.println(report.format());
+    }
+
+    /**
+     * Harness settings.
+     *
+     * @param ratePerSecond requests per second to offer, or 0 to send as fast as possible.
+     * @param appProperties properties passed to the application, overriding the harness defaults.
+     */
+    public record Options(double ratePerSecond, Duration duration, int concurrency, long discordLatencyMillis,
+                          double errorRate, double rateLimitRate, Duration drainTimeout,
+                          Map<String, String> appProperties) {
+
+        public static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value but got " + arg);
+                }
+                int equals = arg.indexOf('=');
+                values.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+            return new Options(
+                    Double.parseDouble(take(values, "rate", "200")),
+                    Duration.ofSeconds(Long.parseLong(take(values, "duration-seconds", "30"))),
+                    Integer.parseInt(take(values, "concurrency", "64")),
+                    Long.parseLong(take(values, "discord-latency-ms", "50")),
+                    Double.parseDouble(take(values, "error-rate", "0.01")),
+                    Double.parseDouble(take(values, "rate-limit-rate", "0.01")),
+                    Duration.ofSeconds(Long.parseLong(take(values, "drain-timeout-seconds", "60"))),
+                    Map.copyOf(values));
+        }
+
+        /** Removes a harness option, leaving only the application's properties behind. */
+        private static String take(Map<String, String> values, String name, String defaultValue) {
+            String value = values.remove(name);
+            return value != null ? value : defaultValue;
+        }
+    }
+
+    /**
+     * Outcome of a load test run.
+     *
+     * @param expected     notifications the accepted webhooks should have produced.
+     * @param delivered    notifications the stub Discord server answered with 204.
+     * @param deadLettered notifications given up on and left in the dead-letter store.
+     */
+    public record Report(Options options, GiteaReplayer.Result replay, long expected, long delivered,
+                         long deadLettered, long injectedErrors, long injectedRateLimits) {
+
+        /** Notifications that never reached Discord, dead letters included. */
+        public long getLost() {
+            return Math.max(0, expected - delivered);
+        }
+
+        public String format() {
+            StringBuilder responses = new StringBuilder();
+            replay.statusCounts().forEach((status, count) ->
+                    responses.append(status < 0 ? "no response" : status).append('=').append(count).append(' '));
+            return String.format("Load test: %ds at %s, %d workers; Discord latency %d ms, %.1f%% errors, %.1f%% 429s%n"
+                            + "Requests:      %d sent, %.1f/s sustained%n"
+                            + "Responses:     %s%n"
+                            + "Latency:       p50 %s, p99 %s, p99.9 %s, max %s%n"
+                            + "Notifications: %d expected, %d delivered, %d lost (%d dead-lettered)%n"
+                            + "Discord stub:  %d injected 500s, %d injected 429s",
+                    options.duration().toSeconds(),
+                    options.ratePerSecond() > 0 ? options.ratePerSecond() + "/s offered" : "max speed",
+                    options.concurrency(), options.discordLatencyMillis(),
+                    options.errorRate() * 100, options.rateLimitRate() * 100,
+                    replay.getSent(), replay.getThroughput(),
+                    responses.toString().trim(),
+                    millis(replay.percentile(0.5)), millis(replay.percentile(0.99)),
+                    millis(replay.percentile(0.999)), millis(replay.percentile(1.0)),
+                    expected, delivered, getLost(), deadLettered,
+                    injectedErrors, injectedRateLimits);
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.2f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    public static Report run(Options options) throws IOException, InterruptedException {
+        FileSystemUtils.deleteRecursively(WORK_DIR);
+        try (StubDiscordServer discord = new StubDiscordServer(options.discordLatencyMillis(),
+                options.errorRate(), options.rateLimitRate());
+             ConfigurableApplicationContext context = SpringApplication.run(Application.class,
+                     applicationArgs(options, discord))) {
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            GiteaReplayer replayer = new GiteaReplayer(URI.create("http://localhost:" + port + "/gitea/webhook"),
+                    GiteaReplayer.defaultCorpus(), options.concurrency());
+            long[] destinations = destinationsPerDelivery(context, replayer.getCorpus());
+
+            GiteaReplayer.Result replay = replayer.run(options.ratePerSecond(), options.duration());
+            long expected = 0;
+            for (int i = 0; i < destinations.length; i++) {
+                expected += replay.acceptedByDelivery()[i] * destinations[i];
+            }
+
+            DeadLetterStore deadLetterStore = context.getBean(DeadLetterStore.class);
+            long deadline = System.nanoTime() + options.drainTimeout().toNanos();
+            long deadLettered = deadLetterStore.list().size();
+            while (discord.getDelivered() + deadLettered < expected && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(100);
+                deadLettered = deadLetterStore.list().size();
+            }
+            return new Report(options, replay, expected, discord.getDelivered(), deadLettered,
+                    discord.getInjectedErrors(), discord.getInjectedRateLimits());
+        }
+    }
+
+    /**
+     * Runs each corpus entry through the application's own classification and routing to learn
+     * how many notifications it should produce.
+     */
+    private static long[] destinationsPerDelivery(ConfigurableApplicationContext context,
+                                                  List<GiteaReplayer.Delivery> corpus) throws IOException {
+        GiteaEventRegistry registry = context.getBean(GiteaEventRegistry.class);
+        WebhookPayloadExtractor extractor = context.getBean(WebhookPayloadExtractor.class);
+        RoutingEngine routingEngine = context.getBean(RoutingEngine.class);
+        long[] destinations = new long[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) {
+            GiteaEventHandler handler = registry.resolve(corpus.get(i).giteaEvent(), null);
+            WebhookEvent event = extractor.extract(corpus.get(i).body(), handler.extractionPlan());
+            destinations[i] = routingEngine.route(event, handler.eventType(event)).size();
+        }
+        return destinations;
+    }
+
+    /**
+     * Points the application at the stub and lifts the limits that would otherwise measure the
+     * harness rather than the service: the real Discord rate limit, the per-request logging and the
+     * production retry delays.
+     */
+    private static String[] applicationArgs(Options options, StubDiscordServer discord) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("general.channel.url", discord.url("general"));
+        properties.put("my.events.url", discord.url("my-events"));
+        properties.put("discord.rate-limit.permits-per-second", "1000000");
+        properties.put("discord.rate-limit.burst", "1000000");
+        properties.put("retry.initial-delay-ms", "50");
+        properties.put("retry.max-delay-ms", "1000");
+        properties.put("retry.timer.tick-ms", "10");
+        properties.put("outbox.dir", WORK_DIR.resolve("outbox").toString());
+        properties.put("deadletter.file", WORK_DIR.resolve("dead-letters.ndjson").toString());
+        properties.put("logging.level.com.example.catalog", "ERROR");
+        properties.putAll(options.appProperties());
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.catalog.load;
+
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold-start time as Gitea sees it: from launching a build of the application to its
+ * first webhook being accepted, and to that webhook's notification reaching a
+ * {@link StubDiscordServer}. Each variant is started fresh for every run with its own port, outbox
+ * and dead-letter file.
+ * <p>
+ * Run with {@code mvn -Pstartup-time test -Dstartup.args="--runs=5"} after building the variants,
+ * e.g. with {@code mvn -Pcds,native package}. Without {@code --variant} options, every build found
+ * in {@code target} is measured: the plain jar, the AOT jar with its CDS archive ({@code -Pcds}) and
+ * the native executable ({@code -Pnative}). {@code --variant=name=command} measures any other
+ * command instead, e.g. a container started with {@code docker run --rm --network host image}; the
+ * application's port, Discord URLs and data paths are appended to the command as arguments.
+ * Other options are {@code --runs} and {@code --timeout-seconds}.
+ */
+public final class StartupTimer {
+
+    private static final Path TARGET = Path.of("target");
+    private static final String JAR = "giteaNotificator-1.0-SNAPSHOT.jar";
+    private static final String PUSH = "{\"ref\":\"refs/heads/main\",\"before\":\"a\",\"after\":\"b\","
+            + "\"sender\":{\"login\":\"startup-timer\"},\"repository\":{\"name\":\"giteaFinalProject\"}}";
+
+    private StartupTimer() {
+    }
+
+    /**
+     * A way of starting the application.
+     */
+    public record Variant(String name, List<String> command) {
+    }
+
+    /**
+     * One cold start, in nanoseconds from launching the process.
+     */
+    public record Sample(long acceptedNanos, long deliveredNanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<Variant> variants = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            if (name.equals("variant")) {
+                int nameEnd = value.indexOf('=');
+                variants.add(new Variant(value.substring(0, nameEnd), List.of(value.substring(nameEnd + 1).trim().split("\\s+"))));
+            } else {
+                options.put(name, value);
+            }
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "60")));
+        if (variants.isEmpty()) {
+            variants = builtVariants();
+        }
+        if (variants.isEmpty()) {
+            throw new IllegalStateException("Nothing to measure in " + TARGET.toAbsolutePath()
+                    + "; build with mvn -Pcds,native package or pass --variant=name=command");
+        }
+        StringBuilder report = new StringBuilder(String.format(
+                "Time to first handled webhook, %d cold starts each:%n%-10s %12s %12s %12s %12s%n",
+                runs, "variant", "accepted p50", "min", "max", "delivered p50"));
+        for (Variant variant : variants) {
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                samples.add(measure(variant, timeout));
+            }
+            long[] accepted = samples.stream().mapToLong(Sample::acceptedNanos).sorted().toArray();
+            long[] delivered = samples.stream().mapToLong(Sample::deliveredNanos).sorted().toArray();
+            report.append(String.format("%-10s %12s %12s %12s %12s%n", variant.name(),
+                    millis(accepted[accepted.length / 2]), millis(accepted[0]), millis(accepted[accepted.length - 1]),
+                    millis(delivered[delivered.length / 2])));
+        }
+        System.out.print(report);
+    }
+
+    /**
+     * The builds of this project present in {@code target}.
+     */
+    static List<Variant> builtVariants() {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Variant> variants = new ArrayList<>();
+        if (Files.isRegularFile(TARGET.resolve(JAR))) {
+            variants.add(new Variant("jar", List.of(java, "-jar", TARGET.resolve(JAR).toString())));
+        }
+        Path cds = TARGET.resolve("cds");
+        if (Files.isRegularFile(cds.resolve("app.jsa"))) {
+            variants.add(new Variant("aot-cds", List.of(java, "-XX:SharedArchiveFile=" + cds.resolve("app.jsa"),
+                    "-Dspring.aot.enabled=true", "-jar", cds.resolve(JAR).toString())));
+        }
+        Path executable = TARGET.resolve("giteaNotificator");
+        if (Files.isExecutable(executable)) {
+            variants.add(new Variant("native", List.of(executable.toString())));
+        }
+        return variants;
+    }
+
+    /**
+     * Starts the variant, posts a push webhook until one is accepted, waits for its notification
+     * and stops the process again.
+     */
+    public static Sample measure(Variant variant, Duration timeout) throws IOException, InterruptedException {
+        Path workDir = Files.createTempDirectory("startup-timer-");
+        int port = freePort();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest webhook = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/gitea/webhook"))
+                .header("Content-Type", "application/json")
+                .header("X-Gitea-Event", "push")
+                .POST(HttpRequest.BodyPublishers.ofString(PUSH, StandardCharsets.UTF_8))
+                .build();
+        Process process = null;
+        try (StubDiscordServer discord = new StubDiscordServer(0, 0, 0)) {
+            List<String> command = new ArrayList<>(variant.command());
+            command.addAll(Arrays.asList(
+                    "--server.port=" + port,
+                    "--general.channel.url=" + discord.url("general"),
+                    "--my.events.url=" + discord.url("my-events"),
+                    "--outbox.dir=" + workDir.resolve("outbox"),
+                    "--deadletter.file=" + workDir.resolve("dead-letters.ndjson")));
+            long start = System.nanoTime();
+            long deadline = start + timeout.toNanos();
+            process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(workDir.resolve("application.log").toFile())
+                    .start();
+            long accepted = 0;
+            while (accepted == 0) {
+                check(process, variant, deadline, workDir);
+                try {
+                    if (client.send(webhook, HttpResponse.BodyHandlers.discarding()).statusCode() == 202) {
+                        accepted = System.nanoTime() - start;
+                    }
+                } catch (ConnectException e) {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                }
+            }
+            while (discord.getDelivered() == 0) {
+                check(process, variant, deadline, workDir);
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            return new Sample(accepted, System.nanoTime() - start);
+        } finally {
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+            FileSystemUtils.deleteRecursively(workDir);
+        }
+    }
+
+    private static void check(Process process, Variant variant, long deadline, Path workDir) throws IOException {
+        if (!process.isAlive()) {
+            throw new IllegalStateException(variant.name() + " exited with " + process.exitValue() + ":\n"
+                    + Files.readString(workDir.resolve("application.log")));
+        }
+        if (System.nanoTime() > deadline) {
+            throw new IllegalStateException(variant.name() + " did not handle a webhook in time:\n"
+                    + Files.readString(workDir.resolve("application.log")));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.0f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.catalog.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded stand-in for Discord's webhook endpoint. Every call is held for the configured latency,
+ * then answered 204, or with an injected 500 or 429 at the configured rates. Every path is a
+ * webhook, so each destination can get its own URL from {@link #url(String)}.
+ */
+public class StubDiscordServer implements AutoCloseable {
+
+    private final long latencyMillis;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder injectedRateLimits = new LongAdder();
+
+    /**
+     * @param latencyMillis how long each call takes to answer.
+     * @param errorRate     share of calls answered 500, between 0 and 1.
+     * @param rateLimitRate share of calls answered 429 with a short {@code Retry-After}, between 0 and 1.
+     */
+    public StubDiscordServer(long latencyMillis, double errorRate, double rateLimitRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String url(String destination) {
+        return "http://localhost:" + server.getAddress().getPort() + "/" + destination;
+    }
+
+    /** Messages answered 204, i.e. notifications Discord would have shown. */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public long getInjectedRateLimits() {
+        return injectedRateLimits.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                injectedErrors.increment();
+                exchange.sendResponseHeaders(500, -1);
+            } else if (roll < errorRate + rateLimitRate) {
+                injectedRateLimits.increment();
+                exchange.getResponseHeaders().add("Retry-After", "0.05");
+                exchange.sendResponseHeaders(429, -1);
+            } else {
+                delivered.increment();
+                exchange.sendResponseHeaders(204, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}